@@ -0,0 +1,81 @@
+package com.itcenter.auth.config;
+
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.entity.Role;
+import com.itcenter.auth.repository.AppUserRepository;
+import com.itcenter.auth.service.DeactivatedUserRegistry;
+import com.itcenter.auth.service.PrincipalAuthorityCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * JwtAuthConverter.convert with the principal cached vs. looked up. The repository is a
+ * stub, so "miss" is the in-process cost around a database lookup, not the query itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class JwtAuthConverterBenchmark {
+
+    private PrincipalAuthorityCache authorityCache;
+    private JwtAuthConverter converter;
+    private Jwt jwt;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AppUser user = user("bench-sub", 42L, role(1L, "ADMIN"), role(2L, "EMPLOYEE"));
+        AppUserRepository userRepository = mock(AppUserRepository.class);
+        when(userRepository.findByCognitoSub("bench-sub")).thenReturn(Optional.of(user));
+
+        authorityCache = new PrincipalAuthorityCache(meterRegistry);
+        converter = new JwtAuthConverter(userRepository, authorityCache,
+            new DeactivatedUserRegistry(null, meterRegistry), meterRegistry);
+        jwt = Jwt.withTokenValue("token")
+            .header("alg", "RS256")
+            .claim("sub", "bench-sub")
+            .claim("email", "bench@example.com")
+            .issuedAt(Instant.now())
+            .expiresAt(Instant.now().plusSeconds(3600))
+            .build();
+        converter.convert(jwt);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken convertCacheHit() {
+        return converter.convert(jwt);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken convertCacheMiss() {
+        authorityCache.evictAll();
+        return converter.convert(jwt);
+    }
+
+    static AppUser user(String sub, Long id, Role... roles) {
+        AppUser user = new AppUser();
+        user.setId(id);
+        user.setCognitoSub(sub);
+        user.setEmail(sub + "@example.com");
+        user.setDisplayName(sub);
+        user.setRoles(new java.util.ArrayList<>(List.of(roles)));
+        return user;
+    }
+
+    static Role role(Long id, String name) {
+        Role role = new Role();
+        role.setId(id);
+        role.setName(name);
+        return role;
+    }
+}
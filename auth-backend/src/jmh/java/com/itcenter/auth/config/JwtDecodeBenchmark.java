@@ -0,0 +1,59 @@
+package com.itcenter.auth.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding and RS256 signature verification of a Cognito-shaped access token,
+ * with the public key already resolved (no JWKS fetch)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class JwtDecodeBenchmark {
+
+    private NimbusJwtDecoder decoder;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+            .subject("bench-sub")
+            .issuer("https://cognito-idp.ap-southeast-2.amazonaws.com/bench")
+            .claim("token_use", "access")
+            .claim("scope", "openid email profile")
+            .claim("cognito:groups", List.of("ADMIN"))
+            .jwtID("bench-jti")
+            .issueTime(Date.from(Instant.now()))
+            .expirationTime(Date.from(Instant.now().plusSeconds(86_400)))
+            .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("bench").build(), claims);
+        jwt.sign(new RSASSASigner(keyPair.getPrivate()));
+        token = jwt.serialize();
+
+        decoder = NimbusJwtDecoder.withPublicKey((RSAPublicKey) keyPair.getPublic()).build();
+    }
+
+    @Benchmark
+    public Jwt decodeAndVerify() {
+        return decoder.decode(token);
+    }
+}
@@ -0,0 +1,122 @@
+package com.itcenter.auth.config;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import net.logstash.logback.encoder.LogstashEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost on the request thread of one per-request INFO line, for the file/pattern setup the
+ * default profile uses and for the prod profile (async JSON, optionally with sampling).
+ *
+ * The async setups never block: when the writer falls behind, events are dropped, so their
+ * numbers are request-thread cost only, not lines written. Run with -t to add contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+
+    private static final String LOGGER = "com.itcenter.auth.service.SessionService";
+
+    @Param({"sync-pattern", "async-json", "async-json-sampled"})
+    public String setup;
+
+    private LoggerContext context;
+    private Logger logger;
+    private Path file;
+    private long userId = 42;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new LoggerContext();
+        context.setName("logging-benchmark");
+        file = Files.createTempFile("logging-benchmark", ".log");
+
+        Appender<ILoggingEvent> appender = switch (setup) {
+            case "sync-pattern" -> fileAppender(patternEncoder());
+            case "async-json", "async-json-sampled" -> async(fileAppender(jsonEncoder()));
+            default -> throw new IllegalArgumentException(setup);
+        };
+        if (setup.equals("async-json-sampled")) {
+            LogSamplingTurboFilter sampling = new LogSamplingTurboFilter();
+            sampling.setContext(context);
+            sampling.addLogger(LOGGER);
+            sampling.setMaxPerSecond(20);
+            sampling.start();
+            context.addTurboFilter(sampling);
+        }
+
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.addAppender(appender);
+        logger = context.getLogger(LOGGER);
+        logger.setLevel(ch.qos.logback.classic.Level.INFO);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.stop();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void markLoginInfoLine() {
+        logger.info("[MARK-LOGIN] Recorded login for user ID: {}", userId);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void markLoginInfoLineContended() {
+        logger.info("[MARK-LOGIN] Recorded login for user ID: {}", userId);
+    }
+
+    private Encoder<ILoggingEvent> patternEncoder() {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        // logging.pattern.file from application.yml
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss} [%thread] %-5level %logger{36} - %msg%n");
+        encoder.start();
+        return encoder;
+    }
+
+    private Encoder<ILoggingEvent> jsonEncoder() {
+        LogstashEncoder encoder = new LogstashEncoder();
+        encoder.setContext(context);
+        encoder.setCustomFields("{\"application\":\"itcenter-auth-api\"}");
+        encoder.start();
+        return encoder;
+    }
+
+    private Appender<ILoggingEvent> fileAppender(Encoder<ILoggingEvent> encoder) {
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setFile(file.toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+
+    private Appender<ILoggingEvent> async(Appender<ILoggingEvent> delegate) {
+        // Same settings as logback-prod.xml
+        AsyncAppender appender = new AsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(8192);
+        appender.setNeverBlock(true);
+        appender.setIncludeCallerData(false);
+        appender.addAppender(delegate);
+        appender.start();
+        return appender;
+    }
+}
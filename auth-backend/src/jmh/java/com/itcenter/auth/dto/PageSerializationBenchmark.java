@@ -0,0 +1,96 @@
+package com.itcenter.auth.dto;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admin users and audit log pages: the PageImpl body with bean-serialized DTOs that the
+ * endpoints used to return, against PageResponse with the hand-written serializers.
+ * Each variant writes to a discarding stream, like the response buffer; the payload sizes
+ * are printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper beanMapper;
+    private Page<UserSummaryResponse> users;
+    private Page<AuditEntryResponse> audits;
+    private PageResponse<UserSummaryResponse> userPage;
+    private PageResponse<AuditEntryResponse> auditPage;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        // Without annotations the DTOs fall back to the generic bean serializer, as before
+        beanMapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(MapperFeature.USE_ANNOTATIONS).build();
+
+        List<UserSummaryResponse> userContent = new ArrayList<>();
+        List<AuditEntryResponse> auditContent = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            userContent.add(UserSummaryResponse.builder()
+                .id((long) i)
+                .email("user" + i + "@example.com")
+                .displayName("User " + i)
+                .locale("en")
+                .isActive(true)
+                .createdAt(LocalDateTime.of(2024, 1, 1, 9, 0))
+                .lastLogin(LocalDateTime.of(2024, 6, 1, 9, 0))
+                .roles(i % 5 == 0 ? List.of("ADMIN", "EMPLOYEE") : List.of("EMPLOYEE"))
+                .build());
+            auditContent.add(AuditEntryResponse.builder()
+                .id((long) i)
+                .userId((long) i)
+                .userEmail("user" + i + "@example.com")
+                .eventType("LOGIN_SUCCESS")
+                .ipAddress("203.0.113." + (i % 255))
+                .userAgent("Mozilla/5.0 (X11; Linux x86_64)")
+                .createdAt(LocalDateTime.of(2024, 6, 1, 9, 0))
+                .build());
+        }
+        users = new PageImpl<>(userContent, PageRequest.of(0, pageSize), 10_000);
+        audits = new PageImpl<>(auditContent, PageRequest.of(0, pageSize), 2_000_000);
+        userPage = PageResponse.of(users);
+        auditPage = PageResponse.of(audits);
+
+        System.out.printf("%nPayload bytes (pageSize=%d): users %d -> %d, audit log %d -> %d%n", pageSize,
+            beanMapper.writeValueAsBytes(users).length, objectMapper.writeValueAsBytes(userPage).length,
+            beanMapper.writeValueAsBytes(audits).length, objectMapper.writeValueAsBytes(auditPage).length);
+    }
+
+    @Benchmark
+    public void usersPageImpl() throws Exception {
+        beanMapper.writeValue(OutputStream.nullOutputStream(), users);
+    }
+
+    @Benchmark
+    public void usersPageResponse() throws Exception {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), userPage);
+    }
+
+    @Benchmark
+    public void auditPageImpl() throws Exception {
+        beanMapper.writeValue(OutputStream.nullOutputStream(), audits);
+    }
+
+    @Benchmark
+    public void auditPageResponse() throws Exception {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), auditPage);
+    }
+}
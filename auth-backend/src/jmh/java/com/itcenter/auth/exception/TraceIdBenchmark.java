@@ -0,0 +1,43 @@
+package com.itcenter.auth.exception;
+
+import com.itcenter.auth.dto.ErrorResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trace-id generation in GlobalExceptionHandler, alone and as part of a handler.
+ * Run with -t to see contention on the shared SecureRandom behind UUID.randomUUID.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class TraceIdBenchmark {
+
+    private GlobalExceptionHandler handler;
+    private AccessDeniedException exception;
+
+    @Setup
+    public void setUp() {
+        handler = new GlobalExceptionHandler();
+        exception = new AccessDeniedException("denied");
+    }
+
+    @Benchmark
+    public String newTraceId() {
+        return GlobalExceptionHandler.newTraceId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String newTraceIdContended() {
+        return GlobalExceptionHandler.newTraceId();
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> handleAccessDenied() {
+        return handler.handleAccessDeniedException(exception);
+    }
+}
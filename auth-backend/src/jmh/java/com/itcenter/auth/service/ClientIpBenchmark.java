@@ -0,0 +1,44 @@
+package com.itcenter.auth.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuditService.getClientIp for each header it falls back through
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ClientIpBenchmark {
+
+    private MockHttpServletRequest forwardedChain;
+    private MockHttpServletRequest realIp;
+    private MockHttpServletRequest remoteAddr;
+
+    @Setup
+    public void setUp() {
+        forwardedChain = new MockHttpServletRequest();
+        forwardedChain.addHeader("X-Forwarded-For", "203.0.113.7, 10.0.0.12, 10.0.0.1");
+        realIp = new MockHttpServletRequest();
+        realIp.addHeader("X-Real-IP", "203.0.113.7");
+        remoteAddr = new MockHttpServletRequest();
+        remoteAddr.setRemoteAddr("203.0.113.7");
+    }
+
+    @Benchmark
+    public String forwardedFor() {
+        return AuditService.getClientIp(forwardedChain);
+    }
+
+    @Benchmark
+    public String xRealIp() {
+        return AuditService.getClientIp(realIp);
+    }
+
+    @Benchmark
+    public String remoteAddress() {
+        return AuditService.getClientIp(remoteAddr);
+    }
+}
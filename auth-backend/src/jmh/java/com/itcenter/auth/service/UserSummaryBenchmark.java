@@ -0,0 +1,89 @@
+package com.itcenter.auth.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itcenter.auth.dto.UserSummaryResponse;
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.entity.Role;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping and JSON serialization of an admin users page
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class UserSummaryBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private UserService userService;
+    private ObjectMapper objectMapper;
+    private AppUser user;
+    private Page<AppUser> users;
+    private Page<UserSummaryResponse> summaries;
+
+    @Setup
+    public void setUp() {
+        userService = new UserService(null, null, null, null, null, null, null, null);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        Role admin = role(1L, "ADMIN");
+        Role employee = role(2L, "EMPLOYEE");
+        List<AppUser> content = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            content.add(user(i, i % 5 == 0 ? List.of(admin, employee) : List.of(employee)));
+        }
+        user = content.get(0);
+        users = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+        summaries = users.map(userService::mapToSummaryResponse);
+    }
+
+    @Benchmark
+    public UserSummaryResponse mapSingle() {
+        return userService.mapToSummaryResponse(user);
+    }
+
+    @Benchmark
+    public Page<UserSummaryResponse> mapPage() {
+        return users.map(userService::mapToSummaryResponse);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(users.map(userService::mapToSummaryResponse));
+    }
+
+    private static AppUser user(int i, List<Role> roles) {
+        AppUser user = new AppUser();
+        user.setId((long) i);
+        user.setCognitoSub("sub-" + i);
+        user.setEmail("user" + i + "@example.com");
+        user.setDisplayName("User " + i);
+        user.setCreatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+        user.setLastLogin(LocalDateTime.of(2024, 6, 1, 9, 0));
+        user.setRoles(new ArrayList<>(roles));
+        return user;
+    }
+
+    private static Role role(Long id, String name) {
+        Role role = new Role();
+        role.setId(id);
+        role.setName(name);
+        return role;
+    }
+}
@@ -0,0 +1,278 @@
+package com.itcenter.auth.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Produces a warmed-up CRaC checkpoint of the backend and checks that it restores.
+ *
+ * Starts the packaged jar on a CRaC-capable JDK against a Postgres container and the stub
+ * identity provider, drives the production request mix (/me, mark-login, admin user list
+ * and search, audit log) until the hot paths are compiled and the caches are loaded, then
+ * takes the checkpoint with jcmd. The image is restored once and the time to the first
+ * /healthz and /me is recorded next to the warm-up numbers in results.json.
+ *
+ * Settings come from system properties (see the crac profile in pom.xml): crac.java,
+ * crac.jar, crac.image, crac.users, crac.warmup, crac.threads, crac.output.
+ */
+public final class CracCheckpoint {
+
+    private static final String USER_PREFIX = "crac-user-";
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+
+    private final Path java = Path.of(System.getProperty("crac.java",
+        Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+    private final Path jar = Path.of(System.getProperty("crac.jar", "target/auth-backend-1.0.0.jar"));
+    private final Path image = Path.of(System.getProperty("crac.image", "target/crac/image"));
+    private final int users = Integer.getInteger("crac.users", 200);
+    private final Duration warmup = DurationStyle.detectAndParse(System.getProperty("crac.warmup", "60s"));
+    private final int threads = Integer.getInteger("crac.threads", 4);
+    private final Path output = Path.of(System.getProperty("crac.output", "target/crac"));
+
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofMillis(200))
+        .build();
+
+    public static void main(String[] args) throws Exception {
+        new CracCheckpoint().run();
+    }
+
+    private void run() throws Exception {
+        Files.createDirectories(output);
+        Files.createDirectories(image);
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+             StubIdentityProvider idp = StubIdentityProvider.start()) {
+            postgres.start();
+            int port = freePort();
+            URI base = URI.create("http://127.0.0.1:" + port);
+            Map<String, Object> results = new LinkedHashMap<>();
+
+            Process backend = start(List.of("-XX:CRaCCheckpointTo=" + image.toAbsolutePath()),
+                arguments(port, postgres, idp), "checkpoint");
+            try {
+                results.put("startMillis", awaitOk(backend, HttpRequest.newBuilder(base.resolve("/healthz")).GET().build(),
+                    System.nanoTime()));
+                seed(new JdbcTemplate(new DriverManagerDataSource(
+                    postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())));
+                results.put("warmup", warmUp(base, idp));
+                results.put("checkpointMillis", checkpoint(backend));
+            } finally {
+                stop(backend);
+            }
+
+            // The image keeps the port, datasource and identity provider it was taken with
+            long started = System.nanoTime();
+            Process restored = start(List.of("-XX:CRaCRestoreFrom=" + image.toAbsolutePath()), List.of(), "restore");
+            try {
+                long healthz = awaitOk(restored, HttpRequest.newBuilder(base.resolve("/healthz")).GET().build(), started);
+                long me = awaitOk(restored, get(base, "/api/v1/me", idp.mint(USER_PREFIX + 1)), started);
+                results.put("restore", Map.of("healthzMillis", healthz, "meMillis", me));
+                System.out.printf("restore: /healthz %d ms  /me %d ms%n", healthz, me);
+            } finally {
+                stop(restored);
+            }
+            writeResults(results);
+        }
+    }
+
+    private List<String> arguments(int port, PostgreSQLContainer<?> postgres, StubIdentityProvider idp) {
+        return List.of(
+            "-jar", jar.toString(),
+            "--server.port=" + port,
+            "--spring.datasource.url=" + postgres.getJdbcUrl(),
+            "--spring.datasource.username=" + postgres.getUsername(),
+            "--spring.datasource.password=" + postgres.getPassword(),
+            "--spring.security.oauth2.resourceserver.jwt.issuer-uri=" + idp.issuer(),
+            "--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + idp.jwkSetUri(),
+            "--cognito.issuer-uri=" + idp.issuer(),
+            "--cognito.jwk-set-uri=" + idp.jwkSetUri(),
+            "--cognito.user-info-uri=" + idp.userInfoUri(),
+            "--app.rate-limit.enabled=false",
+            "--app.concurrency-limit.enabled=false",
+            "--app.principal-snapshot.enabled=false",
+            "--app.schema.migrate-on-startup=true",
+            "--logging.level.root=WARN",
+            "--logging.level.com.itcenter=WARN",
+            "--logging.file.name=" + output.resolve("app.log").toAbsolutePath());
+    }
+
+    private void seed(JdbcTemplate jdbc) {
+        jdbc.update("INSERT INTO app_users (cognito_sub, email, display_name, locale, is_active) " +
+                "SELECT ? || g, ? || g || '@example.com', 'CRaC User ' || g, 'en', true " +
+                "FROM generate_series(1, ?) g ON CONFLICT (cognito_sub) DO NOTHING",
+            USER_PREFIX, USER_PREFIX, users);
+        jdbc.update("INSERT INTO user_roles (user_id, role_id) " +
+                "SELECT u.id, r.id FROM app_users u JOIN roles r ON r.name = 'EMPLOYEE' " +
+                "WHERE u.cognito_sub LIKE ? ON CONFLICT (user_id, role_id) DO NOTHING",
+            USER_PREFIX + "%");
+        jdbc.update("INSERT INTO user_roles (user_id, role_id) " +
+                "SELECT u.id, r.id FROM app_users u JOIN roles r ON r.name = 'ADMIN' " +
+                "WHERE u.cognito_sub = ? ON CONFLICT (user_id, role_id) DO NOTHING",
+            USER_PREFIX + 1);
+        jdbc.update("INSERT INTO login_audit (user_id, event_type, ip_address, user_agent) " +
+                "SELECT u.id, 'LOGIN', '203.0.113.10', 'crac-warmup' " +
+                "FROM app_users u CROSS JOIN generate_series(1, 10) WHERE u.cognito_sub LIKE ?",
+            USER_PREFIX + "%");
+    }
+
+    /**
+     * Drives the request mix from several threads until the warm-up time is up
+     */
+    private Map<String, Object> warmUp(URI base, StubIdentityProvider idp) throws InterruptedException {
+        String[] tokens = new String[users];
+        for (int i = 0; i < users; i++) {
+            tokens[i] = idp.mint(USER_PREFIX + (i + 1));
+        }
+        String admin = tokens[0];
+        Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+        long deadline = System.nanoTime() + warmup.toNanos();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().name("crac-warmup-" + t).start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    int pick = random.nextInt(100);
+                    String user = tokens[random.nextInt(users)];
+                    HttpRequest request;
+                    if (pick < 60) {
+                        request = get(base, "/api/v1/me", user);
+                    } else if (pick < 75) {
+                        // A fresh jti each time, as a real login would have
+                        request = HttpRequest.newBuilder(base.resolve("/api/v1/sessions/mark-login"))
+                            .header("Authorization", "Bearer " + idp.mint(USER_PREFIX + (1 + random.nextInt(users))))
+                            .POST(HttpRequest.BodyPublishers.noBody())
+                            .build();
+                    } else if (pick < 85) {
+                        request = get(base, "/api/v1/admin/users?page=0&size=20", admin);
+                    } else if (pick < 90) {
+                        request = get(base, "/api/v1/admin/users?query=" + USER_PREFIX + random.nextInt(users), admin);
+                    } else {
+                        request = get(base, "/api/v1/admin/audit-log?page=0&size=20", admin);
+                    }
+                    String status;
+                    try {
+                        status = String.valueOf(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+                    } catch (IOException e) {
+                        status = "io-error";
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
+        System.out.printf("warm-up: %d requests in %s %s%n", total, warmup, counts);
+        if (counts.keySet().stream().anyMatch(status -> !status.startsWith("2"))) {
+            throw new IllegalStateException("Warm-up traffic failed: " + counts);
+        }
+        return Map.of("requests", total, "statuses", counts);
+    }
+
+    /**
+     * @return milliseconds until the checkpointed JVM has written the image and exited
+     */
+    private long checkpoint(Process backend) throws Exception {
+        Path jcmd = java.resolveSibling("jcmd");
+        long started = System.nanoTime();
+        Process command = new ProcessBuilder(jcmd.toString(), String.valueOf(backend.pid()), "JDK.checkpoint")
+            .inheritIO()
+            .start();
+        if (command.waitFor() != 0) {
+            throw new IllegalStateException("jcmd JDK.checkpoint failed with status " + command.exitValue());
+        }
+        if (!backend.waitFor(START_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Backend did not exit after the checkpoint; see checkpoint.log");
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        System.out.printf("checkpoint: %d ms, image in %s%n", millis, image.toAbsolutePath());
+        return millis;
+    }
+
+    private Process start(List<String> jvmOptions, List<String> arguments, String name) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(java.toString());
+        command.addAll(jvmOptions);
+        command.addAll(arguments);
+        return new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(output.resolve(name + ".log").toFile())
+            .start();
+    }
+
+    private long awaitOk(Process process, HttpRequest request, long started) throws Exception {
+        long deadline = started + START_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Backend exited with status " + process.exitValue()
+                    + " before " + request.uri().getPath() + " succeeded");
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                }
+            } catch (IOException notListeningYet) {
+                // Connection refused until the web server is up
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException(request.uri().getPath() + " did not succeed within " + START_TIMEOUT);
+    }
+
+    private static HttpRequest get(URI base, String path, String token) {
+        return HttpRequest.newBuilder(base.resolve(path))
+            .header("Authorization", "Bearer " + token)
+            .GET()
+            .build();
+    }
+
+    private static void stop(Process process) throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    private void writeResults(Map<String, Object> results) throws IOException {
+        Path file = output.resolve("results.json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), results);
+        System.out.println("CRaC results written to " + file.toAbsolutePath());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
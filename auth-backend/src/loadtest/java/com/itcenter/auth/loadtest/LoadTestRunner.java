@@ -0,0 +1,263 @@
+package com.itcenter.auth.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.itcenter.auth.AuthApplication;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * End-to-end load test: Postgres in a container, the backend in-process against a stub
+ * identity provider, and fixed-rate load per scenario. Writes HdrHistogram percentile
+ * distributions and a results.json with latency, throughput and DB statement counts.
+ *
+ * Settings come from system properties (see the load-test profile in pom.xml):
+ * load.users, load.admins, load.rate, load.warmup, load.duration, load.scenarios, load.output.
+ * The load generator shares the JVM with the backend; compare runs on the same machine only.
+ */
+public final class LoadTestRunner {
+
+    private static final String USER_PREFIX = "load-user-";
+
+    private final int users = Integer.getInteger("load.users", 200);
+    private final int admins = Integer.getInteger("load.admins", 10);
+    private final double rate = Double.parseDouble(System.getProperty("load.rate", "100"));
+    private final Duration warmup = DurationStyle.detectAndParse(System.getProperty("load.warmup", "10s"));
+    private final Duration duration = DurationStyle.detectAndParse(System.getProperty("load.duration", "30s"));
+    private final List<String> scenarios = List.of(
+        System.getProperty("load.scenarios", "me,mark-login,admin-users,audit-log").split(","));
+    private final Path output = Path.of(System.getProperty("load.output", "target/load-test"));
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestRunner().run();
+    }
+
+    private void run() throws Exception {
+        Files.createDirectories(output);
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+                 .withCommand("postgres",
+                     "-c", "shared_preload_libraries=pg_stat_statements",
+                     "-c", "pg_stat_statements.track_utility=off",
+                     "-c", "max_connections=200");
+             StubIdentityProvider idp = StubIdentityProvider.start()) {
+            postgres.start();
+
+            try (ConfigurableApplicationContext app = startBackend(postgres, idp)) {
+                int port = ((ServletWebServerApplicationContext) app).getWebServer().getPort();
+                JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                    postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+                seed(jdbc);
+
+                StatementCounter statements = new StatementCounter(jdbc);
+                HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+                OpenModelDriver driver = new OpenModelDriver(client);
+                Requests requests = new Requests(URI.create("http://127.0.0.1:" + port), idp);
+
+                List<Map<String, Object>> results = new ArrayList<>();
+                for (String scenario : scenarios) {
+                    results.add(runScenario(scenario.trim(), requests, driver, statements, idp));
+                }
+                writeResults(results);
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext startBackend(PostgreSQLContainer<?> postgres, StubIdentityProvider idp) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url", postgres.getJdbcUrl());
+        properties.put("spring.datasource.username", postgres.getUsername());
+        properties.put("spring.datasource.password", postgres.getPassword());
+        properties.put("spring.jpa.show-sql", false);
+        properties.put("spring.jpa.properties.hibernate.show_sql", false);
+        properties.put("spring.jpa.properties.hibernate.format_sql", false);
+        properties.put("spring.jpa.properties.hibernate.use_sql_comments", false);
+        properties.put("spring.security.oauth2.resourceserver.jwt.issuer-uri", idp.issuer());
+        properties.put("spring.security.oauth2.resourceserver.jwt.jwk-set-uri", idp.jwkSetUri());
+        properties.put("cognito.issuer-uri", idp.issuer());
+        properties.put("cognito.jwk-set-uri", idp.jwkSetUri());
+        properties.put("cognito.user-info-uri", idp.userInfoUri());
+        // Measure the endpoints, not the per-caller limits or load shedding
+        properties.put("app.rate-limit.enabled", false);
+        properties.put("app.concurrency-limit.enabled", false);
+        properties.put("app.principal-snapshot.enabled", false);
+        properties.put("app.schema.migrate-on-startup", true);
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.itcenter", "WARN");
+        // Command-line arguments, so these win over application.yml
+        String[] args = properties.entrySet().stream()
+            .map(property -> "--" + property.getKey() + "=" + property.getValue())
+            .toArray(String[]::new);
+        return new SpringApplicationBuilder(AuthApplication.class).run(args);
+    }
+
+    private void seed(JdbcTemplate jdbc) {
+        jdbc.update("INSERT INTO app_users (cognito_sub, email, display_name, locale, is_active) " +
+                "SELECT ? || g, ? || g || '@example.com', 'Load User ' || g, 'en', true " +
+                "FROM generate_series(1, ?) g ON CONFLICT (cognito_sub) DO NOTHING",
+            USER_PREFIX, USER_PREFIX, users);
+        jdbc.update("INSERT INTO user_roles (user_id, role_id) " +
+                "SELECT u.id, r.id FROM app_users u JOIN roles r ON r.name = 'EMPLOYEE' " +
+                "WHERE u.cognito_sub LIKE ? ON CONFLICT (user_id, role_id) DO NOTHING",
+            USER_PREFIX + "%");
+        jdbc.update("INSERT INTO user_roles (user_id, role_id) " +
+                "SELECT u.id, r.id FROM app_users u JOIN roles r ON r.name = 'ADMIN' " +
+                "WHERE u.cognito_sub IN (SELECT ? || g FROM generate_series(1, ?) g) " +
+                "ON CONFLICT (user_id, role_id) DO NOTHING",
+            USER_PREFIX, Math.min(admins, users));
+        // Some history so the audit log has pages to read
+        jdbc.update("INSERT INTO login_audit (user_id, event_type, ip_address, user_agent) " +
+                "SELECT u.id, 'LOGIN', '203.0.113.10', 'load-test' " +
+                "FROM app_users u CROSS JOIN generate_series(1, 10) WHERE u.cognito_sub LIKE ?",
+            USER_PREFIX + "%");
+    }
+
+    private Map<String, Object> runScenario(String scenario, Requests requests, OpenModelDriver driver,
+                                            StatementCounter statements, StubIdentityProvider idp) throws Exception {
+        Supplier<HttpRequest> factory = switch (scenario) {
+            case "me" -> requests::me;
+            case "mark-login" -> requests.markLogin((long) Math.ceil(rate * (warmup.toSeconds() + duration.toSeconds())));
+            case "admin-users" -> requests::adminUsers;
+            case "audit-log" -> requests::auditLog;
+            default -> throw new IllegalArgumentException("Unknown load scenario: " + scenario);
+        };
+
+        System.out.printf("%s: warm-up %ds at %.0f req/s%n", scenario, warmup.toSeconds(), rate);
+        driver.run(factory, rate, warmup);
+
+        statements.reset();
+        idp.resetCounters();
+        System.out.printf("%s: measuring %ds at %.0f req/s%n", scenario, duration.toSeconds(), rate);
+        OpenModelDriver.Run run = driver.run(factory, rate, duration);
+        long statementCount = statements.total();
+
+        Histogram histogram = run.latencyMicros();
+        try (PrintStream out = new PrintStream(output.resolve(scenario + ".hgrm").toFile())) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50", millis(histogram.getValueAtPercentile(50)));
+        latency.put("p90", millis(histogram.getValueAtPercentile(90)));
+        latency.put("p99", millis(histogram.getValueAtPercentile(99)));
+        latency.put("p99.9", millis(histogram.getValueAtPercentile(99.9)));
+        latency.put("max", millis(histogram.getMaxValue()));
+        latency.put("mean", millis((long) histogram.getMean()));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scenario", scenario);
+        result.put("targetRate", rate);
+        result.put("durationSeconds", duration.toSeconds());
+        result.put("sent", run.sent());
+        result.put("achievedRate", run.sent() / (run.elapsed().toNanos() / 1e9));
+        result.put("errors", run.errors());
+        result.put("statuses", run.statuses());
+        result.put("latencyMillis", latency);
+        result.put("dbStatements", statementCount);
+        result.put("dbStatementsPerRequest", (double) statementCount / run.sent());
+        result.put("topStatements", statements.top(10));
+        result.put("userInfoCalls", idp.userInfoCalls());
+
+        System.out.printf("%-12s sent=%d errors=%d p50=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms stmts/req=%.2f%n",
+            scenario, run.sent(), run.errors(), latency.get("p50"), latency.get("p99"), latency.get("p99.9"),
+            latency.get("max"), (double) statementCount / run.sent());
+        return result;
+    }
+
+    private void writeResults(List<Map<String, Object>> results) throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("users", users);
+        report.put("admins", admins);
+        report.put("scenarios", results);
+        Path file = output.resolve("results.json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        System.out.println("Load test results written to " + file.toAbsolutePath());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Builds requests for the scenarios. Each synthetic user has one long-lived token;
+     * mark-login gets a fresh token (new jti) per request, minted up front.
+     */
+    private final class Requests {
+
+        private final URI base;
+        private final StubIdentityProvider idp;
+        private final String[] userTokens;
+        private final String[] adminTokens;
+
+        Requests(URI base, StubIdentityProvider idp) {
+            this.base = base;
+            this.idp = idp;
+            this.userTokens = IntStream.rangeClosed(1, users).parallel()
+                .mapToObj(i -> idp.mint(USER_PREFIX + i)).toArray(String[]::new);
+            this.adminTokens = IntStream.rangeClosed(1, Math.max(1, Math.min(admins, users)))
+                .mapToObj(i -> userTokens[i - 1]).toArray(String[]::new);
+        }
+
+        HttpRequest me() {
+            return get("/api/v1/me", random(userTokens));
+        }
+
+        HttpRequest adminUsers() {
+            return get("/api/v1/admin/users?page=0&size=20", random(adminTokens));
+        }
+
+        HttpRequest auditLog() {
+            return get("/api/v1/admin/audit-log?page=0&size=20", random(adminTokens));
+        }
+
+        Supplier<HttpRequest> markLogin(long count) {
+            ConcurrentLinkedQueue<String> tokens = new ConcurrentLinkedQueue<>();
+            IntStream.range(0, (int) count).parallel()
+                .mapToObj(i -> idp.mint(USER_PREFIX + (1 + ThreadLocalRandom.current().nextInt(users))))
+                .forEach(tokens::add);
+            return () -> {
+                String token = tokens.poll();
+                return HttpRequest.newBuilder(base.resolve("/api/v1/sessions/mark-login"))
+                    .header("Authorization", "Bearer " + (token != null ? token : idp.mint(USER_PREFIX + 1)))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            };
+        }
+
+        private HttpRequest get(String path, String token) {
+            return HttpRequest.newBuilder(base.resolve(path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        }
+
+        private String random(String[] tokens) {
+            return tokens[ThreadLocalRandom.current().nextInt(tokens.length)];
+        }
+    }
+}
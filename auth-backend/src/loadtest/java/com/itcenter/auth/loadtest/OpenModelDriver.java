@@ -0,0 +1,84 @@
+package com.itcenter.auth.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Fixed arrival-rate (open model) load generator. Requests are started on schedule
+ * whether or not earlier ones have finished, and latency is measured from the intended
+ * start time, so a stalled server shows up in the percentiles instead of quietly
+ * lowering the offered load (coordinated omission).
+ */
+final class OpenModelDriver {
+
+    private static final long MAX_LATENCY_MICROS = Duration.ofMinutes(2).toNanos() / 1000;
+
+    private final HttpClient client;
+
+    OpenModelDriver(HttpClient client) {
+        this.client = client;
+    }
+
+    Run run(Supplier<HttpRequest> requests, double ratePerSecond, Duration duration) {
+        long periodNanos = (long) (1_000_000_000L / ratePerSecond);
+        long total = Math.max(1, duration.toNanos() / periodNanos);
+        Histogram latencyMicros = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        LongAdder failures = new LongAdder();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long intendedStart = start + i * periodNanos;
+                long wait;
+                while ((wait = intendedStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                HttpRequest request = requests.get();
+                executor.execute(() -> {
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        statuses.computeIfAbsent(response.statusCode(), s -> new LongAdder()).increment();
+                    } catch (Exception e) {
+                        failures.increment();
+                    } finally {
+                        long micros = (System.nanoTime() - intendedStart) / 1000;
+                        latencyMicros.recordValue(Math.min(Math.max(micros, 1), MAX_LATENCY_MICROS));
+                    }
+                });
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(status, count.sum()));
+        return new Run(total, elapsed, latencyMicros, statusCounts, failures.sum());
+    }
+
+    record Run(long sent, Duration elapsed, Histogram latencyMicros, Map<Integer, Long> statuses, long failures) {
+
+        long errors() {
+            long errors = failures;
+            for (Map.Entry<Integer, Long> entry : statuses.entrySet()) {
+                int status = entry.getKey();
+                if (status >= 400) {
+                    errors += entry.getValue();
+                }
+            }
+            return errors;
+        }
+    }
+}
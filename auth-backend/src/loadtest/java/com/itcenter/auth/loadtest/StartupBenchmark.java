@@ -0,0 +1,229 @@
+package com.itcenter.auth.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup benchmark: launches the packaged backend as a fresh JVM per run and measures the
+ * time from process start to the first successful /healthz and the first successful /me
+ * (which includes the JWKS fetch, userInfo and provisioning on a cold node).
+ *
+ * Variants: default (the Spring Boot jar), aot (unpacked jar with spring.aot.enabled),
+ * cds (unpacked jar with the AppCDS archive), aot-cds (both) and native (the GraalVM
+ * executable from -Pnative). The resident set size after the first /me is recorded as
+ * the footprint. Settings come from system properties (see the startup profile in pom.xml):
+ * startup.runs, startup.variants, startup.output, startup.default-jar, startup.jar,
+ * startup.archive, startup.native-executable.
+ */
+public final class StartupBenchmark {
+
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+
+    private final int runs = Integer.getInteger("startup.runs", 5);
+    private final List<String> variants = List.of(
+        System.getProperty("startup.variants", "default,aot,cds,aot-cds").split(","));
+    private final Path output = Path.of(System.getProperty("startup.output", "target/startup-benchmark"));
+    private final Path defaultJar = Path.of(System.getProperty("startup.default-jar", "target/auth-backend-1.0.0.jar"));
+    private final Path startupJar = Path.of(System.getProperty("startup.jar", "target/startup/auth-backend-1.0.0-startup.jar"));
+    private final Path archive = Path.of(System.getProperty("startup.archive", "target/startup/application.jsa"));
+    private final Path nativeExecutable = Path.of(System.getProperty("startup.native-executable", "target/auth-backend"));
+
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofMillis(200))
+        .build();
+
+    public static void main(String[] args) throws Exception {
+        new StartupBenchmark().run();
+    }
+
+    private void run() throws Exception {
+        Files.createDirectories(output);
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+             StubIdentityProvider idp = StubIdentityProvider.start()) {
+            postgres.start();
+
+            // Serving nodes only check the schema version, so migrate once up front
+            migrate(postgres);
+
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (String variant : variants) {
+                long[] healthz = new long[runs];
+                long[] me = new long[runs];
+                long[] rss = new long[runs];
+                for (int i = 0; i < runs; i++) {
+                    long[] run = measure(variant.trim(), i + 1, postgres, idp);
+                    healthz[i] = run[0];
+                    me[i] = run[1];
+                    rss[i] = run[2];
+                }
+                results.add(summary(variant.trim(), healthz, me, rss));
+            }
+            writeResults(results);
+        }
+    }
+
+    /**
+     * @return milliseconds from process start to the first 200 from /healthz and from /me,
+     * then the resident set size in MB (-1 where /proc is not available)
+     */
+    private long[] measure(String variant, int run, PostgreSQLContainer<?> postgres, StubIdentityProvider idp)
+            throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>(launcher(variant));
+        command.addAll(List.of(
+            "--server.port=" + port,
+            "--spring.datasource.url=" + postgres.getJdbcUrl(),
+            "--spring.datasource.username=" + postgres.getUsername(),
+            "--spring.datasource.password=" + postgres.getPassword(),
+            "--spring.security.oauth2.resourceserver.jwt.issuer-uri=" + idp.issuer(),
+            "--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + idp.jwkSetUri(),
+            "--cognito.issuer-uri=" + idp.issuer(),
+            "--cognito.jwk-set-uri=" + idp.jwkSetUri(),
+            "--cognito.user-info-uri=" + idp.userInfoUri(),
+            "--app.principal-snapshot.enabled=false",
+            "--logging.level.root=WARN",
+            "--logging.level.com.itcenter=WARN",
+            "--logging.file.name=" + output.resolve("app.log").toAbsolutePath()));
+
+        URI base = URI.create("http://127.0.0.1:" + port);
+        String token = idp.mint("startup-user-" + variant + "-" + run);
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(output.resolve(variant + "-" + run + ".log").toFile())
+            .start();
+        try {
+            long healthz = awaitOk(process, HttpRequest.newBuilder(base.resolve("/healthz")).GET().build(), started);
+            long me = awaitOk(process, HttpRequest.newBuilder(base.resolve("/api/v1/me"))
+                .header("Authorization", "Bearer " + token).GET().build(), started);
+            long rss = residentSetMegabytes(process);
+            System.out.printf("%-8s run %d: /healthz %5d ms  /me %5d ms  rss %4d MB%n", variant, run, healthz, me, rss);
+            return new long[]{healthz, me, rss};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private void migrate(PostgreSQLContainer<?> postgres) throws Exception {
+        Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-jar", defaultJar.toString(), "migrate",
+                "--spring.datasource.url=" + postgres.getJdbcUrl(),
+                "--spring.datasource.username=" + postgres.getUsername(),
+                "--spring.datasource.password=" + postgres.getPassword(),
+                "--logging.file.name=" + output.resolve("migrate.log").toAbsolutePath())
+            .redirectErrorStream(true)
+            .redirectOutput(output.resolve("migrate.out").toFile())
+            .start();
+        if (!process.waitFor(START_TIMEOUT.toSeconds(), TimeUnit.SECONDS) || process.exitValue() != 0) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Migration failed; see " + output.resolve("migrate.out"));
+        }
+    }
+
+    private List<String> launcher(String variant) {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return switch (variant) {
+            case "default" -> List.of(java, "-jar", defaultJar.toString());
+            case "aot" -> List.of(java, "-Dspring.aot.enabled=true", "-jar", startupJar.toString());
+            case "cds" -> List.of(java, "-XX:SharedArchiveFile=" + archive, "-jar", startupJar.toString());
+            case "aot-cds" -> List.of(java, "-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true",
+                "-jar", startupJar.toString());
+            case "native" -> List.of(nativeExecutable.toString());
+            default -> throw new IllegalArgumentException("Unknown startup variant: " + variant);
+        };
+    }
+
+    private static long residentSetMegabytes(Process process) throws IOException {
+        Path status = Path.of("/proc", String.valueOf(process.pid()), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        return Files.readAllLines(status).stream()
+            .filter(line -> line.startsWith("VmRSS:"))
+            .map(line -> line.replaceAll("\\D", ""))
+            .mapToLong(kilobytes -> Long.parseLong(kilobytes) / 1024)
+            .findFirst()
+            .orElse(-1);
+    }
+
+    private long awaitOk(Process process, HttpRequest request, long started) throws Exception {
+        long deadline = started + START_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Backend exited with status " + process.exitValue()
+                    + " before " + request.uri().getPath() + " succeeded");
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                }
+            } catch (IOException notListeningYet) {
+                // Connection refused until the web server is up
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException(request.uri().getPath() + " did not succeed within " + START_TIMEOUT);
+    }
+
+    private Map<String, Object> summary(String variant, long[] healthz, long[] me, long[] rss) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("variant", variant);
+        result.put("runs", runs);
+        result.put("healthzMillis", stats(healthz));
+        result.put("meMillis", stats(me));
+        result.put("rssMegabytes", stats(rss));
+        return result;
+    }
+
+    private static Map<String, Object> stats(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("median", sorted[sorted.length / 2]);
+        stats.put("min", sorted[0]);
+        stats.put("max", sorted[sorted.length - 1]);
+        return stats;
+    }
+
+    private void writeResults(List<Map<String, Object>> results) throws IOException {
+        System.out.println();
+        System.out.printf("%-8s %16s %16s %16s%n", "variant", "/healthz median", "/me median", "rss median");
+        for (Map<String, Object> result : results) {
+            System.out.printf("%-8s %13s ms %13s ms %13s MB%n", result.get("variant"),
+                ((Map<?, ?>) result.get("healthzMillis")).get("median"),
+                ((Map<?, ?>) result.get("meMillis")).get("median"),
+                ((Map<?, ?>) result.get("rssMegabytes")).get("median"));
+        }
+        Path file = output.resolve("results.json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), Map.of("variants", results));
+        System.out.println("Startup benchmark results written to " + file.toAbsolutePath());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.itcenter.auth.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Database-side statement counts from pg_stat_statements. Counts include everything the
+ * backend runs (JPA, JdbcTemplate and the cache-invalidation listener) but not utility
+ * statements such as BEGIN/COMMIT.
+ */
+final class StatementCounter {
+
+    private static final String OWN_DATABASE =
+        "dbid = (SELECT oid FROM pg_database WHERE datname = current_database()) " +
+        "AND query NOT ILIKE '%pg_stat_statements%'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    StatementCounter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_stat_statements");
+    }
+
+    void reset() {
+        jdbcTemplate.execute("SELECT pg_stat_statements_reset()");
+    }
+
+    long total() {
+        Long calls = jdbcTemplate.queryForObject(
+            "SELECT COALESCE(SUM(calls), 0) FROM pg_stat_statements WHERE " + OWN_DATABASE, Long.class);
+        return calls != null ? calls : 0;
+    }
+
+    List<Statement> top(int limit) {
+        return jdbcTemplate.query(
+            "SELECT calls, mean_exec_time, query FROM pg_stat_statements WHERE " + OWN_DATABASE +
+                " ORDER BY calls DESC LIMIT ?",
+            (rs, row) -> new Statement(rs.getLong("calls"), rs.getDouble("mean_exec_time"),
+                rs.getString("query").replaceAll("\\s+", " ")),
+            limit);
+    }
+
+    record Statement(long calls, double meanMillis, String query) {
+    }
+}
@@ -0,0 +1,149 @@
+package com.itcenter.auth.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the Cognito user pool: serves a JWKS and the userInfo endpoint
+ * and mints RS256 access tokens shaped like Cognito's (no email or name claims, so the
+ * backend goes through userInfo exactly as it does in production).
+ */
+final class StubIdentityProvider implements AutoCloseable {
+
+    private static final String KEY_ID = "load-test";
+
+    private final HttpServer server;
+    private final RSASSASigner signer;
+    private final String jwks;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LongAdder userInfoCalls = new LongAdder();
+
+    private StubIdentityProvider(HttpServer server, KeyPair keyPair) {
+        this.server = server;
+        this.signer = new RSASSASigner((RSAPrivateKey) keyPair.getPrivate());
+        this.jwks = new JWKSet(new RSAKey.Builder((RSAPublicKey) keyPair.getPublic())
+            .keyID(KEY_ID)
+            .keyUse(KeyUse.SIGNATURE)
+            .algorithm(JWSAlgorithm.RS256)
+            .build()).toString();
+    }
+
+    static StubIdentityProvider start() throws IOException, NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        StubIdentityProvider idp = new StubIdentityProvider(server, generator.generateKeyPair());
+        server.createContext("/.well-known/jwks.json", exchange -> idp.respond(exchange, 200, idp.jwks));
+        server.createContext("/oauth2/userInfo", idp::userInfo);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        return idp;
+    }
+
+    String issuer() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    String jwkSetUri() {
+        return issuer() + "/.well-known/jwks.json";
+    }
+
+    String userInfoUri() {
+        return issuer() + "/oauth2/userInfo";
+    }
+
+    long userInfoCalls() {
+        return userInfoCalls.sum();
+    }
+
+    void resetCounters() {
+        userInfoCalls.reset();
+    }
+
+    /**
+     * Mint an access token for a synthetic user with a fresh jti
+     */
+    String mint(String sub) {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+            .subject(sub)
+            .issuer(issuer())
+            .claim("client_id", "load-test-client")
+            .claim("token_use", "access")
+            .claim("scope", "openid email profile")
+            .claim("username", sub)
+            .claim("auth_time", now.getEpochSecond())
+            .jwtID(UUID.randomUUID().toString())
+            .issueTime(Date.from(now))
+            .expirationTime(Date.from(now.plusSeconds(3600)))
+            .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(KEY_ID).build(), claims);
+        try {
+            jwt.sign(signer);
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Could not sign load-test token", e);
+        }
+        return jwt.serialize();
+    }
+
+    private void userInfo(HttpExchange exchange) throws IOException {
+        userInfoCalls.increment();
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            respond(exchange, 401, "{\"error\":\"invalid_token\"}");
+            return;
+        }
+        String sub;
+        try {
+            sub = SignedJWT.parse(authorization.substring(7)).getJWTClaimsSet().getSubject();
+        } catch (ParseException e) {
+            respond(exchange, 401, "{\"error\":\"invalid_token\"}");
+            return;
+        }
+        respond(exchange, 200, objectMapper.writeValueAsString(Map.of(
+            "sub", sub,
+            "email", sub + "@example.com",
+            "email_verified", "true",
+            "name", "Load User " + sub.substring(sub.lastIndexOf('-') + 1))));
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -2,14 +2,28 @@ package com.itcenter.auth;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
+import java.util.Arrays;
+
 @SpringBootApplication
 @EnableConfigurationProperties
 public class AuthApplication {
 
+    /** Enough for every startup step of this application; later steps are dropped */
+    private static final int STARTUP_STEP_CAPACITY = 8192;
+
+    /** First argument that selects the migration-only run mode */
+    private static final String MIGRATE = "migrate";
+
     public static void main(String[] args) {
-        SpringApplication.run(AuthApplication.class, args);
+        if (args.length > 0 && MIGRATE.equals(args[0])) {
+            System.exit(SchemaMigration.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        SpringApplication application = new SpringApplication(AuthApplication.class);
+        // Recorded steps feed /actuator/startup and the auth.startup.step timers
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEP_CAPACITY));
+        application.run(args);
     }
 }
-
@@ -0,0 +1,34 @@
+package com.itcenter.auth;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The {@code migrate} run mode: applies pending Flyway migrations with the same
+ * spring.datasource / spring.flyway settings as the service, then exits. Only the
+ * DataSource and Flyway are started (no web server, JPA or caches), so it can run as a
+ * one-off job or init container ahead of the serving nodes.
+ */
+final class SchemaMigration {
+
+    private SchemaMigration() {
+    }
+
+    /**
+     * @return the exit code; a failed migration throws instead
+     */
+    static int run(String[] args) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                PropertyPlaceholderAutoConfiguration.class,
+                DataSourceAutoConfiguration.class,
+                FlywayAutoConfiguration.class)
+            .web(WebApplicationType.NONE)
+            .run(args);
+        return SpringApplication.exit(context);
+    }
+}
@@ -0,0 +1,73 @@
+package com.itcenter.auth.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * JDK Flight Recorder event for one stage of authenticating and serving a request.
+ *
+ * Usage: {@code AuthStageEvent event = AuthStageEvent.start(STAGE); ... event.finish(sub, outcome);}
+ * While no recording enables the event, shouldCommit() is false, so the sub hash and route
+ * are never computed and the event object is usually scalar-replaced by the JIT.
+ */
+@Name(AuthStageEvent.NAME)
+@Label("Auth Stage")
+@Description("JWT decode, authority lookup, provisioning, userInfo fetch or audit write")
+@Category({"IT Center", "Auth"})
+@StackTrace(false)
+public class AuthStageEvent extends Event {
+
+    public static final String NAME = "com.itcenter.auth.AuthStage";
+
+    public static final String JWT_DECODE = "jwt_decode";
+    public static final String AUTHORITY_LOOKUP = "authority_lookup";
+    public static final String PROVISIONING = "provisioning";
+    public static final String USERINFO_FETCH = "userinfo_fetch";
+    public static final String AUDIT_WRITE = "audit_write";
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Sub Hash")
+    @Description("First 16 hex characters of the SHA-256 of the sub; the sub itself is not recorded")
+    public String subHash;
+
+    @Label("Route")
+    public String route;
+
+    @Label("Outcome")
+    public String outcome;
+
+    public static AuthStageEvent start(String stage) {
+        AuthStageEvent event = new AuthStageEvent();
+        event.stage = stage;
+        event.begin();
+        return event;
+    }
+
+    public void finish(String sub, String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.subHash = sub != null ? DigestUtils.sha256Hex(sub).substring(0, 16) : null;
+            this.route = currentRoute();
+            this.outcome = outcome;
+            commit();
+        }
+    }
+
+    private static String currentRoute() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servlet) {
+            return servlet.getRequest().getMethod() + " " + servlet.getRequest().getRequestURI();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.itcenter.auth.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Service-to-service role checks (POST /api/v1/authz/check)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.authz-check")
+@Getter
+@Setter
+public class AuthzCheckProperties {
+    /** OAuth scope a client-credentials token needs to call the endpoint */
+    private String scope = "itcenter-auth/authz.check";
+    /** How long callers may reuse an answer (Cache-Control max-age) */
+    private Duration maxAge = Duration.ofSeconds(5);
+}
@@ -0,0 +1,23 @@
+package com.itcenter.auth.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings for cross-node cache invalidation over Postgres LISTEN/NOTIFY
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.cache-invalidation")
+@Getter
+@Setter
+public class CacheInvalidationProperties {
+    private boolean enabled = true;
+    private String channel = "auth_cache_invalidation";
+    private Duration pollTimeout = Duration.ofSeconds(1);
+    private Duration keepAliveInterval = Duration.ofSeconds(30);
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+}
@@ -0,0 +1,21 @@
+package com.itcenter.auth.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * CRaC support for the single-pool setup; with read replicas the pools are covered by
+ * {@link ReadReplicaDataSourceConfig}. The Cognito client and log files manage themselves.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.read-replica", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class CheckpointRestoreConfig {
+
+    @Bean
+    public HikariPoolCheckpointRestore hikariPoolCheckpointRestore(DataSource dataSource) {
+        return new HikariPoolCheckpointRestore(dataSource);
+    }
+}
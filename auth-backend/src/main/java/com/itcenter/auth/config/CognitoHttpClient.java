@@ -0,0 +1,145 @@
+package com.itcenter.auth.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The one HTTP client used for Cognito (JWKS and userInfo), plus the JWKS cache.
+ *
+ * The client's pooled connections are closed on stop and a new client is opened on start,
+ * so a CRaC checkpoint never captures a socket; the JWKS cache is dropped at the same time
+ * so keys are fetched again after restore instead of trusting a set of unknown age.
+ * Starts before and stops after the web server.
+ */
+@Component
+@Slf4j
+public class CognitoHttpClient implements SmartLifecycle {
+
+    public static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 2048;
+
+    private final CognitoProperties properties;
+    private final RestTemplate restTemplate;
+    private final JwksCache jwksCache;
+
+    private volatile HttpClient httpClient;
+    private volatile ClientHttpRequestFactory requestFactory;
+
+    public CognitoHttpClient(CognitoProperties properties) {
+        this.properties = properties;
+        this.jwksCache = new JwksCache(properties.getJwksCacheTtl());
+        // Resolved per request, so callers can hold on to the template across stop/start
+        this.restTemplate = new RestTemplate((uri, method) -> currentRequestFactory().createRequest(uri, method));
+        open();
+    }
+
+    public RestTemplate restTemplate() {
+        return restTemplate;
+    }
+
+    public Cache jwksCache() {
+        return jwksCache;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (httpClient == null) {
+            open();
+            log.info("Cognito HTTP client reopened");
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        HttpClient client = httpClient;
+        httpClient = null;
+        requestFactory = null;
+        jwksCache.clear();
+        if (client != null) {
+            // Waits for in-flight exchanges, then closes the pooled connections
+            client.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return httpClient != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void open() {
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(properties.getHttpConnectTimeout())
+            .build();
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(client);
+        factory.setReadTimeout(properties.getHttpReadTimeout());
+        requestFactory = factory;
+        httpClient = client;
+    }
+
+    private ClientHttpRequestFactory currentRequestFactory() {
+        ClientHttpRequestFactory factory = requestFactory;
+        if (factory == null) {
+            throw new IllegalStateException("Cognito HTTP client is stopped");
+        }
+        return factory;
+    }
+
+    /**
+     * Holds the JWKS for the decoder; entries expire after the TTL so removed keys
+     * stop being trusted, as with Nimbus' own default cache
+     */
+    static final class JwksCache extends ConcurrentMapCache {
+
+        private final Duration ttl;
+        private final Map<Object, Long> writtenAt = new ConcurrentHashMap<>();
+
+        JwksCache(Duration ttl) {
+            super("cognito-jwks", false);
+            this.ttl = ttl;
+        }
+
+        @Override
+        protected Object lookup(Object key) {
+            Long written = writtenAt.get(key);
+            if (written != null && System.nanoTime() - written > ttl.toNanos()) {
+                evict(key);
+                return null;
+            }
+            return super.lookup(key);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            super.put(key, value);
+            writtenAt.put(key, System.nanoTime());
+        }
+
+        @Override
+        public void evict(Object key) {
+            super.evict(key);
+            writtenAt.remove(key);
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            writtenAt.clear();
+        }
+    }
+}
@@ -5,6 +5,8 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties(prefix = "cognito")
 @Getter
@@ -15,6 +17,10 @@ public class CognitoProperties {
     private String issuerUri;
     private String jwkSetUri;
     private String domain;
+    private String userInfoUri;
     private String region;
+    private Duration httpConnectTimeout = Duration.ofSeconds(2);
+    private Duration httpReadTimeout = Duration.ofSeconds(5);
+    private Duration jwksCacheTtl = Duration.ofMinutes(5);
 }
 
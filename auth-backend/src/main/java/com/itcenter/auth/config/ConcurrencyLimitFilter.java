@@ -0,0 +1,138 @@
+package com.itcenter.auth.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itcenter.auth.dto.ErrorResponse;
+import com.itcenter.auth.service.AimdConcurrencyLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Load shedding: caps the requests in flight at a {@link AimdConcurrencyLimit} and
+ * answers the rest with 503 at once, instead of letting them queue for a database
+ * connection while latency climbs for everyone.
+ *
+ * Runs before Spring Security, so a shed request costs no token verification or DB work.
+ * Sheddable routes (admin, audit log) may only use part of the limit and are turned away
+ * first; critical routes (/me, mark-login) may use all of it. Only critical and normal
+ * requests adjust the limit: sheddable ones include slow exports and reports, and letting
+ * them cut the limit would turn admin traffic away from /me.
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private enum Priority { CRITICAL, NORMAL, SHEDDABLE }
+
+    private final ConcurrencyLimitProperties properties;
+    private final AimdConcurrencyLimit limit;
+    private final ObjectMapper objectMapper;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<Priority, Double> shares = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> accepted = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> rejected = new EnumMap<>(Priority.class);
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.limit = new AimdConcurrencyLimit(properties.getInitialLimit(), properties.getMinLimit(),
+            properties.getMaxLimit(), properties.getLatencyThreshold().toNanos(), properties.getBackoffRatio());
+        shares.put(Priority.CRITICAL, 1.0);
+        shares.put(Priority.NORMAL, properties.getNormalShare());
+        shares.put(Priority.SHEDDABLE, properties.getSheddableShare());
+        for (Priority priority : Priority.values()) {
+            accepted.put(priority, requests(meterRegistry, priority, "accepted"));
+            rejected.put(priority, requests(meterRegistry, priority, "rejected"));
+        }
+        Gauge.builder("auth.concurrency.limit", limit, AimdConcurrencyLimit::getLimit)
+            .description("Current adaptive limit on requests in flight")
+            .register(meterRegistry);
+        Gauge.builder("auth.concurrency.inflight", limit, AimdConcurrencyLimit::getInflight)
+            .description("Requests in flight under the limit")
+            .register(meterRegistry);
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, Priority priority, String result) {
+        return Counter.builder("auth.concurrency.requests")
+            .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+            .tag("result", result)
+            .description("Requests checked against the adaptive concurrency limit")
+            .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || matches(properties.getExemptPaths(), path(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Priority priority = priorityOf(path(request));
+        if (!limit.tryAcquire(shares.get(priority))) {
+            rejected.get(priority).increment();
+            log.debug("Shedding {} request to {} at limit {}", priority, request.getRequestURI(), limit.getLimit());
+            reject(response);
+            return;
+        }
+
+        accepted.get(priority).increment();
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (priority == Priority.SHEDDABLE) {
+                limit.release();
+            } else {
+                limit.release(start, System.nanoTime());
+            }
+        }
+    }
+
+    private Priority priorityOf(String path) {
+        if (matches(properties.getCriticalPaths(), path)) {
+            return Priority.CRITICAL;
+        }
+        return matches(properties.getSheddablePaths(), path) ? Priority.SHEDDABLE : Priority.NORMAL;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse("OVERLOADED",
+            "Server is overloaded, retry shortly", UUID.randomUUID().toString()));
+    }
+
+    private boolean matches(List<String> patterns, String path) {
+        for (String pattern : patterns) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,39 @@
+package com.itcenter.auth.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adaptive limit on requests in flight applied by {@link ConcurrencyLimitFilter}
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+@Getter
+@Setter
+public class ConcurrencyLimitProperties {
+    private boolean enabled = true;
+    /** Starting limit; the Hikari pool size is a good first guess */
+    private int initialLimit = 20;
+    private int minLimit = 5;
+    private int maxLimit = 200;
+    /** Requests slower than this shrink the limit; faster ones grow it */
+    private Duration latencyThreshold = Duration.ofMillis(250);
+    /** Factor applied to the limit on a slow request */
+    private double backoffRatio = 0.9;
+    /** Ant-style patterns admitted up to the full limit */
+    private List<String> criticalPaths = new ArrayList<>();
+    /** Ant-style patterns shed first */
+    private List<String> sheddablePaths = new ArrayList<>();
+    /** Ant-style patterns never limited (health checks, metrics) */
+    private List<String> exemptPaths = new ArrayList<>();
+    /** Part of the limit other requests may use */
+    private double normalShare = 0.9;
+    /** Part of the limit sheddable requests may use */
+    private double sheddableShare = 0.6;
+}
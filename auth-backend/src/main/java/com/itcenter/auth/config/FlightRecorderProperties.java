@@ -0,0 +1,25 @@
+package com.itcenter.auth.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * On-demand flight recordings and the in-process JFR event stream
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.jfr")
+@Getter
+@Setter
+public class FlightRecorderProperties {
+    /** JFC settings for admin-triggered recordings: "default" (~1% overhead) or "profile" (~2%) */
+    private String settings = "default";
+    private Duration defaultDuration = Duration.ofSeconds(30);
+    /** Upper bound for a requested duration; the response arrives once the recording stops */
+    private Duration maxDuration = Duration.ofMinutes(2);
+    /** Stream AuthStage events in-process and record them as auth.stage.duration timers */
+    private boolean streamingEnabled = false;
+}
@@ -0,0 +1,35 @@
+package com.itcenter.auth.config;
+
+import org.springframework.boot.jdbc.HikariCheckpointRestoreLifecycle;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+
+import javax.sql.DataSource;
+
+/**
+ * Boot's pool lifecycle for CRaC, restricted to checkpoints: stopping it suspends the pool
+ * and closes every connection, which on a real shutdown would block anything still using
+ * the database while beans are destroyed (e.g. Hibernate's schema drop). Being a
+ * HikariCheckpointRestoreLifecycle bean, it also replaces Boot's own.
+ */
+public class HikariPoolCheckpointRestore extends HikariCheckpointRestoreLifecycle
+        implements ApplicationListener<ContextClosedEvent> {
+
+    private volatile boolean closing;
+
+    public HikariPoolCheckpointRestore(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        closing = true;
+    }
+
+    @Override
+    public void stop() {
+        if (!closing) {
+            super.stop();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.itcenter.auth.config;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * Records the JWT decode stage (signature, JWKS lookup, claim validation) as an {@link AuthStageEvent}
+ */
+public class InstrumentedJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+
+    public InstrumentedJwtDecoder(JwtDecoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        AuthStageEvent event = AuthStageEvent.start(AuthStageEvent.JWT_DECODE);
+        String outcome = "error";
+        String sub = null;
+        try {
+            Jwt jwt = delegate.decode(token);
+            sub = jwt.getSubject();
+            outcome = "valid";
+            return jwt;
+        } catch (JwtException e) {
+            outcome = "invalid";
+            throw e;
+        } finally {
+            event.finish(sub, outcome);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.itcenter.auth.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Token introspection for other services (POST /api/v1/introspect)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.introspection")
+@Getter
+@Setter
+public class IntrospectionProperties {
+    /** OAuth scope a client-credentials token needs to call the endpoint */
+    private String scope = "itcenter-auth/introspect";
+    /** Verified tokens kept until they expire; past this, the least recently used are dropped */
+    private int maxCachedTokens = 100_000;
+}
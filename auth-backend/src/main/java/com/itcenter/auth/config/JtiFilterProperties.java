@@ -0,0 +1,25 @@
+package com.itcenter.auth.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-memory filter of recently recorded mark-login token ids
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.mark-login.jti-filter")
+@Getter
+@Setter
+public class JtiFilterProperties {
+    private boolean enabled = true;
+    /** Bucket width; a token id only needs remembering while the token is valid */
+    private Duration tokenLifetime = Duration.ofHours(1);
+    /** Expected mark-login calls per bucket, used to size the bit array */
+    private int expectedInsertions = 100_000;
+    /** Chance that a token id never seen is treated as already recorded */
+    private double falsePositiveRate = 1e-6;
+}
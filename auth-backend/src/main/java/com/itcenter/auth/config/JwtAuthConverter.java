@@ -1,18 +1,23 @@
 package com.itcenter.auth.config;
 
 import com.itcenter.auth.entity.AppUser;
-import com.itcenter.auth.entity.Role;
 import com.itcenter.auth.repository.AppUserRepository;
+import com.itcenter.auth.service.DeactivatedUserRegistry;
+import com.itcenter.auth.service.PrincipalAuthorityCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,24 +27,77 @@ import java.util.stream.Collectors;
 public class JwtAuthConverter implements Converter<Jwt, AbstractAuthenticationToken> {
 
     private final AppUserRepository userRepository;
+    private final PrincipalAuthorityCache authorityCache;
+    private final DeactivatedUserRegistry deactivatedUsers;
+    private final MeterRegistry meterRegistry;
 
     @Override
     public AbstractAuthenticationToken convert(Jwt jwt) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        AuthStageEvent event = AuthStageEvent.start(AuthStageEvent.AUTHORITY_LOOKUP);
+        String outcome = "error";
         String sub = jwt.getClaimAsString("sub");
-        
-        if (sub == null || sub.isBlank()) {
-            log.warn("No 'sub' claim found in JWT, creating authentication without authorities");
-            return new JwtAuthenticationToken(jwt);
+        try {
+            if (sub == null || sub.isBlank()) {
+                log.warn("No 'sub' claim found in JWT, creating authentication without authorities");
+                outcome = "no_sub";
+                return new JwtAuthenticationToken(jwt);
+            }
+            if (isClientToken(jwt, sub)) {
+                // Client-credentials tokens belong to another service, not a user: scopes only
+                outcome = "client";
+                return new JwtAuthenticationToken(jwt, scopeAuthorities(jwt));
+            }
+            if (deactivatedUsers.isDenied(sub)) {
+                // Deactivated users are turned away before any database work (401 via the bearer token entry point)
+                log.debug("Rejecting token of deactivated user {}", sub);
+                outcome = "deactivated";
+                throw new DisabledException("User account is deactivated");
+            }
+
+            // Authorities come from memory (or the warm-restart snapshot) before the database
+            PrincipalAuthorityCache.CachedPrincipal principal = authorityCache.get(sub);
+            outcome = "cached";
+            if (principal == null) {
+                AppUser user = userRepository.findByCognitoSub(sub).orElse(null);
+                outcome = user != null ? "loaded" : "unknown_user";
+                if (user != null) {
+                    principal = authorityCache.put(user);
+                }
+            }
+            return new JwtAuthenticationToken(jwt, authoritiesOf(sub, principal));
+        } finally {
+            sample.stop(Timer.builder("auth.jwt.convert")
+                .description("Mapping a validated JWT to authorities")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+            event.finish(sub, outcome);
         }
+    }
 
-        // Load user from database and get their roles
-        AppUser user = userRepository.findByCognitoSub(sub).orElse(null);
-        
+    /**
+     * Cognito issues client-credentials access tokens with sub = client_id and no username
+     */
+    public static boolean isClientToken(Jwt jwt, String sub) {
+        return sub.equals(jwt.getClaimAsString("client_id")) && jwt.getClaimAsString("username") == null;
+    }
+
+    private static List<GrantedAuthority> scopeAuthorities(Jwt jwt) {
+        String scope = jwt.getClaimAsString("scope");
+        if (scope == null || scope.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(scope.trim().split("\\s+"))
+            .map(value -> (GrantedAuthority) new SimpleGrantedAuthority("SCOPE_" + value))
+            .toList();
+    }
+
+    private List<GrantedAuthority> authoritiesOf(String sub, PrincipalAuthorityCache.CachedPrincipal principal) {
         List<GrantedAuthority> authorities;
         
-        if (user != null && user.getRoles() != null && !user.getRoles().isEmpty()) {
-            authorities = user.getRoles().stream()
-                .map(Role::getName)
+        if (principal != null && !principal.roleNames().isEmpty()) {
+            authorities = principal.roleNames().stream()
                 .map(roleName -> "ROLE_" + roleName)  // Spring Security expects ROLE_ prefix
                 .map(SimpleGrantedAuthority::new)
                 .collect(Collectors.toList());
@@ -51,8 +109,7 @@ public class JwtAuthConverter implements Converter<Jwt, AbstractAuthenticationTo
             authorities = List.of(new SimpleGrantedAuthority("ROLE_EMPLOYEE"));
             log.debug("No user or roles found for sub: {}, assigning default ROLE_EMPLOYEE", sub);
         }
-
-        return new JwtAuthenticationToken(jwt, authorities);
+        return authorities;
     }
 }
 
@@ -0,0 +1,143 @@
+package com.itcenter.auth.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AsyncAppenderBase;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.LifeCycle;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Closes Logback's log files when the context is stopped for a CRaC checkpoint and reopens
+ * them (in append mode) on restore; an open file descriptor would fail the checkpoint.
+ *
+ * Runs in the lowest phase, so everything else has logged its own stop before the files
+ * close. On a real shutdown the files stay open until Logback itself is torn down.
+ */
+@Component
+public class LogFileCheckpointRestore implements SmartLifecycle, ApplicationListener<ContextClosedEvent> {
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(1);
+
+    private final LoggerContext loggerContext;
+
+    private volatile boolean running = true;
+    private volatile boolean closing;
+    private List<FileAppender<?>> closed = List.of();
+
+    public LogFileCheckpointRestore() {
+        this(LoggerFactory.getILoggerFactory() instanceof LoggerContext context ? context : null);
+    }
+
+    public LogFileCheckpointRestore(LoggerContext loggerContext) {
+        this.loggerContext = loggerContext;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        closing = true;
+    }
+
+    @Override
+    public synchronized void start() {
+        for (FileAppender<?> appender : closed) {
+            if (appender instanceof RollingFileAppender<?> rolling) {
+                startIfStopped(rolling.getRollingPolicy());
+                startIfStopped(rolling.getTriggeringPolicy());
+            }
+            appender.start();
+        }
+        closed = List.of();
+        running = true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (closing || loggerContext == null) {
+            return;
+        }
+        List<AsyncAppenderBase<?>> queues = new ArrayList<>();
+        List<FileAppender<?>> files = new ArrayList<>();
+        collect(queues, files);
+        // Let async appenders hand their queued events to the files before those close
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (queues.stream().anyMatch(queue -> queue.getNumberOfElementsInQueue() > 0)
+                && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(1_000_000);
+        }
+        List<FileAppender<?>> stopped = new ArrayList<>();
+        for (FileAppender<?> appender : files) {
+            if (appender.isStarted()) {
+                appender.stop();
+                stopped.add(appender);
+            }
+        }
+        closed = stopped;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE;
+    }
+
+    private void collect(List<AsyncAppenderBase<?>> queues, List<FileAppender<?>> files) {
+        Set<Appender<ILoggingEvent>> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Logger logger : loggerContext.getLoggerList()) {
+            collect(logger.iteratorForAppenders(), seen, queues, files);
+        }
+    }
+
+    /**
+     * Follows wrapping appenders such as AsyncAppender down to the files they write
+     */
+    private static void collect(Iterator<Appender<ILoggingEvent>> appenders, Set<Appender<ILoggingEvent>> seen,
+                                List<AsyncAppenderBase<?>> queues, List<FileAppender<?>> files) {
+        while (appenders.hasNext()) {
+            Appender<ILoggingEvent> appender = appenders.next();
+            if (!seen.add(appender)) {
+                continue;
+            }
+            if (appender instanceof FileAppender<?> file) {
+                files.add(file);
+            }
+            if (appender instanceof AsyncAppenderBase<?> queue) {
+                queues.add(queue);
+            }
+            if (appender instanceof AppenderAttachable<?> attachable) {
+                @SuppressWarnings("unchecked")
+                Iterator<Appender<ILoggingEvent>> nested =
+                    ((AppenderAttachable<ILoggingEvent>) attachable).iteratorForAppenders();
+                collect(nested, seen, queues, files);
+            }
+        }
+    }
+
+    private static void startIfStopped(Object policy) {
+        if (policy instanceof LifeCycle lifeCycle && !lifeCycle.isStarted()) {
+            lifeCycle.start();
+        }
+    }
+}
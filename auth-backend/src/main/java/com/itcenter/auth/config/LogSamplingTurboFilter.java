@@ -0,0 +1,110 @@
+package com.itcenter.auth.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logback turbo filter that caps how many events per second each hot-path logger may emit.
+ *
+ * Applies to the configured loggers (and their children) for events at or below
+ * {@code level} (WARN by default); ERROR always passes. Events over the cap are denied
+ * before Logback builds a LoggingEvent, so a flood of per-request messages costs almost
+ * nothing on the request thread. The number of dropped events is published as the
+ * auth.logging.sampled.dropped metric (see MetricsConfig). Configured in logback-prod.xml.
+ */
+public class LogSamplingTurboFilter extends TurboFilter {
+
+    private static final Window NOT_SAMPLED = new Window();
+
+    private final List<String> loggers = new ArrayList<>();
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private int maxPerSecond = 20;
+    private Level level = Level.WARN;
+
+    /**
+     * Add a logger name (or package prefix) to sample; repeatable in XML as {@code <logger>}
+     */
+    public void addLogger(String name) {
+        loggers.add(name.trim());
+        windows.clear();
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    public void setLevel(String level) {
+        this.level = Level.toLevel(level, Level.WARN);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level eventLevel, String format, Object[] params,
+                              Throwable t) {
+        // format is null for isXxxEnabled() checks, which must not use up the budget
+        if (!isStarted() || format == null || logger == null || eventLevel.toInt() > level.toInt()
+                || !eventLevel.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        return tryLog(logger.getName(), System.currentTimeMillis()) ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    /**
+     * Count one event for the logger and report whether it is within this second's budget
+     */
+    public boolean tryLog(String loggerName, long nowMillis) {
+        Window window = windows.computeIfAbsent(loggerName, name -> isSampled(name) ? new Window() : NOT_SAMPLED);
+        if (window == NOT_SAMPLED) {
+            return true;
+        }
+        window.roll(nowMillis / 1000);
+        if (window.count.incrementAndGet() <= maxPerSecond) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Events denied since startup
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private boolean isSampled(String name) {
+        for (String prefix : loggers) {
+            if (name.equals(prefix) || name.startsWith(prefix + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Window {
+        private volatile long second = Long.MIN_VALUE;
+        private final AtomicInteger count = new AtomicInteger();
+
+        void roll(long now) {
+            if (now == second) {
+                return;
+            }
+            synchronized (this) {
+                if (now != second) {
+                    second = now;
+                    count.set(0);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.itcenter.auth.config;
+
+import ch.qos.logback.classic.LoggerContext;
+import com.itcenter.auth.service.UserValidatorCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Common tags, plus meters for components that cannot register their own (in-process caches, Logback).
+ * Histogram settings for auth.* timers and Hikari acquire time are in application.yml.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterRegistryCustomizer<MeterRegistry> commonTags(@Value("${spring.application.name}") String application) {
+        return registry -> registry.config().commonTags("application", application);
+    }
+
+    @Bean
+    public MeterBinder validatorCacheMetrics(UserValidatorCache validatorCache) {
+        return registry -> Gauge.builder("auth.validator.cache.size", validatorCache, UserValidatorCache::size)
+            .description("Users with a cached ETag validator")
+            .register(registry);
+    }
+
+    @Bean
+    public MeterBinder logSamplingMetrics() {
+        return registry -> {
+            if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+                return;
+            }
+            context.getTurboFilterList().stream()
+                .filter(LogSamplingTurboFilter.class::isInstance)
+                .map(LogSamplingTurboFilter.class::cast)
+                .findFirst()
+                .ifPresent(filter -> FunctionCounter.builder("auth.logging.sampled.dropped", filter,
+                        LogSamplingTurboFilter::getDropped)
+                    .description("Log events dropped by per-logger rate sampling")
+                    .register(registry));
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package com.itcenter.auth.config;
+
+import com.itcenter.auth.dto.AuditEntryResponse;
+import com.itcenter.auth.dto.AuthzCheckRequest;
+import com.itcenter.auth.dto.AuthzCheckResponse;
+import com.itcenter.auth.dto.ErrorResponse;
+import com.itcenter.auth.dto.IntrospectionResponse;
+import com.itcenter.auth.dto.PageResponse;
+import com.itcenter.auth.dto.UpdateProfileRequest;
+import com.itcenter.auth.dto.UpdateRolesRequest;
+import com.itcenter.auth.dto.UpdateStatusRequest;
+import com.itcenter.auth.dto.UserProfileResponse;
+import com.itcenter.auth.dto.UserSummaryResponse;
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.entity.LoginAudit;
+import com.itcenter.auth.entity.Role;
+import com.itcenter.auth.entity.UserRole;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.List;
+
+/**
+ * Reachability metadata for the native image (mvn -Pnative native:compile) that Spring AOT
+ * and the GraalVM metadata repository do not infer on their own. Ignored on the JVM.
+ *
+ * The DTOs are registered for binding so Jackson can use their Lombok-generated accessors;
+ * Lombok itself leaves nothing to reflect on at runtime.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.AuthRuntimeHints.class)
+@RegisterReflectionForBinding({
+    UserProfileResponse.class,
+    UserSummaryResponse.class,
+    AuditEntryResponse.class,
+    AuthzCheckRequest.class,
+    AuthzCheckResponse.class,
+    IntrospectionResponse.class,
+    ErrorResponse.class,
+    UpdateProfileRequest.class,
+    UpdateRolesRequest.class,
+    UpdateStatusRequest.class,
+    PageResponse.class
+})
+public class NativeHintsConfig {
+
+    static final List<Class<?>> ENTITIES = List.of(AppUser.class, Role.class, UserRole.class, LoginAudit.class);
+
+    /** Instantiated by name from logback-prod.xml, then configured through setters */
+    static final List<String> LOGBACK_COMPONENTS = List.of(
+        "com.itcenter.auth.config.LogSamplingTurboFilter",
+        "ch.qos.logback.classic.AsyncAppender",
+        "net.logstash.logback.encoder.LogstashEncoder",
+        "net.logstash.logback.stacktrace.ShortenedThrowableConverter");
+
+    public static class AuthRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Hibernate reads and writes entity fields directly and builds proxies for the lazy associations
+            for (Class<?> entity : ENTITIES) {
+                hints.reflection().registerType(entity,
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_METHODS);
+            }
+
+            // Flyway lists migrations through the native resource provider, which only sees registered resources
+            hints.resources().registerPattern("db/migration/*.sql");
+            hints.resources().registerPattern("ehcache.xml");
+            hints.resources().registerPattern("logback-prod.xml");
+
+            for (String component : LOGBACK_COMPONENTS) {
+                hints.reflection().registerType(TypeReference.of(component),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+
+            // Nimbus parses every JOSE header and JWK set through a Gson TypeToken subclass,
+            // which needs its generic superclass at runtime
+            hints.reflection().registerType(TypeReference.of("com.nimbusds.jose.util.JSONObjectUtils$1"));
+        }
+    }
+}
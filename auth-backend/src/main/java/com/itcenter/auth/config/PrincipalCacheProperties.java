@@ -0,0 +1,20 @@
+package com.itcenter.auth.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-memory principal authority cache
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.principal-cache")
+@Getter
+@Setter
+public class PrincipalCacheProperties {
+    /** How often cached roles are compared with the database (a full scan); bounds staleness the bus misses */
+    private Duration reconcileInterval = Duration.ofHours(1);
+}
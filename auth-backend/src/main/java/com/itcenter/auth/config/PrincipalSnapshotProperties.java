@@ -0,0 +1,27 @@
+package com.itcenter.auth.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for the memory-mapped principal snapshot used for warm restarts
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.principal-snapshot")
+@Getter
+@Setter
+public class PrincipalSnapshotProperties {
+    private boolean enabled = true;
+    /** Kept out of shared directories such as /tmp: the parent is created owner-only */
+    private Path path = Path.of(System.getProperty("user.home"), ".itcenter-auth", "principal-snapshot.bin");
+    private Duration writeInterval = Duration.ofMinutes(5);
+    /** Snapshots older than this are ignored at startup */
+    private Duration maxAge = Duration.ofHours(12);
+    /** Delay before the background check of a loaded snapshot against the database */
+    private Duration repairDelay = Duration.ofSeconds(10);
+}
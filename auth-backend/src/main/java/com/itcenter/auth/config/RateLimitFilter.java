@@ -0,0 +1,140 @@
+package com.itcenter.auth.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itcenter.auth.dto.ErrorResponse;
+import com.itcenter.auth.service.StripedTokenBuckets;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Per-route rate limiting keyed by the caller's sub.
+ *
+ * Runs after bearer token authentication, so the sub is verified and anonymous requests
+ * have already been rejected. Requests over the limit get 429 with Retry-After
+ * (whole seconds) before reaching any controller, i.e. before DB writes or Cognito calls.
+ * The key never includes X-Forwarded-For: the client controls that header, and a fresh
+ * value per request would get a fresh bucket. Requests without a sub fall back to the
+ * remote address, which server.forward-headers-strategy only takes from trusted proxies.
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final List<LimitedRoute> routes = new ArrayList<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        long origin = System.currentTimeMillis();
+        for (RateLimitProperties.Route route : properties.getRoutes()) {
+            String name = route.getName() != null ? route.getName() : route.getPattern();
+            StripedTokenBuckets buckets =
+                new StripedTokenBuckets(properties.getSlots(), route.getCapacity(), route.getRefillPerSecond(), origin);
+            FunctionCounter.builder("auth.ratelimit.collisions", buckets, StripedTokenBuckets::collisions)
+                .tag("route", name)
+                .description("Requests that found no bucket of their own and shared another caller's")
+                .register(meterRegistry);
+            routes.add(new LimitedRoute(route, buckets,
+                requests(meterRegistry, name, "allowed"),
+                requests(meterRegistry, name, "limited")));
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String route, String result) {
+        return Counter.builder("auth.ratelimit.requests")
+            .tag("route", route)
+            .tag("result", result)
+            .description("Requests checked against the per-route rate limit")
+            .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || routes.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        LimitedRoute route = match(request);
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = clientKey(request);
+        long waitMillis = route.buckets().tryAcquire(hash(key), System.currentTimeMillis());
+        if (waitMillis == 0) {
+            route.allowed().increment();
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        route.limited().increment();
+        long retryAfterSeconds = Math.max(1, (waitMillis + 999) / 1000);
+        // Debug only: a flood of rejected requests must not flood the logs; auth.ratelimit.requests counts them
+        log.debug("Rate limit exceeded on {}, retry after {}s", route.config().getName(), retryAfterSeconds);
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse("RATE_LIMITED",
+            "Too many requests, retry after " + retryAfterSeconds + "s", UUID.randomUUID().toString()));
+    }
+
+    private LimitedRoute match(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (LimitedRoute route : routes) {
+            String method = route.config().getMethod();
+            if ((method == null || method.isBlank() || method.equalsIgnoreCase(request.getMethod()))
+                    && pathMatcher.match(route.config().getPattern(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String sub = authentication instanceof JwtAuthenticationToken jwtAuth ? jwtAuth.getToken().getSubject() : null;
+        return sub != null ? "sub|" + sub : "ip|" + request.getRemoteAddr();
+    }
+
+    /**
+     * 64-bit FNV-1a; StripedTokenBuckets mixes it further
+     */
+    private static long hash(String key) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return h;
+    }
+
+    private record LimitedRoute(RateLimitProperties.Route config, StripedTokenBuckets buckets,
+                                Counter allowed, Counter limited) { }
+}
@@ -0,0 +1,38 @@
+package com.itcenter.auth.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-route token-bucket limits applied by {@link RateLimitFilter}
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+@Getter
+@Setter
+public class RateLimitProperties {
+    private boolean enabled = true;
+    /** Buckets per route (rounded up to a power of two); fixes memory regardless of key count */
+    private int slots = 65_536;
+    /** First matching route wins; requests matching none are not limited */
+    private List<Route> routes = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Route {
+        private String name;
+        /** Ant-style path pattern, e.g. /api/v1/sessions/** */
+        private String pattern;
+        /** HTTP method to match, or empty for any */
+        private String method;
+        /** Burst size */
+        private int capacity = 10;
+        /** Sustained rate */
+        private double refillPerSecond = 1.0;
+    }
+}
@@ -0,0 +1,46 @@
+package com.itcenter.auth.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+import java.sql.SQLException;
+
+/**
+ * Switches read-only transactions to {@link CacheMode#GET}: they still read the
+ * second-level cache but never populate it, so rows served by a lagging replica
+ * cannot overwrite fresher cached state. The previous mode is restored on cleanup
+ * because the session may outlive the transaction (open-in-view).
+ */
+public class ReadOnlyCacheModeJpaDialect extends HibernateJpaDialect {
+
+    private record CacheModeData(Object delegate, Session session, CacheMode previous) {
+    }
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        Object data = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly()) {
+            return data;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode previous = session.getCacheMode();
+        session.setCacheMode(CacheMode.GET);
+        return new CacheModeData(data, session, previous);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof CacheModeData data) {
+            data.session().setCacheMode(data.previous());
+            super.cleanupTransaction(data.delegate());
+            return;
+        }
+        super.cleanupTransaction(transactionData);
+    }
+}
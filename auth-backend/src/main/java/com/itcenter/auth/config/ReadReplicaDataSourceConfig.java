@@ -0,0 +1,174 @@
+package com.itcenter.auth.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.Lifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaVendorAdapter;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits connections between the primary and read replicas.
+ *
+ * Replaces the auto-configured DataSource with a lazy routing proxy: read-only
+ * transactions go to a replica unless the caller wrote recently (read-your-writes),
+ * everything else (including Flyway) uses the primary pool.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.read-replica", name = "enabled", havingValue = "true")
+@Slf4j
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .build();
+        dataSource.setPoolName("auth-primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(ReadReplicaProperties properties, MeterRegistry meterRegistry) {
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(
+            properties.getStickyWindow().toMillis(), properties.getMaxStickyEntries());
+        Gauge.builder("auth.datasource.sticky.users", tracker, ReadYourWritesTracker::size)
+            .description("Callers currently pinned to the primary after a write")
+            .register(meterRegistry);
+        return tracker;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             DataSourceProperties dataSourceProperties,
+                                                             ReadReplicaProperties properties,
+                                                             ReadYourWritesTracker tracker,
+                                                             MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getUrls().size(); i++) {
+            replicas.add(replicaPool(i, properties.getUrls().get(i), dataSourceProperties, properties, meterRegistry));
+        }
+        log.info("Routing read-only transactions to {} replica(s)", replicas.size());
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, tracker, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * Drains every pool around a CRaC checkpoint. Boot's own lifecycle only covers the
+     * primary DataSource bean, which here is the routing proxy and not a pool.
+     */
+    @Bean
+    public HikariPoolCheckpointRestore primaryPoolCheckpointRestore(HikariDataSource primaryDataSource) {
+        return new HikariPoolCheckpointRestore(primaryDataSource);
+    }
+
+    @Bean
+    public ReplicaPoolsCheckpointRestore replicaPoolsCheckpointRestore(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new ReplicaPoolsCheckpointRestore(replicaRoutingDataSource.getReplicas().stream()
+            .map(HikariPoolCheckpointRestore::new)
+            .toList());
+    }
+
+    /**
+     * Replica rows may lag the primary, so read-only sessions must not put them
+     * into the shared second-level cache
+     */
+    @Bean
+    public JpaVendorAdapter jpaVendorAdapter(JpaProperties jpaProperties) {
+        HibernateJpaDialect dialect = new ReadOnlyCacheModeJpaDialect();
+        HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter() {
+            @Override
+            public HibernateJpaDialect getJpaDialect() {
+                return dialect;
+            }
+        };
+        adapter.setShowSql(jpaProperties.isShowSql());
+        adapter.setGenerateDdl(jpaProperties.isGenerateDdl());
+        if (jpaProperties.getDatabase() != null) {
+            adapter.setDatabase(jpaProperties.getDatabase());
+        }
+        if (jpaProperties.getDatabasePlatform() != null) {
+            adapter.setDatabasePlatform(jpaProperties.getDatabasePlatform());
+        }
+        return adapter;
+    }
+
+    /**
+     * The replica pools are not beans, so their lifecycles are driven from here
+     */
+    static final class ReplicaPoolsCheckpointRestore implements Lifecycle, ApplicationListener<ContextClosedEvent> {
+
+        private final List<HikariPoolCheckpointRestore> pools;
+
+        ReplicaPoolsCheckpointRestore(List<HikariPoolCheckpointRestore> pools) {
+            this.pools = pools;
+        }
+
+        @Override
+        public void onApplicationEvent(ContextClosedEvent event) {
+            pools.forEach(pool -> pool.onApplicationEvent(event));
+        }
+
+        @Override
+        public void start() {
+            pools.forEach(HikariPoolCheckpointRestore::start);
+        }
+
+        @Override
+        public void stop() {
+            pools.forEach(HikariPoolCheckpointRestore::stop);
+        }
+
+        @Override
+        public boolean isRunning() {
+            return pools.stream().anyMatch(HikariPoolCheckpointRestore::isRunning);
+        }
+    }
+
+    private static HikariDataSource replicaPool(int index, String url,
+                                                DataSourceProperties primary,
+                                                ReadReplicaProperties properties,
+                                                MeterRegistry meterRegistry) {
+        ReadReplicaProperties.Pool pool = properties.getHikari();
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("auth-replica-" + index);
+        dataSource.setJdbcUrl(url);
+        dataSource.setDriverClassName(primary.determineDriverClassName());
+        dataSource.setUsername(properties.getUsername() != null ? properties.getUsername() : primary.determineUsername());
+        dataSource.setPassword(properties.getPassword() != null ? properties.getPassword() : primary.determinePassword());
+        dataSource.setReadOnly(true);
+        dataSource.setAllowPoolSuspension(true);
+        dataSource.setMaximumPoolSize(pool.getMaximumPoolSize());
+        dataSource.setMinimumIdle(pool.getMinimumIdle());
+        dataSource.setConnectionTimeout(pool.getConnectionTimeout().toMillis());
+        dataSource.setIdleTimeout(pool.getIdleTimeout().toMillis());
+        dataSource.setMaxLifetime(pool.getMaxLifetime().toMillis());
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
+    }
+}
@@ -0,0 +1,39 @@
+package com.itcenter.auth.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas used for @Transactional(readOnly = true) work
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.read-replica")
+@Getter
+@Setter
+public class ReadReplicaProperties {
+    private boolean enabled = false;
+    private List<String> urls = new ArrayList<>();
+    private String username;
+    private String password;
+    /** After a caller's own write, their reads stay on the primary for this long */
+    private Duration stickyWindow = Duration.ofSeconds(5);
+    /** Upper bound on callers tracked for stickiness */
+    private int maxStickyEntries = 10_000;
+    private Pool hikari = new Pool();
+
+    @Getter
+    @Setter
+    public static class Pool {
+        private int maximumPoolSize = 20;
+        private int minimumIdle = 2;
+        private Duration connectionTimeout = Duration.ofSeconds(5);
+        private Duration idleTimeout = Duration.ofMinutes(10);
+        private Duration maxLifetime = Duration.ofMinutes(30);
+    }
+}
@@ -0,0 +1,87 @@
+package com.itcenter.auth.config;
+
+import com.itcenter.auth.service.LocalUserCache;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers when each caller (by sub) last changed a user, so that their reads can be
+ * kept off possibly lagging replicas for a short window afterwards.
+ * Each node keeps its own map, bounded and pruned of expired entries when full.
+ *
+ * Only changes the caller will want to read back count: profile, role and status changes,
+ * deletes and the last_login bump at mark-login, which all publish on the invalidation bus.
+ * The bus names the caller with the change and calls {@link #onChangeBy} on every node:
+ * the writing node after commit, the others when the notification arrives. The caller's
+ * next read is then pinned whichever node serves it, except in the moment before the
+ * notification has reached that node.
+ */
+public class ReadYourWritesTracker implements LocalUserCache {
+
+    private final Map<String, Long> lastWriteBySub = new ConcurrentHashMap<>();
+    private final long windowMillis;
+    private final int maxEntries;
+
+    public ReadYourWritesTracker(long windowMillis, int maxEntries) {
+        this.windowMillis = windowMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    public void recordWrite(String sub) {
+        if (sub == null || windowMillis <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (lastWriteBySub.size() >= maxEntries && !lastWriteBySub.containsKey(sub)) {
+            lastWriteBySub.values().removeIf(at -> now - at >= windowMillis);
+            if (lastWriteBySub.size() >= maxEntries) {
+                return;
+            }
+        }
+        lastWriteBySub.put(sub, now);
+    }
+
+    /**
+     * Pin the caller that made the change, not the user it was made to
+     */
+    @Override
+    public void onChangeBy(String actorSub) {
+        recordWrite(actorSub);
+    }
+
+    @Override
+    public void evictUser(Long userId, String cognitoSub) {
+        // Nothing cached about the changed user; its writer is pinned through onChangeBy
+    }
+
+    @Override
+    public void evictAll() {
+    }
+
+    static String currentSub() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+
+    public boolean isSticky(String sub) {
+        if (sub == null) {
+            return false;
+        }
+        Long at = lastWriteBySub.get(sub);
+        if (at == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - at >= windowMillis) {
+            lastWriteBySub.remove(sub, at);
+            return false;
+        }
+        return true;
+    }
+
+    public int size() {
+        return lastWriteBySub.size();
+    }
+}
@@ -0,0 +1,84 @@
+package com.itcenter.auth.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes connections for read-only transactions to the replica pools (round-robin) and
+ * everything else to the primary. Must sit behind a LazyConnectionDataSourceProxy so the
+ * connection is only fetched once the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    static final String PRIMARY = "primary";
+
+    private final List<HikariDataSource> replicas;
+    private final ReadYourWritesTracker tracker;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+    private final Counter stickyRoutes;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas,
+                                    ReadYourWritesTracker tracker, MeterRegistry meterRegistry) {
+        this.replicas = replicas;
+        this.tracker = tracker;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        this.primaryRoutes = routes(meterRegistry, "primary");
+        this.replicaRoutes = routes(meterRegistry, "replica");
+        this.stickyRoutes = routes(meterRegistry, "sticky");
+    }
+
+    private static Counter routes(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("auth.datasource.routes")
+            .tag("target", target)
+            .description("Connections handed out by the read-replica router")
+            .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        // Writes are routed here but pinned by ReadYourWritesTracker, only for user changes
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+        if (replicas.isEmpty()) {
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+        if (tracker.isSticky(ReadYourWritesTracker.currentSub())) {
+            stickyRoutes.increment();
+            return PRIMARY;
+        }
+        replicaRoutes.increment();
+        return Math.floorMod(next.getAndIncrement(), replicas.size());
+    }
+
+    public List<HikariDataSource> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,81 @@
+package com.itcenter.auth.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * SQL statements and JDBC time accumulated for the HTTP request running on the
+ * current thread. Filled by {@link SqlStatementInspector} and {@link SqlTimingSessionListener},
+ * read by {@link SqlStatsFilter}. Work outside a request (schedulers, startup) is not tracked.
+ */
+public final class RequestSqlStats {
+
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern COMMENTS = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+
+    private int statements;
+    private long jdbcNanos;
+    private final Map<String, Integer> shapes = new HashMap<>();
+
+    static RequestSqlStats begin() {
+        RequestSqlStats stats = new RequestSqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Stats of the current request, or null when no request is being tracked
+     */
+    public static RequestSqlStats current() {
+        return CURRENT.get();
+    }
+
+    public void recordStatement(String sql) {
+        statements++;
+        shapes.merge(shapeOf(sql), 1, Integer::sum);
+    }
+
+    public void recordJdbcTime(long nanos) {
+        jdbcNanos += nanos;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public Duration getJdbcTime() {
+        return Duration.ofNanos(jdbcNanos);
+    }
+
+    /**
+     * The statement shape prepared most often in this request, or null if there were none
+     */
+    public Map.Entry<String, Integer> mostRepeated() {
+        Map.Entry<String, Integer> top = null;
+        for (Map.Entry<String, Integer> entry : shapes.entrySet()) {
+            if (top == null || entry.getValue() > top.getValue()) {
+                top = entry;
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Normalise a statement so that executions differing only in SQL comments,
+     * formatting or IN-list length count as the same shape
+     */
+    static String shapeOf(String sql) {
+        String shape = COMMENTS.matcher(sql).replaceAll(" ");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+        return PARAMETER_LIST.matcher(shape).replaceAll("(?)");
+    }
+}
@@ -0,0 +1,88 @@
+package com.itcenter.auth.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.flywaydb.core.api.MigrationState;
+import org.flywaydb.core.api.MigrationVersion;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Serving nodes do not migrate: they read the schema history once and refuse to start if
+ * a migration this build ships has not been applied, or if one has failed. A migration
+ * numbered below the applied version is ignored by Flyway rather than pending (migrations
+ * run in order only), so it counts as not applied too. That is a single
+ * SELECT and never takes Flyway's lock, so scale-out does not queue on the history table.
+ *
+ * A schema ahead of this build is accepted, since during a rolling deploy the next release
+ * migrates first and older nodes keep serving.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SchemaMigrationStrategy implements FlywayMigrationStrategy {
+
+    private final SchemaProperties properties;
+
+    @Override
+    public void migrate(Flyway flyway) {
+        if (properties.isMigrateOnStartup()) {
+            flyway.migrate();
+            return;
+        }
+        validate(flyway.info());
+    }
+
+    void validate(MigrationInfoService info) {
+        MigrationInfo[] all = info.all();
+        String failed = Arrays.stream(all)
+            .filter(migration -> migration.getState().isFailed())
+            .map(SchemaMigrationStrategy::describe)
+            .collect(Collectors.joining(", "));
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException("Failed schema migrations need repair before serving: " + failed);
+        }
+        String ignored = Arrays.stream(all)
+            .filter(migration -> migration.getState() == MigrationState.IGNORED)
+            .map(SchemaMigrationStrategy::describe)
+            .collect(Collectors.joining(", "));
+        if (!ignored.isEmpty()) {
+            throw new IllegalStateException("Schema migrations older than the applied version were never applied: "
+                + ignored + ". Renumber them above the current version.");
+        }
+
+        MigrationInfo current = info.current();
+        MigrationVersion actual = current != null ? current.getVersion() : MigrationVersion.EMPTY;
+        MigrationVersion expected = Arrays.stream(all)
+            .filter(migration -> migration.getState().isResolved() && migration.getVersion() != null)
+            .map(MigrationInfo::getVersion)
+            .max(MigrationVersion::compareTo)
+            .orElse(MigrationVersion.EMPTY);
+
+        MigrationInfo[] pending = info.pending();
+        if (pending.length > 0) {
+            throw new IllegalStateException("Database schema is at version " + actual + " but this build expects "
+                + expected + "; pending: " + Arrays.stream(pending)
+                .map(SchemaMigrationStrategy::describe)
+                .collect(Collectors.joining(", "))
+                + ". Run the migrate mode first (java -jar <jar> migrate).");
+        }
+        if (actual.compareTo(expected) > 0) {
+            log.info("Database schema is at version {}, ahead of this build ({})", actual, expected);
+        } else {
+            log.info("Database schema is at version {}", actual);
+        }
+    }
+
+    private static String describe(MigrationInfo migration) {
+        return migration.getVersion() != null
+            ? "V" + migration.getVersion() + " " + migration.getDescription()
+            : migration.getDescription();
+    }
+}
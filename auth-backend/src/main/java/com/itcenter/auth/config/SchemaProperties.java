@@ -0,0 +1,21 @@
+package com.itcenter.auth.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * How a serving node treats the database schema at startup
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.schema")
+@Getter
+@Setter
+public class SchemaProperties {
+    /**
+     * Apply pending migrations while starting. Off for serving nodes, which only check the
+     * version; migrations run beforehand with the {@code migrate} run mode.
+     */
+    private boolean migrateOnStartup = false;
+}
@@ -0,0 +1,62 @@
+package com.itcenter.auth.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Per-region metrics for the Hibernate second-level cache (regions are configured
+ * in ehcache.xml). Requires hibernate.generate_statistics.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            for (String region : statistics.getSecondLevelCacheRegionNames()) {
+                FunctionCounter.builder("hibernate.l2.requests", statistics, s -> count(s, region, CacheRegionStatistics::getHitCount))
+                    .tag("region", region).tag("result", "hit")
+                    .description("Second-level cache lookups served from the cache")
+                    .register(registry);
+                FunctionCounter.builder("hibernate.l2.requests", statistics, s -> count(s, region, CacheRegionStatistics::getMissCount))
+                    .tag("region", region).tag("result", "miss")
+                    .description("Second-level cache lookups that went to the database")
+                    .register(registry);
+                FunctionCounter.builder("hibernate.l2.puts", statistics, s -> count(s, region, CacheRegionStatistics::getPutCount))
+                    .tag("region", region)
+                    .register(registry);
+                Gauge.builder("hibernate.l2.hit.ratio", statistics, s -> hitRatio(regionStats(s, region)))
+                    .tag("region", region)
+                    .description("Hits / (hits + misses) since startup")
+                    .register(registry);
+            }
+        };
+    }
+
+    private static CacheRegionStatistics regionStats(Statistics statistics, String region) {
+        return statistics.getCacheRegionStatistics(region);
+    }
+
+    private static double count(Statistics statistics, String region, ToLongFunction<CacheRegionStatistics> counter) {
+        CacheRegionStatistics stats = regionStats(statistics, region);
+        return stats != null ? counter.applyAsLong(stats) : 0;
+    }
+
+    private static double hitRatio(CacheRegionStatistics stats) {
+        if (stats == null) {
+            return Double.NaN;
+        }
+        long total = stats.getHitCount() + stats.getMissCount();
+        return total == 0 ? Double.NaN : (double) stats.getHitCount() / total;
+    }
+}
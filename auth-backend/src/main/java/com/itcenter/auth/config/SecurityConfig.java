@@ -1,14 +1,20 @@
 package com.itcenter.auth.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.JwkSetUriJwtDecoderBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -28,6 +34,12 @@ public class SecurityConfig {
     private String allowedOrigins;
     
     private final JwtAuthConverter jwtAuthConverter;
+    private final RateLimitProperties rateLimitProperties;
+    private final AuthzCheckProperties authzCheckProperties;
+    private final IntrospectionProperties introspectionProperties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final JwtDecoder jwtDecoder;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -36,14 +48,24 @@ public class SecurityConfig {
             .csrf(AbstractHttpConfigurer::disable)
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/healthz", "/actuator/health").permitAll()
+                .requestMatchers("/actuator/prometheus", "/actuator/metrics/**", "/actuator/startup").hasRole("ADMIN")
                 .requestMatchers("/api/v1/me").authenticated()
                 .requestMatchers("/api/v1/sessions/**").authenticated()  // Explicitly allow sessions endpoints
                 .requestMatchers("/api/v1/admin/**").hasRole("ADMIN")  // Only ADMIN role
+                .requestMatchers(HttpMethod.POST, "/api/v1/authz/check")
+                    .hasAuthority("SCOPE_" + authzCheckProperties.getScope())  // Service-to-service only
+                .requestMatchers(HttpMethod.POST, "/api/v1/introspect")
+                    .hasAuthority("SCOPE_" + introspectionProperties.getScope())
                 .anyRequest().authenticated()
             )
             .oauth2ResourceServer(oauth2 -> oauth2
-                .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthConverter))
+                .jwt(jwt -> jwt
+                    .decoder(new InstrumentedJwtDecoder(jwtDecoder))
+                    .jwtAuthenticationConverter(jwtAuthConverter))
             )
+            // Not a bean, so it only runs here (after authentication) and not in the servlet chain
+            .addFilterAfter(new RateLimitFilter(rateLimitProperties, objectMapper, meterRegistry),
+                BearerTokenAuthenticationFilter.class)
             .headers(headers -> {
                 headers.frameOptions(frameOptions -> frameOptions.deny());
                 headers.contentTypeOptions(contentTypeOptions -> contentTypeOptions.disable());
@@ -53,13 +75,25 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * JWKS fetches go through the Cognito client, and the key set lives in a cache that is
+     * dropped around a CRaC checkpoint. Static, because the decoder it customizes is
+     * injected into this class.
+     */
+    @Bean
+    public static JwkSetUriJwtDecoderBuilderCustomizer cognitoJwkSetCustomizer(CognitoHttpClient cognitoHttpClient) {
+        return builder -> builder
+            .restOperations(cognitoHttpClient.restTemplate())
+            .cache(cognitoHttpClient.jwksCache());
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList(allowedOrigins.split(",")));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
-        configuration.setExposedHeaders(Arrays.asList("X-Request-Id", "X-Correlation-Id"));
+        configuration.setExposedHeaders(Arrays.asList("X-Request-Id", "X-Correlation-Id", "ETag"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
@@ -0,0 +1,26 @@
+package com.itcenter.auth.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts every statement Hibernate prepares against the current request's {@link RequestSqlStats}.
+ * Statements are passed on unchanged, through an optional inspector configured by the application.
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    private final StatementInspector delegate;
+
+    public SqlStatementInspector(StatementInspector delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        String inspected = delegate != null ? delegate.inspect(sql) : sql;
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null && inspected != null) {
+            stats.recordStatement(inspected);
+        }
+        return inspected;
+    }
+}
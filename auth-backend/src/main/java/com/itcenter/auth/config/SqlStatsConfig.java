@@ -0,0 +1,55 @@
+package com.itcenter.auth.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Wires per-request SQL accounting: the Hibernate statement inspector and session
+ * listener that collect the numbers, and the servlet filter that reports them
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.sql-stats", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatsHibernateProperties() {
+        return properties -> {
+            // Keep an inspector configured through spring.jpa.properties by chaining to it
+            Object configured = properties.get(AvailableSettings.STATEMENT_INSPECTOR);
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementInspector(resolve(configured)));
+            properties.putIfAbsent(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+                SqlTimingSessionListener.class.getName());
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatsFilter> sqlStatsFilter(SqlStatsProperties properties,
+                                                                 MeterRegistry meterRegistry) {
+        FilterRegistrationBean<SqlStatsFilter> registration =
+            new FilterRegistrationBean<>(new SqlStatsFilter(properties, meterRegistry));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+
+    private static StatementInspector resolve(Object configured) {
+        if (configured == null) {
+            return null;
+        }
+        if (configured instanceof StatementInspector inspector) {
+            return inspector;
+        }
+        Class<?> type = configured instanceof Class<?> c
+            ? c
+            : ClassUtils.resolveClassName(configured.toString().trim(), SqlStatsConfig.class.getClassLoader());
+        return (StatementInspector) BeanUtils.instantiateClass(type);
+    }
+}
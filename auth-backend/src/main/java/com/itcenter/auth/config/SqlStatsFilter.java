@@ -0,0 +1,148 @@
+package com.itcenter.auth.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements and JDBC time of each HTTP request.
+ *
+ * Runs before Spring Security so that statements issued while authenticating (user
+ * provisioning, principal loading) are attributed to the request as well. Records
+ * auth.http.sql.statements and auth.http.sql.time per route, optionally reports them in a
+ * Server-Timing header, and logs a warning when a request exceeds the statement/JDBC time
+ * budget or prepares one statement shape more often than the repeat threshold (N+1).
+ */
+@Slf4j
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+    static final String SERVER_TIMING = "Server-Timing";
+    private static final int MAX_LOGGED_SQL = 300;
+
+    private final SqlStatsProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Counter overBudget;
+    private final Counter repeated;
+
+    public SqlStatsFilter(SqlStatsProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.overBudget = warnings(meterRegistry, "budget");
+        this.repeated = warnings(meterRegistry, "repeated");
+    }
+
+    private static Counter warnings(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("auth.http.sql.warnings")
+            .tag("reason", reason)
+            .description("Requests that exceeded the SQL budget or repeated a statement shape")
+            .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestSqlStats stats = RequestSqlStats.begin();
+        ServerTimingResponse timingResponse = properties.isServerTiming()
+            ? new ServerTimingResponse(response, stats)
+            : null;
+        try {
+            filterChain.doFilter(request, timingResponse != null ? timingResponse : response);
+        } finally {
+            RequestSqlStats.end();
+            if (timingResponse != null) {
+                timingResponse.writeHeader();
+            }
+            record(request, stats);
+        }
+    }
+
+    private void record(HttpServletRequest request, RequestSqlStats stats) {
+        String uri = uriTag(request);
+        DistributionSummary.builder("auth.http.sql.statements")
+            .description("SQL statements prepared per HTTP request")
+            .tag("method", request.getMethod())
+            .tag("uri", uri)
+            .register(meterRegistry)
+            .record(stats.getStatements());
+        Timer.builder("auth.http.sql.time")
+            .description("Time spent executing JDBC statements per HTTP request")
+            .tag("method", request.getMethod())
+            .tag("uri", uri)
+            .register(meterRegistry)
+            .record(stats.getJdbcTime());
+
+        if (stats.getStatements() > properties.getStatementBudget()
+                || stats.getJdbcTime().compareTo(properties.getJdbcTimeBudget()) > 0) {
+            overBudget.increment();
+            log.warn("{} {} ran {} SQL statements in {} ms (budget: {} statements, {} ms)",
+                request.getMethod(), request.getRequestURI(), stats.getStatements(), stats.getJdbcTime().toMillis(),
+                properties.getStatementBudget(), properties.getJdbcTimeBudget().toMillis());
+        }
+
+        Map.Entry<String, Integer> top = stats.mostRepeated();
+        if (top != null && top.getValue() > properties.getRepeatThreshold()) {
+            repeated.increment();
+            log.warn("{} {} prepared the same statement {} times (possible N+1): {}",
+                request.getMethod(), request.getRequestURI(), top.getValue(), abbreviate(top.getKey()));
+        }
+    }
+
+    private static String uriTag(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+
+    private static String abbreviate(String sql) {
+        return sql.length() <= MAX_LOGGED_SQL ? sql : sql.substring(0, MAX_LOGGED_SQL) + "...";
+    }
+
+    static String serverTimingValue(RequestSqlStats stats) {
+        return String.format(Locale.ROOT, "db;dur=%.1f;desc=\"%d statements\"",
+            stats.getJdbcTime().toNanos() / 1_000_000.0, stats.getStatements());
+    }
+
+    /**
+     * Adds the Server-Timing header just before the response is committed, or after the
+     * chain if the body was small enough to still be buffered
+     */
+    private static final class ServerTimingResponse extends OnCommittedResponseWrapper {
+
+        private final RequestSqlStats stats;
+        private boolean written;
+
+        ServerTimingResponse(HttpServletResponse response, RequestSqlStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            writeHeader();
+        }
+
+        void writeHeader() {
+            if (!written && !isCommitted()) {
+                written = true;
+                addHeader(SERVER_TIMING, serverTimingValue(stats));
+            }
+        }
+    }
+}
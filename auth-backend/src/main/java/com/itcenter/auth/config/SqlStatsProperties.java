@@ -0,0 +1,27 @@
+package com.itcenter.auth.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Per-request SQL accounting done by {@link SqlStatsFilter}
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.sql-stats")
+@Getter
+@Setter
+public class SqlStatsProperties {
+    private boolean enabled = true;
+    /** Add a Server-Timing header with the statement count and JDBC time; exposes timings to clients */
+    private boolean serverTiming = false;
+    /** Warn when a request prepares more statements than this */
+    private int statementBudget = 25;
+    /** Warn when a request spends longer than this executing JDBC statements */
+    private Duration jdbcTimeBudget = Duration.ofMillis(250);
+    /** Warn (likely N+1) when one statement shape is prepared more often than this in a request */
+    private int repeatThreshold = 5;
+}
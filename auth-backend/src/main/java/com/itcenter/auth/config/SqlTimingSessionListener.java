@@ -0,0 +1,40 @@
+package com.itcenter.auth.config;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Adds JDBC execution time (single statements and batches) to the current request's
+ * {@link RequestSqlStats}. Hibernate creates one instance per session.
+ */
+public class SqlTimingSessionListener implements SessionEventListener {
+
+    private long executeStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record(executeStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record(batchStart);
+    }
+
+    private static void record(long start) {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null && start != 0) {
+            stats.recordJdbcTime(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.itcenter.auth.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Turns the recorded startup steps into {@code auth.startup.step{step}} timers once the
+ * application is ready, so startup cost can be compared across nodes and releases.
+ * The full step timeline stays available at /actuator/startup.
+ * Does nothing unless the application was started with a {@link BufferingApplicationStartup}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StartupStepMetrics implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            return;
+        }
+
+        // One timer per step name; the per-bean tags of each step would explode cardinality
+        Map<String, Duration> totals = new TreeMap<>();
+        for (StartupTimeline.TimelineEvent step : startup.getBufferedTimeline().getEvents()) {
+            String name = step.getStartupStep().getName();
+            Timer.builder("auth.startup.step")
+                .description("Startup steps recorded by the ApplicationStartup")
+                .tag("step", name)
+                .register(meterRegistry)
+                .record(step.getDuration());
+            totals.merge(name, step.getDuration(), Duration::plus);
+        }
+
+        totals.entrySet().stream()
+            .sorted(Map.Entry.<String, Duration>comparingByValue(Comparator.reverseOrder()))
+            .limit(5)
+            .forEach(total -> log.info("Startup step {} took {} ms in total", total.getKey(), total.getValue().toMillis()));
+    }
+}
@@ -1,8 +1,10 @@
 package com.itcenter.auth.controller;
 
 import com.itcenter.auth.dto.AuditEntryResponse;
+import com.itcenter.auth.dto.PageResponse;
 import com.itcenter.auth.service.AuditService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -14,6 +16,7 @@ import org.springframework.web.bind.annotation.*;
 import java.time.LocalDateTime;
 
 @RestController
+@Lazy
 @RequestMapping("/api/v1/admin")
 @RequiredArgsConstructor
 public class AuditController {
@@ -22,7 +25,7 @@ public class AuditController {
     
     @GetMapping("/audit-log")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Page<AuditEntryResponse>> getAuditLog(
+    public ResponseEntity<PageResponse<AuditEntryResponse>> getAuditLog(
             @RequestParam(required = false) Long user_id,
             @RequestParam(required = false) String event_type,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start_date,
@@ -35,7 +38,7 @@ public class AuditController {
         Page<AuditEntryResponse> audits = auditService.getAuditLog(
             user_id, event_type, start_date, end_date, pageable);
         
-        return ResponseEntity.ok(audits);
+        return ResponseEntity.ok(PageResponse.of(audits));
     }
 }
 
@@ -0,0 +1,53 @@
+package com.itcenter.auth.controller;
+
+import com.itcenter.auth.config.AuthzCheckProperties;
+import com.itcenter.auth.dto.AuthzCheckRequest;
+import com.itcenter.auth.dto.AuthzCheckResponse;
+import com.itcenter.auth.service.AuthzCheckService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Role checks for other services, called with a client-credentials token carrying the
+ * app.authz-check.scope scope (see SecurityConfig).
+ *
+ * Requests are JSON. The answer is JSON by default ({"results":[true,false]}); callers
+ * sending Accept: application/octet-stream get the same decisions packed one bit per
+ * check, check i in bit (i % 8) of byte (i / 8), least significant bit first.
+ */
+@RestController
+@RequestMapping("/api/v1/authz")
+@RequiredArgsConstructor
+public class AuthzController {
+
+    private final AuthzCheckService authzCheckService;
+    private final AuthzCheckProperties properties;
+
+    @PostMapping(value = "/check", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<AuthzCheckResponse> check(@Valid @RequestBody AuthzCheckRequest request) {
+        return withMaxAge().body(new AuthzCheckResponse(authzCheckService.check(request.getChecks())));
+    }
+
+    @PostMapping(value = "/check", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> checkBinary(@Valid @RequestBody AuthzCheckRequest request) {
+        boolean[] results = authzCheckService.check(request.getChecks());
+        byte[] packed = new byte[(results.length + 7) / 8];
+        for (int i = 0; i < results.length; i++) {
+            if (results[i]) {
+                packed[i >> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        return withMaxAge().contentType(MediaType.APPLICATION_OCTET_STREAM).body(packed);
+    }
+
+    /**
+     * Decisions follow role changes within max-age; the caller keeps them privately
+     */
+    private ResponseEntity.BodyBuilder withMaxAge() {
+        return ResponseEntity.ok().cacheControl(CacheControl.maxAge(properties.getMaxAge()).cachePrivate());
+    }
+}
@@ -0,0 +1,78 @@
+package com.itcenter.auth.controller;
+
+import com.itcenter.auth.config.FlightRecorderProperties;
+import com.itcenter.auth.service.FlightRecorderService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+@RestController
+@Lazy
+@RequestMapping("/api/v1/admin/diagnostics")
+@RequiredArgsConstructor
+public class DiagnosticsController {
+    
+    private static final Duration RESPONSE_GRACE = Duration.ofSeconds(30);
+    
+    private final FlightRecorderService flightRecorderService;
+    private final FlightRecorderProperties properties;
+    
+    /**
+     * Record for the given number of seconds (bounded by app.jfr.max-duration) and stream
+     * back the .jfr file; open it in JDK Mission Control or with {@code jfr print}.
+     * Handled asynchronously, so the request thread is free while the recording runs.
+     */
+    @PostMapping("/flight-recording")
+    @PreAuthorize("hasRole('ADMIN')")
+    public DeferredResult<ResponseEntity<Resource>> flightRecording(@RequestParam(required = false) Integer seconds)
+            throws IOException {
+        DeferredResult<ResponseEntity<Resource>> result =
+            new DeferredResult<>(properties.getMaxDuration().plus(RESPONSE_GRACE).toMillis());
+        flightRecorderService.record(seconds != null ? Duration.ofSeconds(seconds) : null)
+            .whenComplete((file, error) -> {
+                if (error != null) {
+                    result.setErrorResult(error);
+                    return;
+                }
+                try {
+                    ResponseEntity<Resource> response = download(file);
+                    if (!result.setResult(response)) {
+                        // Timed out: nobody will read the file, and closing the stream deletes it
+                        response.getBody().getInputStream().close();
+                    }
+                } catch (IOException e) {
+                    result.setErrorResult(e);
+                }
+            });
+        return result;
+    }
+    
+    private static ResponseEntity<Resource> download(Path file) throws IOException {
+        long size = Files.size(file);
+        // The temp file is removed once the response body has been written and the stream closed
+        Resource body = new InputStreamResource(Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE));
+        String filename = "auth-" + Instant.now().truncatedTo(ChronoUnit.SECONDS).toString().replace(":", "") + ".jfr";
+        
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .contentLength(size)
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+            .body(body);
+    }
+}
@@ -0,0 +1,36 @@
+package com.itcenter.auth.controller;
+
+import com.itcenter.auth.dto.IntrospectionResponse;
+import com.itcenter.auth.service.TokenIntrospectionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * RFC 7662 token introspection for sidecars and gateways, called with a client-credentials
+ * token carrying the app.introspection.scope scope (see SecurityConfig).
+ *
+ * The token to check is sent form-encoded (token=...); token_type_hint is accepted and
+ * ignored, as only access and ID tokens from our user pool can be verified here.
+ */
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class IntrospectionController {
+
+    private final TokenIntrospectionService introspectionService;
+
+    @PostMapping(value = "/introspect",
+        consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<IntrospectionResponse> introspect(
+            @RequestParam(value = "token", required = false) String token,
+            @RequestParam(value = "token_type_hint", required = false) String tokenTypeHint) {
+        IntrospectionResponse response = token == null || token.isBlank()
+            ? IntrospectionResponse.inactive()
+            : introspectionService.introspect(token);
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(response);
+    }
+}
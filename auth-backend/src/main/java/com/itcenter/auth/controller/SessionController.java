@@ -27,20 +27,11 @@ public class SessionController {
         JwtAuthenticationToken jwtAuth = (JwtAuthenticationToken) authentication;
         Jwt jwt = jwtAuth.getToken();
         
-        log.info("[MARK-LOGIN] Endpoint hit! sub={} aud={} jti={} exp={} iat={} issuer={}",
-            jwt.getSubject(),
-            jwt.getAudience(),
-            jwt.getId(),
-            jwt.getExpiresAt(),
-            jwt.getIssuedAt(),
-            jwt.getIssuer()
-        );
-        
-        log.info("[MARK-LOGIN] All claims: {}", jwt.getClaims());
+        // Never log the claims themselves: they carry PII and token identifiers
+        log.debug("[MARK-LOGIN] sub={} jti={} exp={}", jwt.getSubject(), jwt.getId(), jwt.getExpiresAt());
         
         try {
             sessionService.markLogin(jwt);
-            log.info("[MARK-LOGIN] Service call completed successfully");
         } catch (Exception e) {
             log.error("[MARK-LOGIN] Service call failed", e);
             return ResponseEntity.status(500).build();
@@ -3,16 +3,22 @@ package com.itcenter.auth.controller;
 import com.itcenter.auth.dto.*;
 import com.itcenter.auth.service.UserService;
 import com.itcenter.auth.service.AdminUserService;
+import com.itcenter.auth.service.UserValidatorCache;
+import com.itcenter.auth.exception.PreconditionFailedException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -24,22 +30,36 @@ public class UserController {
     
     private final UserService userService;
     private final AdminUserService adminUserService;
+    private final UserValidatorCache validatorCache;
     
     @GetMapping("/me")
-    public ResponseEntity<UserProfileResponse> getCurrentUser() {
-        return ResponseEntity.ok(userService.getCurrentUserProfile());
+    public ResponseEntity<UserProfileResponse> getCurrentUser(Authentication authentication, WebRequest webRequest) {
+        // Answer a matching If-None-Match from the validator cache without touching the DB
+        String cachedEtag = validatorCache.getBySub(authentication.getName());
+        if (cachedEtag != null && webRequest.checkNotModified(cachedEtag)) {
+            return null;
+        }
+        
+        UserProfileResponse profile = userService.getCurrentUserProfile();
+        // /me does not write (last_login moves at mark-login), so a cache miss can still end in 304
+        String etag = validatorCache.getByUserId(profile.getId());
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return withValidator(profile, etag);
     }
     
     @PatchMapping("/me")
     public ResponseEntity<UserProfileResponse> updateCurrentUser(
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateProfileRequest request) {
-        UserProfileResponse response = userService.updateCurrentUserProfile(request);
-        return ResponseEntity.ok(response);
+        UserProfileResponse response = userService.updateCurrentUserProfile(request, ifMatch);
+        return withValidator(response, validatorCache.getByUserId(response.getId()));
     }
     
     @GetMapping("/admin/users")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Page<UserSummaryResponse>> listUsers(
+    public ResponseEntity<PageResponse<UserSummaryResponse>> listUsers(
             @RequestParam(required = false) String query,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
@@ -49,22 +69,48 @@ public class UserController {
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sort));
         
         Page<UserSummaryResponse> users = userService.searchUsers(query, pageable);
-        return ResponseEntity.ok(users);
+        return ResponseEntity.ok(PageResponse.of(users));
     }
     
     @GetMapping("/admin/users/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<UserSummaryResponse> getUserById(@PathVariable Long id) {
-        return ResponseEntity.ok(userService.getUserById(id));
+    public ResponseEntity<UserSummaryResponse> getUserById(@PathVariable Long id, WebRequest webRequest) {
+        String cachedEtag = validatorCache.getByUserId(id);
+        if (cachedEtag != null && webRequest.checkNotModified(cachedEtag)) {
+            return null;
+        }
+        
+        UserService.UserDetail detail = userService.getUserDetail(id);
+        if (webRequest.checkNotModified(detail.etag())) {
+            return null;
+        }
+        return withValidator(detail.user(), detail.etag());
     }
     
     @PatchMapping("/admin/users/{id}/roles")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> updateUserRoles(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateRolesRequest request) {
         try {
-            return ResponseEntity.ok(userService.updateUserRoles(id, request));
+            return withValidator(userService.updateUserRoles(id, request, ifMatch), validatorCache.getByUserId(id));
+        } catch (PreconditionFailedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    @PatchMapping("/admin/users/{id}/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> updateUserStatus(@PathVariable Long id, @Valid @RequestBody UpdateStatusRequest request) {
+        // Deactivated users are rejected at authentication from the next request on
+        try {
+            adminUserService.setUserActive(id, request.getActive());
+            return ResponseEntity.noContent().build();
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -79,5 +125,18 @@ public class UserController {
         adminUserService.deleteUser(id);
         return ResponseEntity.noContent().build();
     }
+    
+    /**
+     * 200 with the strong ETag and a cache policy that lets the browser store the
+     * response privately but revalidate it (If-None-Match) on every use
+     */
+    private <T> ResponseEntity<T> withValidator(T body, String etag) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .cacheControl(CacheControl.noCache().cachePrivate());
+        if (etag != null) {
+            builder.eTag(etag);
+        }
+        return builder.body(body);
+    }
 }
 
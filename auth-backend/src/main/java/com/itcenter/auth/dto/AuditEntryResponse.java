@@ -1,5 +1,6 @@
 package com.itcenter.auth.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -9,6 +10,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonSerialize(using = ResponseSerializers.AuditEntrySerializer.class)
 public class AuditEntryResponse {
     private Long id;
     private Long userId;
@@ -0,0 +1,44 @@
+package com.itcenter.auth.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthzCheckRequest {
+
+    public static final int MAX_CHECKS = 1000;
+
+    @NotEmpty(message = "At least one check must be specified")
+    @Size(max = MAX_CHECKS, message = "At most " + MAX_CHECKS + " checks per request")
+    private List<@Valid Check> checks;
+
+    /**
+     * Does the user (by Cognito sub or user id, exactly one) hold the role?
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Check {
+        private String sub;
+        private Long userId;
+        @NotBlank(message = "role must be specified")
+        private String role;
+
+        @JsonIgnore
+        @AssertTrue(message = "Exactly one of sub and userId must be specified")
+        public boolean isSingleSubject() {
+            return (sub != null && !sub.isBlank()) != (userId != null);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.itcenter.auth.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One decision per check, in request order
+ */
+@Getter
+@AllArgsConstructor
+public class AuthzCheckResponse {
+    private boolean[] results;
+}
@@ -0,0 +1,41 @@
+package com.itcenter.auth.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * RFC 7662 introspection response. Inactive tokens carry nothing but {"active": false};
+ * user_id and roles are extensions for tokens issued to a user.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IntrospectionResponse {
+
+    private static final IntrospectionResponse INACTIVE = IntrospectionResponse.builder().active(false).build();
+
+    private boolean active;
+    private String sub;
+    private String username;
+    @JsonProperty("client_id")
+    private String clientId;
+    private String scope;
+    @JsonProperty("token_type")
+    private String tokenType;
+    private Long exp;
+    private Long iat;
+    private String iss;
+    @JsonProperty("user_id")
+    private Long userId;
+    private List<String> roles;
+
+    public static IntrospectionResponse inactive() {
+        return INACTIVE;
+    }
+}
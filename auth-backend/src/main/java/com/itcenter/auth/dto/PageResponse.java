@@ -0,0 +1,27 @@
+package com.itcenter.auth.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.*;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * Compact page envelope for list endpoints. Serializing PageImpl directly also writes its
+ * pageable, sort and derived flags, and that shape changes between Spring Data versions.
+ */
+@Getter
+@AllArgsConstructor
+@JsonSerialize(using = ResponseSerializers.PageSerializer.class)
+public class PageResponse<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+
+    public static <T> PageResponse<T> of(Page<T> page) {
+        return new PageResponse<>(page.getContent(), page.getNumber(), page.getSize(),
+            page.getTotalElements(), page.getTotalPages());
+    }
+}
@@ -0,0 +1,191 @@
+package com.itcenter.auth.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Hand-written serializers for the list responses. Field names are pre-encoded and each
+ * field is written straight to the generator in a fixed order, without bean introspection
+ * or a property writer per field. Dates go through the configured JavaTimeModule
+ * serializer, resolved once per mapper.
+ *
+ * The output matches what Jackson wrote for the Lombok getters, including nulls.
+ */
+public final class ResponseSerializers {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString EMAIL = new SerializedString("email");
+    private static final SerializedString DISPLAY_NAME = new SerializedString("displayName");
+    private static final SerializedString LOCALE = new SerializedString("locale");
+    private static final SerializedString IS_ACTIVE = new SerializedString("isActive");
+    private static final SerializedString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializedString LAST_LOGIN = new SerializedString("lastLogin");
+    private static final SerializedString ROLES = new SerializedString("roles");
+    private static final SerializedString USER_ID = new SerializedString("userId");
+    private static final SerializedString USER_EMAIL = new SerializedString("userEmail");
+    private static final SerializedString EVENT_TYPE = new SerializedString("eventType");
+    private static final SerializedString IP_ADDRESS = new SerializedString("ipAddress");
+    private static final SerializedString USER_AGENT = new SerializedString("userAgent");
+    private static final SerializedString METADATA = new SerializedString("metadata");
+    private static final SerializedString CONTENT = new SerializedString("content");
+    private static final SerializedString PAGE = new SerializedString("page");
+    private static final SerializedString SIZE = new SerializedString("size");
+    private static final SerializedString TOTAL_ELEMENTS = new SerializedString("totalElements");
+    private static final SerializedString TOTAL_PAGES = new SerializedString("totalPages");
+
+    private ResponseSerializers() {
+    }
+
+    public static class UserSummarySerializer extends DtoSerializer<UserSummaryResponse> {
+
+        public UserSummarySerializer() {
+            super(UserSummaryResponse.class);
+        }
+
+        @Override
+        public void serialize(UserSummaryResponse value, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject(value);
+            writeNumber(gen, ID, value.getId());
+            writeString(gen, EMAIL, value.getEmail());
+            writeString(gen, DISPLAY_NAME, value.getDisplayName());
+            writeString(gen, LOCALE, value.getLocale());
+            gen.writeFieldName(IS_ACTIVE);
+            if (value.getIsActive() == null) {
+                gen.writeNull();
+            } else {
+                gen.writeBoolean(value.getIsActive());
+            }
+            writeDate(gen, CREATED_AT, value.getCreatedAt(), provider);
+            writeDate(gen, LAST_LOGIN, value.getLastLogin(), provider);
+            gen.writeFieldName(ROLES);
+            List<String> roles = value.getRoles();
+            if (roles == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartArray(roles, roles.size());
+                for (String role : roles) {
+                    gen.writeString(role);
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    public static class AuditEntrySerializer extends DtoSerializer<AuditEntryResponse> {
+
+        public AuditEntrySerializer() {
+            super(AuditEntryResponse.class);
+        }
+
+        @Override
+        public void serialize(AuditEntryResponse value, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject(value);
+            writeNumber(gen, ID, value.getId());
+            writeNumber(gen, USER_ID, value.getUserId());
+            writeString(gen, USER_EMAIL, value.getUserEmail());
+            writeString(gen, EVENT_TYPE, value.getEventType());
+            writeString(gen, IP_ADDRESS, value.getIpAddress());
+            writeString(gen, USER_AGENT, value.getUserAgent());
+            writeString(gen, METADATA, value.getMetadata());
+            writeDate(gen, CREATED_AT, value.getCreatedAt(), provider);
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes the page items one by one as they are iterated, looking up the item
+     * serializer once per page rather than once per item
+     */
+    @SuppressWarnings("rawtypes")
+    public static class PageSerializer extends StdSerializer<PageResponse> {
+
+        public PageSerializer() {
+            super(PageResponse.class);
+        }
+
+        @Override
+        public void serialize(PageResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(value);
+            gen.writeFieldName(CONTENT);
+            List<?> content = value.getContent();
+            gen.writeStartArray(content, content.size());
+            Class<?> itemType = null;
+            JsonSerializer<Object> itemSerializer = null;
+            for (Object item : content) {
+                if (item == null) {
+                    gen.writeNull();
+                    continue;
+                }
+                if (item.getClass() != itemType) {
+                    itemType = item.getClass();
+                    itemSerializer = provider.findValueSerializer(itemType);
+                }
+                itemSerializer.serialize(item, gen, provider);
+            }
+            gen.writeEndArray();
+            gen.writeFieldName(PAGE);
+            gen.writeNumber(value.getPage());
+            gen.writeFieldName(SIZE);
+            gen.writeNumber(value.getSize());
+            gen.writeFieldName(TOTAL_ELEMENTS);
+            gen.writeNumber(value.getTotalElements());
+            gen.writeFieldName(TOTAL_PAGES);
+            gen.writeNumber(value.getTotalPages());
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Holds the date serializer of the mapper it was created for
+     */
+    abstract static class DtoSerializer<T> extends StdSerializer<T> implements ResolvableSerializer {
+
+        private JsonSerializer<Object> dateSerializer;
+
+        DtoSerializer(Class<T> type) {
+            super(type);
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException {
+            dateSerializer = provider.findValueSerializer(LocalDateTime.class);
+        }
+
+        void writeDate(JsonGenerator gen, SerializableString name, LocalDateTime value, SerializerProvider provider)
+                throws IOException {
+            gen.writeFieldName(name);
+            if (value == null) {
+                gen.writeNull();
+            } else {
+                dateSerializer.serialize(value, gen, provider);
+            }
+        }
+    }
+
+    private static void writeString(JsonGenerator gen, SerializableString name, String value) throws IOException {
+        gen.writeFieldName(name);
+        gen.writeString(value);
+    }
+
+    private static void writeNumber(JsonGenerator gen, SerializableString name, Long value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+}
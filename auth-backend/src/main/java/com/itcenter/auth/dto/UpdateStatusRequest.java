@@ -0,0 +1,10 @@
+package com.itcenter.auth.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class UpdateStatusRequest {
+    @NotNull(message = "active must be specified")
+    private Boolean active;
+}
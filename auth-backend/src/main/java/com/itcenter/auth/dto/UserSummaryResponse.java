@@ -1,5 +1,6 @@
 package com.itcenter.auth.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -10,6 +11,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonSerialize(using = ResponseSerializers.UserSummarySerializer.class)
 public class UserSummaryResponse {
     private Long id;
     private String email;
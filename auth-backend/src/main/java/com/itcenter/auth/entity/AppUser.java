@@ -2,7 +2,11 @@ package com.itcenter.auth.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -11,6 +15,8 @@ import java.util.List;
 
 @Entity
 @Table(name = "app_users")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "auth.user")
+@NaturalIdCache(region = "auth.user.sub")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,10 +26,12 @@ import java.util.List;
 public class AppUser {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "app_users_id_seq")
+    @SequenceGenerator(name = "app_users_id_seq", sequenceName = "app_users_id_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
     
+    @NaturalId
     @Column(name = "cognito_sub", nullable = false, unique = true)
     private String cognitoSub;
     
@@ -56,6 +64,7 @@ public class AppUser {
     private LocalDateTime lastLogin;
     
     @ManyToMany(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "auth.user.roles")
     @JoinTable(
         name = "user_roles",
         joinColumns = @JoinColumn(name = "user_id"),
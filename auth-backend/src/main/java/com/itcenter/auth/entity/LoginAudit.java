@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class LoginAudit {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "login_audit_id_seq")
+    @SequenceGenerator(name = "login_audit_id_seq", sequenceName = "login_audit_id_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -22,7 +22,7 @@ public class GlobalExceptionHandler {
     
     @ExceptionHandler(AuthenticationException.class)
     public ResponseEntity<ErrorResponse> handleAuthenticationException(AuthenticationException e) {
-        String traceId = UUID.randomUUID().toString();
+        String traceId = newTraceId();
         log.error("Authentication error: {}", e.getMessage());
         
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -31,7 +31,7 @@ public class GlobalExceptionHandler {
     
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ErrorResponse> handleAccessDeniedException(AccessDeniedException e) {
-        String traceId = UUID.randomUUID().toString();
+        String traceId = newTraceId();
         log.error("Access denied: {}", e.getMessage());
         
         return ResponseEntity.status(HttpStatus.FORBIDDEN)
@@ -47,7 +47,7 @@ public class GlobalExceptionHandler {
             errors.put(fieldName, errorMessage);
         });
         
-        String traceId = UUID.randomUUID().toString();
+        String traceId = newTraceId();
         
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
             .body(new ErrorResponse("VALIDATION_ERROR", "Validation failed: " + errors, traceId));
@@ -55,16 +55,34 @@ public class GlobalExceptionHandler {
     
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<ErrorResponse> handleConstraintViolationException(ConstraintViolationException e) {
-        String traceId = UUID.randomUUID().toString();
+        String traceId = newTraceId();
         log.error("Constraint violation: {}", e.getMessage());
         
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
             .body(new ErrorResponse("VALIDATION_ERROR", e.getMessage(), traceId));
     }
     
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponse> handlePreconditionFailedException(PreconditionFailedException e) {
+        String traceId = newTraceId();
+        log.warn("Precondition failed: {}", e.getMessage());
+        
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+            .body(new ErrorResponse("PRECONDITION_FAILED", e.getMessage(), traceId));
+    }
+    
+    @ExceptionHandler(RecordingInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleRecordingInProgressException(RecordingInProgressException e) {
+        String traceId = newTraceId();
+        log.warn("Recording rejected: {}", e.getMessage());
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+            .body(new ErrorResponse("RECORDING_IN_PROGRESS", e.getMessage(), traceId));
+    }
+    
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ErrorResponse> handleRuntimeException(RuntimeException e) {
-        String traceId = UUID.randomUUID().toString();
+        String traceId = newTraceId();
         log.error("Runtime error: {}", e.getMessage(), e);
         
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -73,11 +91,14 @@ public class GlobalExceptionHandler {
     
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception e) {
-        String traceId = UUID.randomUUID().toString();
+        String traceId = newTraceId();
         log.error("Unexpected error: {}", e.getMessage(), e);
         
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
             .body(new ErrorResponse("INTERNAL_ERROR", "An unexpected error occurred", traceId));
     }
+    
+    static String newTraceId() {
+        return UUID.randomUUID().toString();
+    }
 }
-
@@ -0,0 +1,11 @@
+package com.itcenter.auth.exception;
+
+/**
+ * Thrown when a flight recording is requested while another one is still running
+ */
+public class RecordingInProgressException extends RuntimeException {
+    
+    public RecordingInProgressException(String message) {
+        super(message);
+    }
+}
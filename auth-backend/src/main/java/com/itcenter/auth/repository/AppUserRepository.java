@@ -8,17 +8,17 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AppUserRepository extends JpaRepository<AppUser, Long> {
+public interface AppUserRepository extends JpaRepository<AppUser, Long>, AppUserRepositoryCustom {
     
     Optional<AppUser> findByEmail(String email);
     
     Optional<AppUser> findByEmailIgnoreCase(String email);
     
-    Optional<AppUser> findByCognitoSub(String cognitoSub);
-    
     @Query("SELECT u FROM AppUser u WHERE " +
            "u.isActive = true AND (" +
            "LOWER(u.email) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
@@ -28,6 +28,16 @@ public interface AppUserRepository extends JpaRepository<AppUser, Long> {
     @Query("SELECT u FROM AppUser u WHERE u.isActive = true")
     Page<AppUser> findAllActive(Pageable pageable);
     
+    /**
+     * Users with their roles in a single query; findAllById or a lookup per sub would select
+     * each user's roles separately
+     */
+    @Query("SELECT DISTINCT u FROM AppUser u LEFT JOIN FETCH u.roles WHERE u.id IN :ids")
+    List<AppUser> findAllWithRolesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT DISTINCT u FROM AppUser u LEFT JOIN FETCH u.roles WHERE u.cognitoSub IN :subs")
+    List<AppUser> findAllWithRolesByCognitoSubIn(@Param("subs") Collection<String> subs);
+    
     boolean existsByEmail(String email);
     
     boolean existsByCognitoSub(String cognitoSub);
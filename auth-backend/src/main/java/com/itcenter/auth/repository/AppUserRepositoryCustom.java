@@ -0,0 +1,14 @@
+package com.itcenter.auth.repository;
+
+import com.itcenter.auth.entity.AppUser;
+
+import java.util.Optional;
+
+/**
+ * Lookups that go through Hibernate's natural-id API so they can be served
+ * from the second-level cache instead of issuing a query
+ */
+public interface AppUserRepositoryCustom {
+    
+    Optional<AppUser> findByCognitoSub(String cognitoSub);
+}
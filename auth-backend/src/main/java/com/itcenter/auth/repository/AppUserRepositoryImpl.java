@@ -0,0 +1,33 @@
+package com.itcenter.auth.repository;
+
+import com.itcenter.auth.entity.AppUser;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public class AppUserRepositoryImpl implements AppUserRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    /**
+     * Resolves cognito_sub through the natural-id cache (auth.user.sub) and then the
+     * entity cache (auth.user), so a warm lookup does not touch the database.
+     * SUPPORTS keeps the unwrapped session open when called outside a transaction
+     * (e.g. from the JWT converter, which runs before open-in-view).
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<AppUser> findByCognitoSub(String cognitoSub) {
+        if (cognitoSub == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class)
+            .bySimpleNaturalId(AppUser.class)
+            .loadOptional(cognitoSub);
+    }
+}
@@ -3,8 +3,12 @@ package com.itcenter.auth.repository;
 import com.itcenter.auth.entity.LoginAudit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -21,5 +25,23 @@ public interface LoginAuditRepository extends JpaRepository<LoginAudit, Long> {
     long countByUserId(@Param("userId") Long userId);
     
     boolean existsByTokenJti(String tokenJti);
+    
+    /**
+     * Record a token-bound audit event in a single statement; a repeat of the same token id
+     * is absorbed by the uq_login_audit_jti partial unique index.
+     * Returns 1 if the row was inserted, 0 if the token id was already recorded.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "login_audit"))
+    @Query(value = "INSERT INTO login_audit (id, user_id, event_type, ip_address, user_agent, token_jti, created_at) " +
+                   "VALUES (nextval('login_audit_id_seq'), :userId, :eventType, :ipAddress, :userAgent, :tokenJti, " +
+                   "CURRENT_TIMESTAMP) " +
+                   "ON CONFLICT (token_jti) WHERE token_jti IS NOT NULL DO NOTHING",
+           nativeQuery = true)
+    int insertIfJtiAbsent(@Param("userId") Long userId,
+                          @Param("eventType") String eventType,
+                          @Param("ipAddress") String ipAddress,
+                          @Param("userAgent") String userAgent,
+                          @Param("tokenJti") String tokenJti);
 }
 
@@ -2,12 +2,16 @@ package com.itcenter.auth.repository;
 
 import com.itcenter.auth.entity.Role;
 import com.itcenter.auth.entity.UserRole;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -34,6 +38,38 @@ public interface UserRoleRepository extends JpaRepository<UserRole, Long> {
     @Query("DELETE FROM UserRole ur WHERE ur.user.id = :userId AND ur.role.id = :roleId")
     void deleteByUserIdAndRoleId(@Param("userId") Long userId, @Param("roleId") Long roleId);
     
+    /**
+     * Delete the given role assignments for a user in a single statement
+     */
+    @Modifying
+    @Query("DELETE FROM UserRole ur WHERE ur.user.id = :userId AND ur.role.id IN :roleIds")
+    int deleteByUserIdAndRoleIdIn(@Param("userId") Long userId, @Param("roleIds") Collection<Long> roleIds);
+    
+    /**
+     * Insert a single role assignment, leaving an existing (user_id, role_id) row untouched.
+     * The native space hint limits second-level cache invalidation to user_roles.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_roles"))
+    @Query(value = "INSERT INTO user_roles (id, user_id, role_id, assigned_at, assigned_by) " +
+                   "VALUES (nextval('user_roles_id_seq'), :userId, :roleId, CURRENT_TIMESTAMP, :assignedBy) " +
+                   "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("roleId") Long roleId,
+                       @Param("assignedBy") Long assignedBy);
+    
+    /**
+     * Insert several role assignments for a user in one statement, leaving existing
+     * (user_id, role_id) rows untouched. Returns the number of rows inserted.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_roles"))
+    @Query(value = "INSERT INTO user_roles (id, user_id, role_id, assigned_at, assigned_by) " +
+                   "SELECT nextval('user_roles_id_seq'), :userId, r.id, CURRENT_TIMESTAMP, :assignedBy " +
+                   "FROM roles r WHERE r.id IN (:roleIds) " +
+                   "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertAllIfAbsent(@Param("userId") Long userId, @Param("roleIds") Collection<Long> roleIds,
+                          @Param("assignedBy") Long assignedBy);
+    
     /**
      * Find all user roles with eager loading of related entities
      */
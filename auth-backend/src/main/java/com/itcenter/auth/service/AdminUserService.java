@@ -1,5 +1,6 @@
 package com.itcenter.auth.service;
 
+import com.itcenter.auth.entity.AppUser;
 import com.itcenter.auth.repository.AppUserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,6 +13,9 @@ import org.springframework.transaction.annotation.Transactional;
 public class AdminUserService {
 
     private final AppUserRepository userRepository;
+    private final UserValidatorCache validatorCache;
+    private final CacheInvalidationBus invalidationBus;
+    private final DeactivatedUserRegistry deactivatedUsers;
 
     /**
      * Permanently deletes a user and all related data.
@@ -22,14 +26,34 @@ public class AdminUserService {
      */
     @Transactional
     public void deleteUser(Long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new RuntimeException("User not found: " + userId);
-        }
+        AppUser user = userRepository.findById(userId)
+            .orElseThrow(() -> new RuntimeException("User not found: " + userId));
         
         log.info("Permanently deleting user ID: {}", userId);
-        userRepository.deleteById(userId);
+        userRepository.delete(user);
+        invalidationBus.publish(CacheInvalidationBus.UserChange.USER_DELETED, userId, user.getCognitoSub());
+        validatorCache.evictUser(userId, user.getCognitoSub());
+        deactivatedUsers.userDeleted(userId);
         log.info("User ID: {} has been permanently deleted along with all related data", userId);
     }
+    
+    /**
+     * Activate or deactivate a user. Deactivated users are kept (with their audit history)
+     * but rejected at authentication on every node.
+     */
+    @Transactional
+    public void setUserActive(Long userId, boolean active) {
+        AppUser user = userRepository.findById(userId)
+            .orElseThrow(() -> new RuntimeException("User not found: " + userId));
+        if (Boolean.valueOf(active).equals(user.getIsActive())) {
+            return;
+        }
+        
+        log.info("{} user ID: {}", active ? "Reactivating" : "Deactivating", userId);
+        user.setIsActive(active);
+        userRepository.save(user);
+        invalidationBus.publish(CacheInvalidationBus.UserChange.STATUS_CHANGED, userId, user.getCognitoSub());
+        validatorCache.evictUser(userId, user.getCognitoSub());
+        deactivatedUsers.statusChanged(userId, user.getCognitoSub(), active);
+    }
 }
-
-
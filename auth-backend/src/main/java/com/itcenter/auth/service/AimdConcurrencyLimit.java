@@ -0,0 +1,118 @@
+package com.itcenter.auth.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limit on requests in flight that adapts to their latency by additive increase and
+ * multiplicative decrease (AIMD).
+ *
+ * A request finishing within the latency threshold raises the limit by one; a slower one
+ * cuts it by the backoff ratio. As in TCP, the limit is cut at most once per round trip:
+ * requests that started before the last cut already ran under the old limit and do not cut
+ * it again. Once requests queue for a database connection, their latency grows with the
+ * number in flight, so the limit settles where queueing keeps latency at about the
+ * threshold. The limit only moves while at least half of it is in use: a slow request on a
+ * quiet node says nothing about load.
+ *
+ * Admission is a CAS on the in-flight count; updating the limit takes a lock, once per
+ * completed request.
+ */
+public class AimdConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long thresholdNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private volatile double limit;
+    // Guarded by this
+    private long lastBackoffNanos = Long.MIN_VALUE;
+
+    /**
+     * @param initialLimit   limit before any latency has been seen
+     * @param minLimit       floor the limit never drops below
+     * @param maxLimit       ceiling the limit never grows past
+     * @param thresholdNanos latency above which a request counts as a sign of overload
+     * @param backoffRatio   factor applied to the limit on a slow request, in (0, 1)
+     */
+    public AimdConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long thresholdNanos,
+                                double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max");
+        }
+        if (thresholdNanos <= 0) {
+            throw new IllegalArgumentException("Latency threshold must be positive");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be in (0, 1)");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.thresholdNanos = thresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Admit a request if fewer than {@code share} of the limit are in flight
+     *
+     * @return true if admitted; the caller must then call {@link #release(long, long)} or
+     *         {@link #release()}
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inflight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Complete an admitted request and adjust the limit by its latency
+     *
+     * @param startNanos {@link System#nanoTime()} when the request was admitted
+     * @param endNanos   {@link System#nanoTime()} when it completed
+     */
+    public void release(long startNanos, long endNanos) {
+        int inUse = inflight.getAndDecrement();
+        onSample(startNanos, endNanos, inUse);
+    }
+
+    /**
+     * Complete an admitted request without taking its latency as a sample, for requests
+     * whose latency says nothing about load (reports, exports)
+     */
+    public void release() {
+        inflight.decrementAndGet();
+    }
+
+    private synchronized void onSample(long startNanos, long endNanos, int inUse) {
+        double current = limit;
+        if (inUse < current / 2) {
+            return;
+        }
+        double next;
+        if (endNanos - startNanos <= thresholdNanos) {
+            next = current + 1;
+        } else if (lastBackoffNanos == Long.MIN_VALUE || startNanos - lastBackoffNanos >= 0) {
+            next = current * backoffRatio;
+            lastBackoffNanos = endNanos;
+        } else {
+            return;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+}
@@ -1,10 +1,13 @@
 package com.itcenter.auth.service;
 
+import com.itcenter.auth.config.AuthStageEvent;
 import com.itcenter.auth.dto.AuditEntryResponse;
 import com.itcenter.auth.entity.AppUser;
 import com.itcenter.auth.entity.LoginAudit;
 import com.itcenter.auth.repository.AppUserRepository;
 import com.itcenter.auth.repository.LoginAuditRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -15,6 +18,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -24,13 +28,20 @@ public class AuditService {
     
     private final LoginAuditRepository auditRepository;
     private final AppUserRepository userRepository;
+    private final MeterRegistry meterRegistry;
     
     @Transactional
     public void logEvent(Long userId, String eventType, String ipAddress, 
                         String userAgent, String metadata) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        AuthStageEvent event = AuthStageEvent.start(AuthStageEvent.AUDIT_WRITE);
+        String outcome = "error";
+        String sub = null;
         try {
+            AppUser user = userRepository.findById(userId).orElse(null);
+            sub = user != null ? user.getCognitoSub() : null;
             LoginAudit audit = LoginAudit.builder()
-                .user(userRepository.findById(userId).orElse(null))
+                .user(user)
                 .eventType(eventType)
                 .ipAddress(ipAddress)
                 .userAgent(userAgent)
@@ -38,10 +49,14 @@ public class AuditService {
                 .build();
             
             auditRepository.save(audit);
+            outcome = "success";
             
             log.info("Audit event logged: user_id={}, event_type={}", userId, eventType);
         } catch (Exception e) {
             log.error("Failed to log audit event", e);
+        } finally {
+            recordWrite(sample, eventType, outcome);
+            event.finish(sub, outcome);
         }
     }
     
@@ -52,6 +67,9 @@ public class AuditService {
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void logEvent(AppUser user, String eventType, String ipAddress, 
                         String userAgent, String metadata) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        AuthStageEvent event = AuthStageEvent.start(AuthStageEvent.AUDIT_WRITE);
+        String outcome = "error";
         try {
             LoginAudit audit = LoginAudit.builder()
                 .user(user)
@@ -62,13 +80,68 @@ public class AuditService {
                 .build();
             
             auditRepository.save(audit);
+            outcome = "success";
             
             log.info("Audit event logged: user={}, email={}, event_type={}", 
                 user.getId(), user.getEmail(), eventType);
         } catch (Exception e) {
             log.error("Failed to log audit event", e);
             // Don't rethrow - audit failures shouldn't break main flow
+        } finally {
+            recordWrite(sample, eventType, outcome);
+            event.finish(user != null ? user.getCognitoSub() : null, outcome);
+        }
+    }
+    
+    /**
+     * Writes several events for the same user in one transaction, so Hibernate sends the
+     * inserts as JDBC batches instead of one round trip (and one transaction) per event
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void logEvents(AppUser user, List<Event> events) {
+        if (events.isEmpty()) {
+            return;
         }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        AuthStageEvent event = AuthStageEvent.start(AuthStageEvent.AUDIT_WRITE);
+        String outcome = "error";
+        try {
+            List<LoginAudit> audits = events.stream()
+                .map(e -> LoginAudit.builder()
+                    .user(user)
+                    .eventType(e.eventType())
+                    .metadata(e.metadata())
+                    .build())
+                .toList();
+            
+            auditRepository.saveAll(audits);
+            outcome = "success";
+            
+            log.info("Audit events logged: user={}, count={}", user != null ? user.getId() : null, audits.size());
+        } catch (Exception e) {
+            log.error("Failed to log audit events", e);
+            // Don't rethrow - audit failures shouldn't break main flow
+        } finally {
+            String eventType = events.stream().map(Event::eventType).distinct().count() == 1
+                ? events.get(0).eventType() : "batch";
+            recordWrite(sample, eventType, outcome);
+            event.finish(user != null ? user.getCognitoSub() : null, outcome);
+        }
+    }
+    
+    /**
+     * One audit entry for logEvents
+     */
+    public record Event(String eventType, String metadata) {
+    }
+    
+    private void recordWrite(Timer.Sample sample, String eventType, String outcome) {
+        sample.stop(Timer.builder("auth.audit.write")
+            .description("Audit log inserts")
+            .tag("event", eventType != null ? eventType : "unknown")
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry));
     }
     
     /**
@@ -95,6 +168,7 @@ public class AuditService {
         return Optional.ofNullable(request.getRemoteAddr()).orElse("-");
     }
     
+    @Transactional(readOnly = true)
     public Page<AuditEntryResponse> getAuditLog(Long userId, String eventType,
                                                 LocalDateTime startDate, 
                                                 LocalDateTime endDate,
@@ -0,0 +1,71 @@
+package com.itcenter.auth.service;
+
+import com.itcenter.auth.config.AuthStageEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Consumes {@link AuthStageEvent}s from an in-process JFR event stream and records them
+ * as auth.stage.duration{stage, outcome}, so per-stage latency shows up on the same
+ * dashboards as everything else. Enabling the stream also enables the event, which then
+ * costs one commit per stage; events arrive about once a second, off the request thread.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.jfr", name = "streaming-enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class AuthStageMetrics implements SmartLifecycle {
+
+    private final MeterRegistry meterRegistry;
+
+    private volatile RecordingStream stream;
+
+    @Override
+    public void start() {
+        RecordingStream rs = new RecordingStream();
+        rs.enable(AuthStageEvent.NAME);
+        rs.setMaxAge(Duration.ofSeconds(10));
+        rs.onEvent(AuthStageEvent.NAME, this::record);
+        rs.onError(e -> log.warn("JFR auth stage stream failed: {}", e.getMessage()));
+        rs.startAsync();
+        stream = rs;
+        log.info("Streaming {} events into metrics", AuthStageEvent.NAME);
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream rs = stream;
+        stream = null;
+        if (rs != null) {
+            rs.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    void record(RecordedEvent event) {
+        Timer.builder("auth.stage.duration")
+            .description("Auth pipeline stage latency from JFR AuthStage events")
+            .tag("stage", valueOrUnknown(event.getString("stage")))
+            .tag("outcome", valueOrUnknown(event.getString("outcome")))
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(event.getDuration());
+    }
+
+    private static String valueOrUnknown(String value) {
+        return value != null ? value : "unknown";
+    }
+}
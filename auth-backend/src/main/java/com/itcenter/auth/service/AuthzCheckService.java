@@ -0,0 +1,109 @@
+package com.itcenter.auth.service;
+
+import com.itcenter.auth.dto.AuthzCheckRequest;
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.repository.AppUserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Answers batched "does this user hold this role" checks for other services from the
+ * same in-memory authorities JwtAuthConverter uses. Users not in memory are loaded once
+ * per batch (one query for the ids, one for the subs) and cached for the next call. Unknown and
+ * deactivated users hold no roles.
+ */
+@Service
+@Slf4j
+public class AuthzCheckService {
+
+    private final PrincipalAuthorityCache authorityCache;
+    private final DeactivatedUserRegistry deactivatedUsers;
+    private final AppUserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+    private final Counter checks;
+    private final Counter loads;
+
+    public AuthzCheckService(PrincipalAuthorityCache authorityCache, DeactivatedUserRegistry deactivatedUsers,
+                             AppUserRepository userRepository, MeterRegistry meterRegistry) {
+        this.authorityCache = authorityCache;
+        this.deactivatedUsers = deactivatedUsers;
+        this.userRepository = userRepository;
+        this.meterRegistry = meterRegistry;
+        this.checks = Counter.builder("auth.authz.checks")
+            .description("Role checks answered for other services")
+            .register(meterRegistry);
+        this.loads = Counter.builder("auth.authz.loads")
+            .description("Users loaded from the database for role checks")
+            .register(meterRegistry);
+    }
+
+    public boolean[] check(List<AuthzCheckRequest.Check> requested) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Map<String, PrincipalAuthorityCache.CachedPrincipal> bySub = new HashMap<>();
+            Map<Long, PrincipalAuthorityCache.CachedPrincipal> byId = new HashMap<>();
+            Set<Long> missingIds = new HashSet<>();
+            Set<String> missingSubs = new HashSet<>();
+            for (AuthzCheckRequest.Check check : requested) {
+                if (check.getUserId() != null) {
+                    if (!byId.containsKey(check.getUserId())) {
+                        PrincipalAuthorityCache.CachedPrincipal principal = authorityCache.getByUserId(check.getUserId());
+                        byId.put(check.getUserId(), principal);
+                        if (principal == null) {
+                            missingIds.add(check.getUserId());
+                        }
+                    }
+                } else if (!bySub.containsKey(check.getSub())) {
+                    PrincipalAuthorityCache.CachedPrincipal principal = authorityCache.get(check.getSub());
+                    bySub.put(check.getSub(), principal);
+                    if (principal == null) {
+                        missingSubs.add(check.getSub());
+                    }
+                }
+            }
+            if (!missingIds.isEmpty()) {
+                for (AppUser user : userRepository.findAllWithRolesByIdIn(missingIds)) {
+                    byId.put(user.getId(), load(user));
+                }
+            }
+            if (!missingSubs.isEmpty()) {
+                for (AppUser user : userRepository.findAllWithRolesByCognitoSubIn(missingSubs)) {
+                    bySub.put(user.getCognitoSub(), load(user));
+                }
+            }
+
+            boolean[] results = new boolean[requested.size()];
+            for (int i = 0; i < results.length; i++) {
+                AuthzCheckRequest.Check check = requested.get(i);
+                PrincipalAuthorityCache.CachedPrincipal principal = check.getUserId() != null
+                    ? byId.get(check.getUserId())
+                    : bySub.get(check.getSub());
+                results[i] = principal != null
+                    && !deactivatedUsers.isDenied(principal.userId())
+                    && principal.roleNames().contains(check.getRole().trim().toUpperCase(Locale.ROOT));
+            }
+            checks.increment(results.length);
+            return results;
+        } finally {
+            sample.stop(Timer.builder("auth.authz.check")
+                .description("Batched role checks")
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        }
+    }
+
+    private PrincipalAuthorityCache.CachedPrincipal load(AppUser user) {
+        loads.increment();
+        return authorityCache.put(user);
+    }
+}
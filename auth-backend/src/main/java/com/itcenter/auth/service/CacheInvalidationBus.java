@@ -0,0 +1,208 @@
+package com.itcenter.auth.service;
+
+import com.itcenter.auth.config.CacheInvalidationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cross-node invalidation of in-process user caches without an external broker.
+ *
+ * Writers call {@link #publish} inside their transaction; the event is sent with
+ * pg_notify, which Postgres only delivers once that transaction commits (and drops on
+ * rollback). Each node keeps one dedicated LISTEN connection ({@link PgNotificationListener})
+ * that feeds received payloads back into {@link #onNotification}, evicting the affected
+ * entries from every {@link LocalUserCache}. The publishing node keeps its own caches
+ * current directly, so events it sent itself are ignored; caches the writer does not
+ * update itself get {@link LocalUserCache#onLocalChange} once the transaction commits.
+ * Every node, the writer included, also learns who made the change through
+ * {@link LocalUserCache#onChangeBy}.
+ *
+ * Payload format (kept compact, well under the 8000 byte NOTIFY limit):
+ * {@code 2|<nodeId>|<change>|<userId>|<publishedAtMillis>|<actorSub>|<cognitoSub>}
+ * Version 1 payloads (no actor) from nodes not yet upgraded are still accepted.
+ */
+@Service
+@Slf4j
+public class CacheInvalidationBus {
+
+    private static final String VERSION = "2";
+    private static final String VERSION_WITHOUT_ACTOR = "1";
+
+    public enum UserChange {
+        PROFILE_UPDATED,
+        ROLES_CHANGED,
+        STATUS_CHANGED,
+        USER_DELETED,
+        LOGGED_IN
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationProperties properties;
+    private final List<LocalUserCache> caches;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicBoolean connected = new AtomicBoolean(false);
+
+    private final Counter published;
+    private final Counter malformed;
+    private final Timer lag;
+
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate,
+                                CacheInvalidationProperties properties,
+                                List<LocalUserCache> caches,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.caches = caches;
+        this.meterRegistry = meterRegistry;
+
+        this.published = Counter.builder("auth.cache.invalidation.published")
+            .description("Cache invalidation events sent with pg_notify")
+            .register(meterRegistry);
+        this.malformed = Counter.builder("auth.cache.invalidation.malformed")
+            .description("Notifications that could not be parsed")
+            .register(meterRegistry);
+        this.lag = Timer.builder("auth.cache.invalidation.lag")
+            .description("Time from publish on the writing node to eviction on this node")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        Gauge.builder("auth.cache.invalidation.connected", connected, c -> c.get() ? 1 : 0)
+            .description("1 while the LISTEN connection is established")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Announce a user change to the other nodes. Must be called inside the writing
+     * transaction so that the notification is only delivered if it commits.
+     */
+    public void publish(UserChange change, Long userId, String cognitoSub) {
+        if (userId == null) {
+            return;
+        }
+        String actorSub = currentSub();
+        notifyLocalCaches(userId, cognitoSub, actorSub);
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        String payload = String.join("|", VERSION, nodeId, change.name(), String.valueOf(userId),
+            String.valueOf(System.currentTimeMillis()), actorSub != null ? actorSub : "",
+            cognitoSub != null ? cognitoSub : "");
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, properties.getChannel(), payload);
+        published.increment();
+        log.debug("Published cache invalidation: {}", payload);
+    }
+
+    private void notifyLocalCaches(Long userId, String cognitoSub, String actorSub) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommitted(userId, cognitoSub, actorSub);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                onCommitted(userId, cognitoSub, actorSub);
+            }
+        });
+    }
+
+    private void onCommitted(Long userId, String cognitoSub, String actorSub) {
+        for (LocalUserCache cache : caches) {
+            cache.onLocalChange(userId, cognitoSub);
+            if (actorSub != null) {
+                cache.onChangeBy(actorSub);
+            }
+        }
+    }
+
+    private static String currentSub() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+
+    /**
+     * Handle a raw notification payload received on the LISTEN connection
+     */
+    public void onNotification(String payload) {
+        String[] parts = payload != null ? payload.split("\\|", 7) : new String[0];
+        boolean valid = (parts.length == 7 && VERSION.equals(parts[0]))
+            || (parts.length == 6 && VERSION_WITHOUT_ACTOR.equals(parts[0]));
+        if (!valid) {
+            malformed.increment();
+            log.warn("Ignoring malformed cache invalidation payload: {}", payload);
+            return;
+        }
+        if (nodeId.equals(parts[1])) {
+            return;
+        }
+
+        Long userId;
+        long publishedAt;
+        try {
+            userId = Long.valueOf(parts[3]);
+            publishedAt = Long.parseLong(parts[4]);
+        } catch (NumberFormatException e) {
+            malformed.increment();
+            log.warn("Ignoring malformed cache invalidation payload: {}", payload);
+            return;
+        }
+        String actorSub = parts.length == 7 && !parts[5].isEmpty() ? parts[5] : null;
+        String cognitoSub = parts[parts.length - 1].isEmpty() ? null : parts[parts.length - 1];
+
+        for (LocalUserCache cache : caches) {
+            cache.evictUser(userId, cognitoSub);
+            if (actorSub != null) {
+                cache.onChangeBy(actorSub);
+            }
+        }
+
+        // Clock skew between nodes can make this negative; record those as zero
+        lag.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - publishedAt)));
+        meterRegistry.counter("auth.cache.invalidation.received", "change", parts[2]).increment();
+        log.debug("Evicted user ID {} after {} from node {}", userId, parts[2], parts[1]);
+    }
+
+    /**
+     * Evict one user from the local caches of this node only, for a change found without
+     * a notification (see {@link PrincipalCacheReconciler})
+     */
+    public void evictLocally(Long userId, String cognitoSub) {
+        for (LocalUserCache cache : caches) {
+            cache.evictUser(userId, cognitoSub);
+        }
+    }
+
+    /**
+     * Drop every local cache entry. Used whenever events may have been missed,
+     * e.g. after the LISTEN connection was re-established.
+     */
+    public void flushAll(String reason) {
+        for (LocalUserCache cache : caches) {
+            cache.evictAll();
+        }
+        meterRegistry.counter("auth.cache.invalidation.flushes", "reason", reason).increment();
+        log.info("Flushed all local user caches ({})", reason);
+    }
+
+    void setConnected(boolean value) {
+        connected.set(value);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,174 @@
+package com.itcenter.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory deny set of deactivated users (is_active = false), consulted by
+ * JwtAuthConverter before any database access.
+ *
+ * Loaded in full at startup and whenever the invalidation bus reports that events may
+ * have been missed. The writing node applies its own changes after commit; changes made
+ * on other nodes arrive as bus events, after which the user's status is re-read.
+ */
+@Component
+@Slf4j
+public class DeactivatedUserRegistry implements LocalUserCache, SmartLifecycle {
+
+    private static final String INACTIVE_SQL = "SELECT id, cognito_sub FROM app_users WHERE is_active = false";
+    private static final String STATUS_SQL = "SELECT cognito_sub, is_active FROM app_users WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    /** Deactivated user id -> cognito sub */
+    private final Map<Long, String> subById = new ConcurrentHashMap<>();
+    private final Set<String> deniedSubs = ConcurrentHashMap.newKeySet();
+    private final Counter rejections;
+    private volatile boolean running;
+
+    public DeactivatedUserRegistry(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rejections = Counter.builder("auth.deactivated.rejections")
+            .description("Requests rejected because the user is deactivated")
+            .register(meterRegistry);
+        Gauge.builder("auth.deactivated.users", deniedSubs, Set::size)
+            .description("Deactivated users held in the deny set")
+            .register(meterRegistry);
+    }
+
+    public boolean isDenied(String sub) {
+        if (sub != null && deniedSubs.contains(sub)) {
+            rejections.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public boolean isDenied(Long userId) {
+        return userId != null && subById.containsKey(userId);
+    }
+
+    /**
+     * Record a status change made in the current transaction; applied once it commits
+     */
+    public void statusChanged(Long userId, String cognitoSub, boolean active) {
+        runAfterCommit(() -> apply(userId, cognitoSub, active));
+    }
+
+    /**
+     * Forget a user removed in the current transaction; applied once it commits
+     */
+    public void userDeleted(Long userId) {
+        runAfterCommit(() -> remove(userId));
+    }
+
+    /**
+     * Replace the deny set with the current database state
+     */
+    public void reload() {
+        try {
+            Map<Long, String> inactive = new HashMap<>();
+            jdbcTemplate.query(INACTIVE_SQL, rs -> {
+                inactive.put(rs.getLong(1), rs.getString(2));
+            });
+            // Add before removing, so nobody deactivated is let through mid-reload
+            inactive.forEach((userId, sub) -> apply(userId, sub, false));
+            for (Long userId : List.copyOf(subById.keySet())) {
+                if (!inactive.containsKey(userId)) {
+                    remove(userId);
+                }
+            }
+            log.info("Loaded {} deactivated users into the deny set", inactive.size());
+        } catch (DataAccessException e) {
+            log.warn("Could not load deactivated users: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Another node changed this user: re-read its status
+     */
+    @Override
+    public void evictUser(Long userId, String cognitoSub) {
+        if (userId == null) {
+            return;
+        }
+        try {
+            List<Map.Entry<String, Boolean>> rows = jdbcTemplate.query(STATUS_SQL,
+                (rs, rowNum) -> Map.entry(rs.getString(1), rs.getBoolean(2)), userId);
+            if (rows.isEmpty()) {
+                remove(userId);
+            } else {
+                apply(userId, rows.get(0).getKey(), rows.get(0).getValue());
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not refresh status of user ID {}: {}", userId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void evictAll() {
+        reload();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        reload();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int size() {
+        return deniedSubs.size();
+    }
+
+    private void apply(Long userId, String cognitoSub, boolean active) {
+        if (active) {
+            remove(userId);
+        } else if (cognitoSub != null) {
+            subById.put(userId, cognitoSub);
+            deniedSubs.add(cognitoSub);
+        }
+    }
+
+    private void remove(Long userId) {
+        String sub = subById.remove(userId);
+        if (sub != null) {
+            deniedSubs.remove(sub);
+        }
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package com.itcenter.auth.service;
+
+import com.itcenter.auth.config.AuthStageEvent;
+import com.itcenter.auth.config.FlightRecorderProperties;
+import com.itcenter.auth.exception.RecordingInProgressException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs bounded, on-demand JDK Flight Recorder recordings for admins.
+ * Only one recording runs at a time; the JFC settings are {@code app.jfr.settings}
+ * with {@link AuthStageEvent} enabled on top and {@link #SENSITIVE_EVENTS} disabled.
+ * Admin-only, so created on first use.
+ */
+@Service
+@Lazy
+@RequiredArgsConstructor
+@Slf4j
+public class FlightRecorderService {
+
+    /**
+     * Events in the stock JFC settings that would hand the process environment, system
+     * properties and command lines (database password, client secrets) to whoever downloads
+     * the recording
+     */
+    static final List<String> SENSITIVE_EVENTS = List.of(
+        "jdk.InitialEnvironmentVariable",
+        "jdk.InitialSystemProperty",
+        "jdk.JVMInformation",
+        "jdk.SystemProcess");
+
+    private final FlightRecorderProperties properties;
+    private final AtomicBoolean recording = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("flight-recording").daemon(true).factory());
+
+    /**
+     * Start a recording for the requested duration (capped at {@code app.jfr.max-duration}).
+     * The future completes with the .jfr file once the recording has stopped; no thread
+     * waits in the meantime. The caller owns the file and must delete it.
+     */
+    public CompletableFuture<Path> record(Duration requested) throws IOException {
+        Duration duration = clamp(requested);
+        if (!recording.compareAndSet(false, true)) {
+            throw new RecordingInProgressException("A flight recording is already running");
+        }
+        Recording jfr;
+        try {
+            jfr = new Recording(Configuration.getConfiguration(properties.getSettings()));
+        } catch (ParseException e) {
+            recording.set(false);
+            throw new IllegalStateException("Invalid JFR settings: " + properties.getSettings(), e);
+        } catch (IOException | RuntimeException e) {
+            recording.set(false);
+            throw e;
+        }
+        CompletableFuture<Path> result = new CompletableFuture<>();
+        try {
+            jfr.setName("auth-admin");
+            jfr.enable(AuthStageEvent.NAME);
+            SENSITIVE_EVENTS.forEach(jfr::disable);
+            log.info("Starting {} flight recording ({} settings)", duration, properties.getSettings());
+            jfr.start();
+            scheduler.schedule(() -> finish(jfr, result), duration.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            jfr.close();
+            recording.set(false);
+            throw e;
+        }
+        return result;
+    }
+
+    private void finish(Recording jfr, CompletableFuture<Path> result) {
+        Path file = null;
+        try (jfr) {
+            jfr.stop();
+            file = Files.createTempFile("auth-", ".jfr");
+            jfr.dump(file);
+            result.complete(file);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(file);
+            result.completeExceptionally(e);
+        } finally {
+            recording.set(false);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete flight recording {}", file, e);
+        }
+    }
+
+    private Duration clamp(Duration requested) {
+        if (requested == null || requested.isZero() || requested.isNegative()) {
+            return properties.getDefaultDuration();
+        }
+        return requested.compareTo(properties.getMaxDuration()) > 0 ? properties.getMaxDuration() : requested;
+    }
+}
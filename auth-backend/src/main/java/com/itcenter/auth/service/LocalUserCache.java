@@ -0,0 +1,28 @@
+package com.itcenter.auth.service;
+
+/**
+ * An in-process cache holding per-user state (validators, authorities, ...).
+ * Implementations are evicted by {@link CacheInvalidationBus} when another node
+ * changes a user, and fully flushed when change events may have been missed.
+ */
+public interface LocalUserCache {
+    
+    void evictUser(Long userId, String cognitoSub);
+    
+    void evictAll();
+    
+    /**
+     * Called on the writing node once a change published through the bus has committed.
+     * Caches that the writer does not update directly evict here; the default does nothing.
+     */
+    default void onLocalChange(Long userId, String cognitoSub) {
+    }
+    
+    /**
+     * Called on every node once a change made by the given caller (their sub) has committed:
+     * with {@link #onLocalChange} on the writing node, on notification on the others.
+     * The default does nothing.
+     */
+    default void onChangeBy(String actorSub) {
+    }
+}
@@ -0,0 +1,143 @@
+package com.itcenter.auth.service;
+
+import com.itcenter.auth.config.CacheInvalidationProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Holds one dedicated (non-pooled) Postgres connection per node that LISTENs on the
+ * cache invalidation channel and hands every notification to {@link CacheInvalidationBus}.
+ *
+ * Notifications sent while the connection is down are lost, so every (re)connect
+ * starts with a full flush of the local caches before listening again. A reconnect also
+ * has {@link PrincipalCacheReconciler} check the principal snapshot, which is not flushed.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.cache-invalidation", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class PgNotificationListener implements SmartLifecycle {
+
+    private final DataSourceProperties dataSourceProperties;
+    private final CacheInvalidationProperties properties;
+    private final CacheInvalidationBus bus;
+    private final PrincipalCacheReconciler reconciler;
+
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread worker;
+
+    @Override
+    public void start() {
+        if (!properties.getChannel().matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalStateException("Invalid cache invalidation channel: " + properties.getChannel());
+        }
+        running = true;
+        worker = Thread.ofPlatform()
+            .name("cache-invalidation-listener")
+            .daemon(true)
+            .start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        closeQuietly(connection);
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        boolean firstConnect = true;
+        while (running) {
+            try (Connection conn = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                connection = conn;
+                try (Statement statement = conn.createStatement()) {
+                    statement.execute("LISTEN " + properties.getChannel());
+                }
+                bus.setConnected(true);
+                log.info("Listening for cache invalidations on channel '{}' (node {})",
+                    properties.getChannel(), bus.getNodeId());
+
+                // Anything published while we were not listening is gone: start from a clean slate
+                bus.flushAll(firstConnect ? "startup" : "reconnect");
+                if (!firstConnect) {
+                    reconciler.requestReconcile();
+                }
+                firstConnect = false;
+
+                listen(conn);
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Cache invalidation listener connection failed: {}", e.getMessage());
+                }
+            } finally {
+                bus.setConnected(false);
+                connection = null;
+            }
+
+            if (running) {
+                try {
+                    Thread.sleep(properties.getReconnectDelay().toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void listen(Connection conn) throws SQLException {
+        PGConnection pgConnection = conn.unwrap(PGConnection.class);
+        int pollTimeoutMillis = (int) properties.getPollTimeout().toMillis();
+        long keepAliveNanos = properties.getKeepAliveInterval().toNanos();
+        long lastActivity = System.nanoTime();
+
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMillis);
+            if (notifications != null && notifications.length > 0) {
+                for (PGNotification notification : notifications) {
+                    try {
+                        bus.onNotification(notification.getParameter());
+                    } catch (RuntimeException e) {
+                        log.error("Failed to apply cache invalidation '{}'", notification.getParameter(), e);
+                    }
+                }
+                lastActivity = System.nanoTime();
+            } else if (System.nanoTime() - lastActivity > keepAliveNanos) {
+                // A silent channel gives no signal about a dead socket, so probe it
+                try (Statement statement = conn.createStatement()) {
+                    statement.execute("SELECT 1");
+                }
+                lastActivity = System.nanoTime();
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.close();
+        } catch (SQLException ignored) { }
+    }
+}
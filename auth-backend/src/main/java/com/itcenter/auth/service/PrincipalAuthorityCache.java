@@ -0,0 +1,237 @@
+package com.itcenter.auth.service;
+
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.entity.Role;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory cache of the authorities (role names) for each Cognito sub, consulted by
+ * JwtAuthConverter before the database.
+ *
+ * Entries live in a map keyed by sub. Behind it an optional memory-mapped
+ * {@link PrincipalSnapshot} left by a previous run answers lookups for subs not seen yet,
+ * so a freshly started node does not hit the database for every active user. Snapshot
+ * entries are served as-is until {@link PrincipalSnapshotManager} has checked them against
+ * the database; users that changed since are marked diverged and go back to the DB.
+ *
+ * Entries are evicted through the invalidation bus. Changes the bus never reports (bus
+ * disabled, a missed NOTIFY, roles edited with SQL) are caught by
+ * {@link PrincipalCacheReconciler}, which compares the cache with the database periodically.
+ */
+@Component
+@Slf4j
+public class PrincipalAuthorityCache implements LocalUserCache {
+
+    public record CachedPrincipal(Long userId, List<Long> roleIds, List<String> roleNames) { }
+
+    private final ConcurrentMap<String, CachedPrincipal> principals = new ConcurrentHashMap<>();
+    /** User id -> sub of the in-memory entries; the snapshot is only searchable by sub */
+    private final ConcurrentMap<Long, String> subsByUserId = new ConcurrentHashMap<>();
+    private final Set<Long> diverged = ConcurrentHashMap.newKeySet();
+    private volatile PrincipalSnapshot snapshot;
+
+    private final Counter liveHits;
+    private final Counter snapshotHits;
+    private final Counter misses;
+
+    public PrincipalAuthorityCache(MeterRegistry meterRegistry) {
+        this.liveHits = lookups(meterRegistry, "live");
+        this.snapshotHits = lookups(meterRegistry, "snapshot");
+        this.misses = lookups(meterRegistry, "miss");
+        Gauge.builder("auth.principal.cache.size", principals, Map::size)
+            .description("Principals held in memory")
+            .register(meterRegistry);
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("auth.principal.cache.lookups")
+            .tag("source", source)
+            .description("Principal authority lookups by where they were answered")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Cached authorities for a sub, or null if the caller has to load the user
+     */
+    public CachedPrincipal get(String sub) {
+        CachedPrincipal principal = principals.get(sub);
+        if (principal != null) {
+            liveHits.increment();
+            return principal;
+        }
+
+        PrincipalSnapshot current = snapshot;
+        PrincipalSnapshot.Entry entry = current != null ? current.find(PrincipalSnapshot.hashSub(sub)) : null;
+        if (entry != null && !diverged.contains(entry.userId())) {
+            List<PrincipalSnapshot.RoleRef> roles = current.rolesOf(entry.roleBits());
+            principal = new CachedPrincipal(entry.userId(),
+                roles.stream().map(PrincipalSnapshot.RoleRef::id).toList(),
+                roles.stream().map(PrincipalSnapshot.RoleRef::name).toList());
+            principals.putIfAbsent(sub, principal);
+            subsByUserId.put(entry.userId(), sub);
+            // Lost a race with evictUser: do not keep what we just promoted
+            if (diverged.contains(entry.userId())) {
+                principals.remove(sub, principal);
+            }
+            snapshotHits.increment();
+            return principal;
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Cache the authorities of a user freshly loaded from the database
+     */
+    public CachedPrincipal put(AppUser user) {
+        List<Role> roles = user.getRoles() == null ? List.of() : user.getRoles().stream()
+            .filter(Objects::nonNull)
+            .sorted(Comparator.comparing(Role::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+            .toList();
+        CachedPrincipal principal = new CachedPrincipal(user.getId(),
+            roles.stream().map(Role::getId).toList(),
+            roles.stream().map(Role::getName).toList());
+        principals.put(user.getCognitoSub(), principal);
+        if (user.getId() != null) {
+            subsByUserId.put(user.getId(), user.getCognitoSub());
+        }
+        return principal;
+    }
+    
+    /**
+     * Cached authorities for a user id, or null if the caller has to load the user.
+     * Only in-memory entries are found this way, not the snapshot.
+     */
+    public CachedPrincipal getByUserId(Long userId) {
+        String sub = subsByUserId.get(userId);
+        CachedPrincipal principal = sub != null ? principals.get(sub) : null;
+        if (principal != null && userId.equals(principal.userId())) {
+            liveHits.increment();
+            return principal;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Mark the snapshot entries that no longer match the current role assignments
+     * (user id -> role ids) as diverged
+     *
+     * @return the number of entries marked
+     */
+    public int checkSnapshot(Map<Long, Set<Long>> currentRoles) {
+        PrincipalSnapshot current = snapshot;
+        if (current == null) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = 0; i < current.size(); i++) {
+            PrincipalSnapshot.Entry entry = current.entryAt(i);
+            Set<Long> roleIds = currentRoles.get(entry.userId());
+            if (roleIds == null || current.roleBits(roleIds) != entry.roleBits()) {
+                markDiverged(entry.userId());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Use a snapshot for subs that are not in memory yet
+     */
+    public void installSnapshot(PrincipalSnapshot newSnapshot) {
+        diverged.clear();
+        snapshot = newSnapshot;
+    }
+
+    public void dropSnapshot() {
+        snapshot = null;
+        diverged.clear();
+    }
+
+    public PrincipalSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Stop serving a user from the snapshot (and from memory) until it is reloaded
+     */
+    public void markDiverged(Long userId) {
+        // Only ids the snapshot may still answer for are kept; the set goes with the snapshot
+        if (snapshot != null) {
+            diverged.add(userId);
+        }
+        evictFromMemory(userId);
+    }
+
+    private void evictFromMemory(Long userId) {
+        String sub = subsByUserId.remove(userId);
+        if (sub != null) {
+            principals.remove(sub);
+        }
+    }
+
+    public boolean isDiverged(Long userId) {
+        return diverged.contains(userId);
+    }
+
+    /**
+     * Entries currently held in memory, keyed by sub
+     */
+    public Map<String, CachedPrincipal> entries() {
+        return Map.copyOf(principals);
+    }
+
+    @Override
+    public void evictUser(Long userId, String cognitoSub) {
+        if (userId != null) {
+            // A user the snapshot does not hold needs no diverged mark
+            if (cognitoSub != null && !inSnapshot(cognitoSub)) {
+                evictFromMemory(userId);
+            } else {
+                markDiverged(userId);
+            }
+        }
+        if (cognitoSub != null) {
+            principals.remove(cognitoSub);
+        }
+        log.debug("Evicted principal for user ID: {}", userId);
+    }
+
+    /**
+     * Change events may have been missed. The in-memory entries are dropped; the snapshot
+     * stays in use until the next database check repairs it.
+     */
+    @Override
+    public void evictAll() {
+        principals.clear();
+        subsByUserId.clear();
+    }
+
+    private boolean inSnapshot(String sub) {
+        PrincipalSnapshot current = snapshot;
+        return current != null && current.find(PrincipalSnapshot.hashSub(sub)) != null;
+    }
+
+    @Override
+    public void onLocalChange(Long userId, String cognitoSub) {
+        evictUser(userId, cognitoSub);
+    }
+
+    public int size() {
+        return principals.size();
+    }
+}
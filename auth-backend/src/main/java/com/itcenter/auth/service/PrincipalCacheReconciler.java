@@ -0,0 +1,134 @@
+package com.itcenter.auth.service;
+
+import com.itcenter.auth.config.PrincipalCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link PrincipalAuthorityCache} with app_users/user_roles.
+ *
+ * Cached principals never expire on their own; they are evicted by the invalidation bus.
+ * A change the bus does not report (bus disabled, a missed NOTIFY, roles edited with SQL)
+ * would otherwise be served until restart. Each pass reads every user's role ids in one
+ * query and evicts the users whose cached roles no longer match from all local caches,
+ * the second-level cache included, so the next request reloads them from the database.
+ * Snapshot entries that no longer match are marked diverged.
+ *
+ * A pass scans both tables, so it runs rarely: on a long interval as a safety net, and
+ * whenever {@link PgNotificationListener} reconnects, since notifications sent while it
+ * was away are lost.
+ */
+@Component
+@Slf4j
+public class PrincipalCacheReconciler implements SmartLifecycle {
+
+    private static final String CURRENT_ROLES_SQL =
+        "SELECT u.id, ur.role_id FROM app_users u LEFT JOIN user_roles ur ON ur.user_id = u.id";
+
+    private final PrincipalCacheProperties properties;
+    private final PrincipalAuthorityCache cache;
+    private final CacheInvalidationBus invalidationBus;
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter evicted;
+
+    private volatile boolean running;
+    private volatile ScheduledExecutorService executor;
+
+    public PrincipalCacheReconciler(PrincipalCacheProperties properties,
+                                    PrincipalAuthorityCache cache,
+                                    CacheInvalidationBus invalidationBus,
+                                    JdbcTemplate jdbcTemplate,
+                                    MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = cache;
+        this.invalidationBus = invalidationBus;
+        this.jdbcTemplate = jdbcTemplate;
+        this.evicted = Counter.builder("auth.principal.cache.reconciled")
+            .description("Cached principals found out of date by the periodic database check")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Role ids of every user, keyed by user id; users without roles map to an empty set
+     */
+    public static Map<Long, Set<Long>> loadRoleAssignments(JdbcTemplate jdbcTemplate) {
+        Map<Long, Set<Long>> current = new HashMap<>();
+        jdbcTemplate.query(CURRENT_ROLES_SQL, rs -> {
+            Set<Long> roleIds = current.computeIfAbsent(rs.getLong(1), id -> new HashSet<>());
+            long roleId = rs.getLong(2);
+            if (!rs.wasNull()) {
+                roleIds.add(roleId);
+            }
+        });
+        return current;
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("principal-reconcile").daemon(true).factory());
+        running = true;
+        long interval = properties.getReconcileInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::reconcile, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Run a pass soon on the reconcile thread, e.g. after notifications may have been missed
+     */
+    public void requestReconcile() {
+        ScheduledExecutorService current = executor;
+        if (running && current != null) {
+            current.execute(this::reconcile);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Evict every cached principal whose roles differ from the database
+     */
+    public void reconcile() {
+        try {
+            Map<Long, Set<Long>> current = loadRoleAssignments(jdbcTemplate);
+            int count = 0;
+            for (Map.Entry<String, PrincipalAuthorityCache.CachedPrincipal> entry : cache.entries().entrySet()) {
+                PrincipalAuthorityCache.CachedPrincipal principal = entry.getValue();
+                Set<Long> roleIds = current.get(principal.userId());
+                if (roleIds == null || !roleIds.equals(Set.copyOf(principal.roleIds()))) {
+                    invalidationBus.evictLocally(principal.userId(), entry.getKey());
+                    count++;
+                }
+            }
+            count += cache.checkSnapshot(current);
+            evicted.increment(count);
+            if (count > 0) {
+                log.info("Evicted {} cached principals whose roles changed without a notification", count);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Principal cache check failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.itcenter.auth.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Read-only, memory-mapped snapshot of principal authorities.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * header   int magic "PSNP", short format, short roleCount, long createdAtMillis, int entryCount
+ * roles    roleCount x (long roleId, short nameLength, UTF-8 name)
+ * entries  entryCount x (long subHash, long userId, long roleBits), sorted by subHash
+ * </pre>
+ * Bit {@code i} of roleBits refers to the i-th role of the registry. Subs are stored as the
+ * first 8 bytes of their SHA-256, so the file holds no identifiers from the JWT itself.
+ * Lookups binary-search the mapped entries directly; nothing is deserialized up front.
+ *
+ * The snapshot decides who is ADMIN until the database check has run, so on POSIX file
+ * systems the file and its directory must belong to the service account and must not be
+ * writable by anyone else. The directory is created owner-only; a snapshot that fails
+ * these checks is neither mapped nor overwritten.
+ */
+public final class PrincipalSnapshot {
+
+    static final int MAGIC = 0x50534E50;
+    static final short FORMAT = 1;
+    /** The sign bit is kept free so -1 can mean "unknown role" */
+    static final int MAX_ROLES = Long.SIZE - 1;
+    private static final int ENTRY_BYTES = 3 * Long.BYTES;
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> WRITABLE_BY_OTHERS =
+        Set.of(PosixFilePermission.GROUP_WRITE, PosixFilePermission.OTHERS_WRITE);
+
+    public record Entry(long subHash, long userId, long roleBits) { }
+
+    public record RoleRef(long id, String name) { }
+
+    private final ByteBuffer buffer;
+    private final long createdAt;
+    private final List<RoleRef> roles;
+    private final int entriesOffset;
+    private final int entryCount;
+
+    private PrincipalSnapshot(ByteBuffer buffer, long createdAt, List<RoleRef> roles, int entriesOffset, int entryCount) {
+        this.buffer = buffer;
+        this.createdAt = createdAt;
+        this.roles = roles;
+        this.entriesOffset = entriesOffset;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Map a snapshot file, validating the header and that the file is complete
+     */
+    public static PrincipalSnapshot open(Path path) throws IOException {
+        checkPrivate(path.toAbsolutePath().getParent());
+        checkPrivate(path);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, LinkOption.NOFOLLOW_LINKS)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getShort() != FORMAT) {
+                throw new IOException("Not a principal snapshot (or unsupported format): " + path);
+            }
+            int roleCount = buffer.getShort();
+            long createdAt = buffer.getLong();
+            int entryCount = buffer.getInt();
+
+            List<RoleRef> roles = new ArrayList<>(roleCount);
+            for (int i = 0; i < roleCount; i++) {
+                long id = buffer.getLong();
+                byte[] name = new byte[buffer.getShort()];
+                buffer.get(name);
+                roles.add(new RoleRef(id, new String(name, StandardCharsets.UTF_8)));
+            }
+
+            int entriesOffset = buffer.position();
+            if (roleCount < 0 || roleCount > MAX_ROLES || entryCount < 0
+                    || buffer.limit() - entriesOffset != (long) entryCount * ENTRY_BYTES) {
+                throw new IOException("Truncated or corrupt principal snapshot: " + path);
+            }
+            return new PrincipalSnapshot(buffer, createdAt, List.copyOf(roles), entriesOffset, entryCount);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt principal snapshot: " + path, e);
+        }
+    }
+
+    /**
+     * Write a snapshot atomically (temp file + rename), so readers never see a partial file.
+     * The order of {@code roles} defines the bit positions used by the entries.
+     * Entries whose sub hashes collide are dropped; those users are simply looked up in the DB.
+     */
+    public static void write(Path path, long createdAt, List<RoleRef> roles, Collection<Entry> entries) throws IOException {
+        if (roles.size() > MAX_ROLES) {
+            throw new IllegalArgumentException("At most " + MAX_ROLES + " roles fit in a snapshot bitset");
+        }
+        List<Entry> sorted = uniqueByHash(entries);
+
+        int rolesBytes = 0;
+        List<byte[]> names = new ArrayList<>(roles.size());
+        for (RoleRef role : roles) {
+            byte[] name = role.name().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            rolesBytes += Long.BYTES + Short.BYTES + name.length;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(Integer.BYTES + 2 * Short.BYTES + Long.BYTES + Integer.BYTES
+            + rolesBytes + sorted.size() * ENTRY_BYTES);
+        out.putInt(MAGIC).putShort(FORMAT).putShort((short) roles.size()).putLong(createdAt).putInt(sorted.size());
+        for (int i = 0; i < roles.size(); i++) {
+            out.putLong(roles.get(i).id()).putShort((short) names.get(i).length).put(names.get(i));
+        }
+        for (Entry entry : sorted) {
+            out.putLong(entry.subHash()).putLong(entry.userId()).putLong(entry.roleBits());
+        }
+        out.flip();
+
+        Path parent = path.toAbsolutePath().getParent();
+        createPrivateDirectories(parent);
+        checkPrivate(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void createPrivateDirectories(Path directory) throws IOException {
+        if (Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        if (isPosix(directory)) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+        } else {
+            Files.createDirectories(directory);
+        }
+    }
+
+    /**
+     * Refuse a file or directory (not followed if a link) that is owned by another account
+     * or writable by group or others. Only enforced on POSIX file systems.
+     */
+    static void checkPrivate(Path path) throws IOException {
+        if (!isPosix(path)) {
+            return;
+        }
+        PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+        PosixFileAttributes attributes = view.readAttributes();
+        UserPrincipal serviceAccount = path.getFileSystem().getUserPrincipalLookupService()
+            .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!attributes.owner().equals(serviceAccount)) {
+            throw new IOException(path + " is owned by " + attributes.owner().getName() + ", not " + serviceAccount.getName());
+        }
+        if (attributes.isSymbolicLink() || attributes.permissions().stream().anyMatch(WRITABLE_BY_OTHERS::contains)) {
+            throw new IOException(path + " is a link or writable by other accounts");
+        }
+    }
+
+    private static boolean isPosix(Path path) {
+        return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    /**
+     * Stable 64-bit key for a Cognito sub
+     */
+    public static long hashSub(String sub) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sub.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Binary search for a sub hash; returns null when absent
+     */
+    public Entry find(long subHash) {
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midHash = buffer.getLong(entryOffset(mid));
+            if (midHash < subHash) {
+                low = mid + 1;
+            } else if (midHash > subHash) {
+                high = mid - 1;
+            } else {
+                return entryAt(mid);
+            }
+        }
+        return null;
+    }
+
+    public Entry entryAt(int index) {
+        int offset = entryOffset(index);
+        return new Entry(buffer.getLong(offset), buffer.getLong(offset + Long.BYTES), buffer.getLong(offset + 2 * Long.BYTES));
+    }
+
+    /**
+     * Roles for a bitset, in registry order
+     */
+    public List<RoleRef> rolesOf(long roleBits) {
+        List<RoleRef> result = new ArrayList<>(Long.bitCount(roleBits));
+        for (int i = 0; i < roles.size(); i++) {
+            if ((roleBits & (1L << i)) != 0) {
+                result.add(roles.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Bitset for a set of role ids against this snapshot's registry, or -1 if a role is unknown
+     */
+    public long roleBits(Collection<Long> roleIds) {
+        return roleBits(roles, roleIds);
+    }
+
+    static long roleBits(List<RoleRef> registry, Collection<Long> roleIds) {
+        long bits = 0;
+        for (Long roleId : roleIds) {
+            int index = indexOf(registry, roleId);
+            if (index < 0) {
+                return -1;
+            }
+            bits |= 1L << index;
+        }
+        return bits;
+    }
+
+    private static int indexOf(List<RoleRef> registry, Long roleId) {
+        for (int i = 0; i < registry.size(); i++) {
+            if (registry.get(i).id() == roleId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<RoleRef> getRoles() {
+        return roles;
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    private int entryOffset(int index) {
+        return entriesOffset + index * ENTRY_BYTES;
+    }
+
+    private static List<Entry> uniqueByHash(Collection<Entry> entries) {
+        List<Entry> sorted = entries.stream().sorted(Comparator.comparingLong(Entry::subHash)).toList();
+        List<Entry> unique = new ArrayList<>(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            long hash = sorted.get(i).subHash();
+            boolean collides = (i > 0 && sorted.get(i - 1).subHash() == hash)
+                || (i + 1 < sorted.size() && sorted.get(i + 1).subHash() == hash);
+            if (!collides) {
+                unique.add(sorted.get(i));
+            }
+        }
+        return unique;
+    }
+}
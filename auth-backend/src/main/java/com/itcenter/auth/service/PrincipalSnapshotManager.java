@@ -0,0 +1,226 @@
+package com.itcenter.auth.service;
+
+import com.itcenter.auth.config.PrincipalSnapshotProperties;
+import com.itcenter.auth.entity.Role;
+import com.itcenter.auth.repository.RoleRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists {@link PrincipalAuthorityCache} to a memory-mapped {@link PrincipalSnapshot}
+ * so that restarted nodes come up warm.
+ *
+ * On start the previous snapshot (if present and younger than max-age) is mapped and
+ * handed to the cache immediately. A background pass then compares every snapshot
+ * entry with app_users/user_roles and marks users that were deleted or whose roles
+ * changed as diverged. The same pass runs again whenever the invalidation bus reports
+ * that change events may have been missed. The snapshot is rewritten periodically and
+ * on shutdown from the in-memory entries plus the still-valid snapshot entries.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.principal-snapshot", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class PrincipalSnapshotManager implements SmartLifecycle, LocalUserCache {
+
+    private final PrincipalSnapshotProperties properties;
+    private final PrincipalAuthorityCache cache;
+    private final RoleRepository roleRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Counter repaired;
+    private final Counter writes;
+    private final Counter writeFailures;
+
+    private volatile boolean running;
+    /** Whether the snapshot in use has passed a database check since it was mapped or last flushed */
+    private volatile boolean verified;
+    private ScheduledExecutorService executor;
+
+    public PrincipalSnapshotManager(PrincipalSnapshotProperties properties,
+                                    PrincipalAuthorityCache cache,
+                                    RoleRepository roleRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = cache;
+        this.roleRepository = roleRepository;
+        this.jdbcTemplate = jdbcTemplate;
+
+        this.repaired = Counter.builder("auth.principal.snapshot.repaired")
+            .description("Snapshot entries found out of date by the database check")
+            .register(meterRegistry);
+        this.writes = Counter.builder("auth.principal.snapshot.writes")
+            .register(meterRegistry);
+        this.writeFailures = Counter.builder("auth.principal.snapshot.write.failures")
+            .register(meterRegistry);
+        Gauge.builder("auth.principal.snapshot.entries", cache,
+                c -> c.getSnapshot() != null ? c.getSnapshot().size() : 0)
+            .description("Entries in the snapshot currently used for lookups")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("principal-snapshot").daemon(true).factory());
+        running = true;
+
+        if (load()) {
+            executor.schedule(this::repair, properties.getRepairDelay().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        long interval = properties.getWriteInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::writeAndExpire, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        write();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Map the snapshot left by the previous run, if it is usable
+     */
+    boolean load() {
+        if (!Files.isReadable(properties.getPath())) {
+            log.info("No principal snapshot at {}, starting cold", properties.getPath());
+            return false;
+        }
+        try {
+            PrincipalSnapshot snapshot = PrincipalSnapshot.open(properties.getPath());
+            if (isExpired(snapshot)) {
+                log.info("Ignoring principal snapshot from {} (older than {})",
+                    Instant.ofEpochMilli(snapshot.getCreatedAt()), properties.getMaxAge());
+                return false;
+            }
+            cache.installSnapshot(snapshot);
+            log.info("Mapped principal snapshot with {} entries from {}", snapshot.size(), properties.getPath());
+            return true;
+        } catch (IOException e) {
+            log.warn("Could not read principal snapshot: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Compare every snapshot entry with the database and mark the ones that no longer match
+     */
+    void repair() {
+        PrincipalSnapshot snapshot = cache.getSnapshot();
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            int count = cache.checkSnapshot(PrincipalCacheReconciler.loadRoleAssignments(jdbcTemplate));
+            verified = true;
+            repaired.increment(count);
+            log.info("Checked principal snapshot against the database: {} of {} entries diverged",
+                count, snapshot.size());
+        } catch (RuntimeException e) {
+            // Unverified entries must not outlive a failed check
+            log.warn("Principal snapshot check failed, dropping snapshot: {}", e.getMessage());
+            cache.dropSnapshot();
+        }
+    }
+
+    private void writeAndExpire() {
+        write();
+        PrincipalSnapshot snapshot = cache.getSnapshot();
+        if (snapshot != null && isExpired(snapshot)) {
+            cache.dropSnapshot();
+        }
+    }
+
+    /**
+     * Write the in-memory principals plus the still-valid snapshot entries
+     */
+    void write() {
+        try {
+            List<PrincipalSnapshot.RoleRef> registry = roleRepository.findAll().stream()
+                .sorted(Comparator.comparing(Role::getId))
+                .map(role -> new PrincipalSnapshot.RoleRef(role.getId(), role.getName()))
+                .toList();
+            if (registry.size() > PrincipalSnapshot.MAX_ROLES) {
+                log.warn("{} roles do not fit in a principal snapshot, skipping write", registry.size());
+                return;
+            }
+
+            Map<Long, PrincipalSnapshot.Entry> entries = new HashMap<>();
+            // Unverified entries are not carried forward, or their age would be reset
+            PrincipalSnapshot previous = cache.getSnapshot();
+            if (previous != null && verified) {
+                for (int i = 0; i < previous.size(); i++) {
+                    PrincipalSnapshot.Entry entry = previous.entryAt(i);
+                    if (cache.isDiverged(entry.userId())) {
+                        continue;
+                    }
+                    List<Long> roleIds = previous.rolesOf(entry.roleBits()).stream()
+                        .map(PrincipalSnapshot.RoleRef::id).toList();
+                    addEntry(entries, registry, entry.subHash(), entry.userId(), roleIds);
+                }
+            }
+            cache.entries().forEach((sub, principal) -> addEntry(entries, registry,
+                PrincipalSnapshot.hashSub(sub), principal.userId(), principal.roleIds()));
+
+            PrincipalSnapshot.write(properties.getPath(), System.currentTimeMillis(), registry, entries.values());
+            writes.increment();
+            log.debug("Wrote principal snapshot with {} entries to {}", entries.size(), properties.getPath());
+        } catch (IOException | RuntimeException e) {
+            writeFailures.increment();
+            log.warn("Could not write principal snapshot: {}", e.getMessage());
+        }
+    }
+
+    private static void addEntry(Map<Long, PrincipalSnapshot.Entry> entries, List<PrincipalSnapshot.RoleRef> registry,
+                                 long subHash, Long userId, List<Long> roleIds) {
+        long bits = PrincipalSnapshot.roleBits(registry, roleIds);
+        if (userId != null && bits >= 0) {
+            entries.put(subHash, new PrincipalSnapshot.Entry(subHash, userId, bits));
+        }
+    }
+
+    private boolean isExpired(PrincipalSnapshot snapshot) {
+        return System.currentTimeMillis() - snapshot.getCreatedAt() > properties.getMaxAge().toMillis();
+    }
+
+    @Override
+    public void evictUser(Long userId, String cognitoSub) {
+        // PrincipalAuthorityCache handles single-user changes itself
+    }
+
+    /**
+     * Change events may have been missed, so re-check the snapshot in the background
+     */
+    @Override
+    public void evictAll() {
+        verified = false;
+        if (running && cache.getSnapshot() != null) {
+            executor.execute(this::repair);
+        }
+    }
+}
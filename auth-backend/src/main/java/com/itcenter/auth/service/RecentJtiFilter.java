@@ -0,0 +1,134 @@
+package com.itcenter.auth.service;
+
+import com.itcenter.auth.config.JtiFilterProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time-bucketed Bloom filter of token ids (jti) already recorded by mark-login.
+ *
+ * Two buckets are kept, each {@code tokenLifetime} wide: ids are added to the current
+ * bucket and looked up in both, so an id is remembered for at least one token lifetime,
+ * after which the token itself has expired. Memory is fixed at two bit arrays sized from
+ * the expected insertions and false-positive rate. A false positive means a first call
+ * is treated as a duplicate, so the rate is kept very low.
+ */
+@Component
+public class RecentJtiFilter {
+
+    private final JtiFilterProperties properties;
+    private final int bitCount;
+    private final int hashCount;
+
+    private volatile Bucket current;
+    private volatile Bucket previous;
+
+    public RecentJtiFilter(JtiFilterProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        double n = Math.max(1, properties.getExpectedInsertions());
+        double p = Math.min(0.5, Math.max(1e-12, properties.getFalsePositiveRate()));
+        long bits = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(Long.SIZE, bits));
+        this.hashCount = Math.max(1, (int) Math.round(bitCount / n * Math.log(2)));
+        this.current = new Bucket(System.currentTimeMillis(), bitCount);
+
+        Gauge.builder("auth.mark_login.jti_filter.bytes", this, f -> 2L * f.bitCount / 8)
+            .description("Memory reserved by the two filter buckets")
+            .register(meterRegistry);
+    }
+
+    /**
+     * True if the id was (probably) recorded within the last token lifetime
+     */
+    public boolean mightContain(String jti) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        rotateIfDue();
+        long h1 = hash(jti, 0x9E3779B97F4A7C15L);
+        long h2 = hash(jti, 0xC2B2AE3D27D4EB4FL);
+        Bucket prev = previous;
+        return current.contains(h1, h2, hashCount) || (prev != null && prev.contains(h1, h2, hashCount));
+    }
+
+    public void put(String jti) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        rotateIfDue();
+        current.add(hash(jti, 0x9E3779B97F4A7C15L), hash(jti, 0xC2B2AE3D27D4EB4FL), hashCount);
+    }
+
+    private void rotateIfDue() {
+        long now = System.currentTimeMillis();
+        long width = properties.getTokenLifetime().toMillis();
+        if (now - current.startedAt < width) {
+            return;
+        }
+        synchronized (this) {
+            Bucket active = current;
+            if (now - active.startedAt < width) {
+                return;
+            }
+            // A bucket idle for two lifetimes holds nothing still valid
+            previous = now - active.startedAt < 2 * width ? active : null;
+            current = new Bucket(now, bitCount);
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 chars, finished with the SplitMix64 mixer
+     */
+    private static long hash(String value, long seed) {
+        long h = 0xCBF29CE484222325L ^ seed;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private static final class Bucket {
+        private final long startedAt;
+        private final int bitCount;
+        private final AtomicLongArray words;
+
+        Bucket(long startedAt, int bitCount) {
+            this.startedAt = startedAt;
+            this.bitCount = bitCount;
+            this.words = new AtomicLongArray((bitCount + 63) / 64);
+        }
+
+        void add(long h1, long h2, int hashCount) {
+            for (int i = 0; i < hashCount; i++) {
+                int bit = index(h1, h2, i);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long old;
+                do {
+                    old = words.get(word);
+                } while ((old & mask) == 0 && !words.compareAndSet(word, old, old | mask));
+            }
+        }
+
+        boolean contains(long h1, long h2, int hashCount) {
+            for (int i = 0; i < hashCount; i++) {
+                int bit = index(h1, h2, i);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Kirsch-Mitzenmacher: k indexes from two hashes
+        private int index(long h1, long h2, int i) {
+            return (int) Long.remainderUnsigned(h1 + i * h2, bitCount);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.itcenter.auth.service;
+
+import com.itcenter.auth.entity.AppUser;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Exposes the Hibernate second-level cache entries for a user to the cross-node
+ * invalidation bus, so another node's write evicts this node's cached AppUser,
+ * its roles collection and the cognito_sub natural-id mapping.
+ */
+@Component
+@RequiredArgsConstructor
+public class SecondLevelUserCache implements LocalUserCache {
+
+    private static final String ROLES_COLLECTION = AppUser.class.getName() + ".roles";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void evictUser(Long userId, String cognitoSub) {
+        Cache cache = cache();
+        cache.evictEntityData(AppUser.class, userId);
+        cache.evictCollectionData(ROLES_COLLECTION, userId);
+        if (cognitoSub != null) {
+            // Hibernate has no per-key natural-id eviction. The region only maps sub -> id,
+            // but a deleted and re-provisioned sub must not resolve to the old id.
+            cache.evictNaturalIdData(AppUser.class);
+        }
+    }
+
+    /**
+     * Drop a user's cached roles collection once the current transaction commits. Role
+     * changes write user_roles directly, past the managed collection, which would otherwise
+     * keep serving the roles it was loaded with.
+     */
+    public void evictRolesAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache().evictCollectionData(ROLES_COLLECTION, userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache().evictCollectionData(ROLES_COLLECTION, userId);
+            }
+        });
+    }
+
+    @Override
+    public void evictAll() {
+        cache().evictAllRegions();
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+}
@@ -1,13 +1,16 @@
 package com.itcenter.auth.service;
 
 import com.itcenter.auth.entity.AppUser;
-import com.itcenter.auth.entity.LoginAudit;
 import com.itcenter.auth.repository.LoginAuditRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
@@ -19,12 +22,45 @@ public class SessionService {
     
     private final LoginAuditRepository auditRepository;
     private final UserProvisioningService provisioningService;
+    private final RecentJtiFilter jtiFilter;
+    private final MeterRegistry meterRegistry;
     
     @Transactional
     public void markLogin(org.springframework.security.oauth2.jwt.Jwt jwt) {
-        // Use UserProvisioningService first so last_login is always updated
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            outcome = recordLogin(jwt);
+        } finally {
+            sample.stop(Timer.builder("auth.session.mark_login")
+                .description("mark-login handling, including provisioning and the audit insert")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * @return the outcome tag: recorded, or duplicate when the token was seen before
+     */
+    private String recordLogin(org.springframework.security.oauth2.jwt.Jwt jwt) {
+        // idempotency key by token (prefer jti, fallback to token hash)
+        String jti = jwt.getId();
+        String key = (jti == null || jti.isBlank())
+                ? org.apache.commons.codec.digest.DigestUtils.sha256Hex(jwt.getTokenValue())
+                : jti;
+
+        // Repeat calls for the same token (e.g. the admin-web Callback page re-rendering)
+        // are answered from memory without touching the database
+        if (jtiFilter.mightContain(key)) {
+            log.debug("[MARK-LOGIN] Token {} recently recorded, skipping", key);
+            meterRegistry.counter("auth.session.mark_login.deduplicated", "source", "filter").increment();
+            return "duplicate";
+        }
+
+        // Use UserProvisioningService first so the user row exists for the audit insert
         AppUser user = provisioningService.findOrCreateFromJwt(jwt);
-        log.info("[MARK-LOGIN] Resolved user: id={}, email={}", user.getId(), user.getEmail());
+        log.debug("[MARK-LOGIN] Resolved user ID: {}", user.getId());
 
         // Extract request context for IP and User-Agent
         HttpServletRequest request = null;
@@ -35,31 +71,34 @@ public class SessionService {
         String ip = request != null ? com.itcenter.auth.service.AuditService.getClientIp(request) : null;
         String ua = request != null ? request.getHeader("User-Agent") : null;
 
-        // idempotency key by token (prefer jti, fallback to token hash)
-        String jti = jwt.getId();
-        String key = (jti == null || jti.isBlank())
-                ? org.apache.commons.codec.digest.DigestUtils.sha256Hex(jwt.getTokenValue())
-                : jti;
+        log.debug("[MARK-LOGIN] Using idempotency key: {}", key);
 
-        log.info("[MARK-LOGIN] Using idempotency key: {}", key);
-        
-        if (auditRepository.existsByTokenJti(key)) {
-            log.info("[MARK-LOGIN] Token already recorded, skipping audit insert (last_login updated)");
-            return;
+        // Single statement: concurrent retries of the same token race on the unique index, not on a pre-check
+        int inserted = auditRepository.insertIfJtiAbsent(user.getId(), "LOGIN_SUCCESS", ip, ua, key);
+        if (inserted == 0) {
+            log.debug("[MARK-LOGIN] Token already recorded, skipping audit insert and last_login");
+            meterRegistry.counter("auth.session.mark_login.deduplicated", "source", "database").increment();
+        } else {
+            // last_login moves once per login, here, rather than on every /me
+            provisioningService.recordLogin(user);
+            log.info("[MARK-LOGIN] Recorded login for user ID: {}", user.getId());
         }
 
-        // Write audit entry with token JTI
-        // Note: last_login is already updated by UserProvisioningService
-        LoginAudit audit = LoginAudit.builder()
-                .user(user)
-                .eventType("LOGIN_SUCCESS")
-                .tokenJti(key)
-                .ipAddress(ip)
-                .userAgent(ua)
-                .build();
-        
-        auditRepository.save(audit);
-        log.info("[MARK-LOGIN] Audit entry saved: id={}", audit.getId());
+        // Only remember the token once the row (or the earlier one) is committed
+        rememberAfterCommit(key);
+        return inserted == 0 ? "duplicate" : "recorded";
     }
-}
 
+    private void rememberAfterCommit(String key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            jtiFilter.put(key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                jtiFilter.put(key);
+            }
+        });
+    }
+}
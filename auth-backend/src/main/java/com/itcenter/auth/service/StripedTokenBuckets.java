@@ -0,0 +1,138 @@
+package com.itcenter.auth.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed table of token buckets updated with CAS only (no locks).
+ *
+ * Keys are hashed onto a power-of-two number of slots, so memory is constant no matter how
+ * many distinct keys arrive. Each slot records the 64-bit hash of the key that owns it; a
+ * key takes the first of {@link #PROBES} slots from its home slot that it already owns, that
+ * is free, or whose owner has refilled to capacity (taking such a slot over changes nothing
+ * for the old owner). Only if all of them belong to other active keys does the key share its
+ * home slot, which can make limiting stricter for both, never looser; those requests are
+ * counted in {@link #collisions()}.
+ *
+ * Each slot packs its bucket into one long: the upper 21 bits hold the tokens in
+ * thousandths, the lower 43 bits the time of the last update in milliseconds since this
+ * table was created. An untouched or long idle slot refills to full capacity, so there is
+ * no per-key state to expire.
+ */
+public class StripedTokenBuckets {
+
+    private static final int TIME_BITS = 43;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final long MILLI = 1000;
+    /** 21 bits of thousandths */
+    public static final int MAX_CAPACITY = (int) (((1L << (Long.SIZE - TIME_BITS)) - 1) / MILLI);
+
+    /** Slots tried from a key's home slot before it shares one */
+    static final int PROBES = 4;
+
+    private final AtomicLongArray slots;
+    /** Hash of the key owning each slot, 0 if free */
+    private final AtomicLongArray owners;
+    private final LongAdder collisions = new LongAdder();
+    private final int mask;
+    private final long capacityMilli;
+    private final double refillMilliPerMilli;
+    private final long origin;
+
+    /**
+     * @param slotCount       number of buckets (rounded up to a power of two)
+     * @param capacity        burst size in tokens
+     * @param refillPerSecond tokens added per second
+     * @param origin          epoch millis treated as time zero
+     */
+    public StripedTokenBuckets(int slotCount, int capacity, double refillPerSecond, long origin) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY);
+        }
+        if (refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Refill rate must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(2, slotCount) - 1) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.owners = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.capacityMilli = capacity * MILLI;
+        // tokens per second == thousandths of a token per millisecond
+        this.refillMilliPerMilli = refillPerSecond;
+        // Start one tick early so a stored state is never 0 (0 marks an unused slot)
+        this.origin = origin - 1;
+    }
+
+    /**
+     * Take one token for the key.
+     *
+     * @return 0 if allowed, otherwise the milliseconds until a token will be available
+     */
+    public long tryAcquire(long keyHash, long nowMillis) {
+        long now = Math.max(1, Math.min(TIME_MASK, nowMillis - origin));
+        int index = slotFor(keyHash != 0 ? keyHash : 1, now);
+        while (true) {
+            long state = slots.get(index);
+            long tokens = tokensAt(state, now);
+            if (tokens < MILLI) {
+                return (long) Math.ceil((MILLI - tokens) / refillMilliPerMilli);
+            }
+            long next = ((tokens - MILLI) << TIME_BITS) | now;
+            if (slots.compareAndSet(index, state, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private int slotFor(long owner, long now) {
+        int home = (int) (spread(owner) & mask);
+        for (int attempt = 0; attempt < PROBES; attempt++) {
+            int claimable = -1;
+            long claimedFrom = 0;
+            for (int probe = 0; probe < PROBES; probe++) {
+                int index = (home + probe) & mask;
+                long current = owners.get(index);
+                if (current == owner) {
+                    return index;
+                }
+                if (claimable < 0 && (current == 0 || tokensAt(slots.get(index), now) >= capacityMilli)) {
+                    claimable = index;
+                    claimedFrom = current;
+                }
+            }
+            if (claimable < 0) {
+                break;
+            }
+            if (owners.compareAndSet(claimable, claimedFrom, owner)) {
+                return claimable;
+            }
+        }
+        collisions.increment();
+        return home;
+    }
+
+    private long tokensAt(long state, long now) {
+        if (state == 0) {
+            return capacityMilli;
+        }
+        long elapsed = Math.max(0, now - (state & TIME_MASK));
+        return Math.min(capacityMilli, (state >>> TIME_BITS) + (long) (elapsed * refillMilliPerMilli));
+    }
+
+    /**
+     * Requests that found no slot of their own and shared another key's bucket
+     */
+    public long collisions() {
+        return collisions.sum();
+    }
+
+    public int size() {
+        return slots.length();
+    }
+
+    private static long spread(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,188 @@
+package com.itcenter.auth.service;
+
+import com.itcenter.auth.config.InstrumentedJwtDecoder;
+import com.itcenter.auth.config.IntrospectionProperties;
+import com.itcenter.auth.config.JwtAuthConverter;
+import com.itcenter.auth.dto.IntrospectionResponse;
+import com.itcenter.auth.repository.AppUserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Introspects tokens for other services: verifies them with the same decoder (and cached
+ * JWKS) as our own resource server and adds the caller's user id and roles.
+ *
+ * Verified tokens are kept by SHA-256 of the token value until they expire, so each token
+ * is checked once for the whole fleet. The cache holds at most {@code max-cached-tokens}
+ * and drops the least recently used token past that. Only the claims the response needs
+ * are kept: roles and deactivation are read from PrincipalAuthorityCache and
+ * DeactivatedUserRegistry on every call, so changes apply without waiting for the token to
+ * expire.
+ */
+@Service
+@Slf4j
+public class TokenIntrospectionService {
+
+    private record VerifiedToken(String sub, String clientId, String scope, String username, String issuer,
+                                 Instant issuedAt, Instant expiresAt, boolean clientToken) {
+
+        static VerifiedToken of(Jwt jwt) {
+            String sub = jwt.getSubject();
+            String username = jwt.getClaimAsString("username");
+            return new VerifiedToken(sub, jwt.getClaimAsString("client_id"), jwt.getClaimAsString("scope"),
+                username != null ? username : jwt.getClaimAsString("cognito:username"), jwt.getClaimAsString("iss"),
+                jwt.getIssuedAt(), jwt.getExpiresAt(), sub != null && JwtAuthConverter.isClientToken(jwt, sub));
+        }
+    }
+
+    /**
+     * Least recently used token cache; guarded by itself
+     */
+    private static final class TokenCache extends LinkedHashMap<String, VerifiedToken> {
+
+        private final int maxEntries;
+
+        TokenCache(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    private final JwtDecoder jwtDecoder;
+    private final PrincipalAuthorityCache authorityCache;
+    private final DeactivatedUserRegistry deactivatedUsers;
+    private final AppUserRepository userRepository;
+    private final TokenCache tokens;
+
+    private final Counter cached;
+    private final Counter verified;
+    private final Counter invalid;
+
+    public TokenIntrospectionService(JwtDecoder jwtDecoder, PrincipalAuthorityCache authorityCache,
+                                     DeactivatedUserRegistry deactivatedUsers, AppUserRepository userRepository,
+                                     IntrospectionProperties properties, MeterRegistry meterRegistry) {
+        this.jwtDecoder = new InstrumentedJwtDecoder(jwtDecoder);
+        this.authorityCache = authorityCache;
+        this.deactivatedUsers = deactivatedUsers;
+        this.userRepository = userRepository;
+        this.tokens = new TokenCache(properties.getMaxCachedTokens());
+        this.cached = requests(meterRegistry, "cached");
+        this.verified = requests(meterRegistry, "verified");
+        this.invalid = requests(meterRegistry, "invalid");
+        Gauge.builder("auth.introspection.cache.size", this, TokenIntrospectionService::size)
+            .description("Verified tokens held until they expire")
+            .register(meterRegistry);
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("auth.introspection.requests")
+            .tag("result", result)
+            .description("Introspected tokens by how they were answered")
+            .register(meterRegistry);
+    }
+
+    public IntrospectionResponse introspect(String token) {
+        VerifiedToken verifiedToken = verify(token);
+        if (verifiedToken == null) {
+            return IntrospectionResponse.inactive();
+        }
+
+        IntrospectionResponse.IntrospectionResponseBuilder response = IntrospectionResponse.builder()
+            .active(true)
+            .sub(verifiedToken.sub())
+            .clientId(verifiedToken.clientId())
+            .scope(verifiedToken.scope())
+            .tokenType("Bearer")
+            .exp(epochSeconds(verifiedToken.expiresAt()))
+            .iat(epochSeconds(verifiedToken.issuedAt()))
+            .iss(verifiedToken.issuer());
+        String sub = verifiedToken.sub();
+        if (sub == null || sub.isBlank() || verifiedToken.clientToken()) {
+            return response.build();
+        }
+        if (deactivatedUsers.isDenied(sub)) {
+            return IntrospectionResponse.inactive();
+        }
+
+        PrincipalAuthorityCache.CachedPrincipal principal = authorityCache.get(sub);
+        if (principal == null) {
+            principal = userRepository.findByCognitoSub(sub).map(authorityCache::put).orElse(null);
+        }
+        if (principal != null && deactivatedUsers.isDenied(principal.userId())) {
+            return IntrospectionResponse.inactive();
+        }
+        // Same default as JwtAuthConverter for users without a row or without roles yet
+        List<String> roles = principal != null && !principal.roleNames().isEmpty()
+            ? principal.roleNames()
+            : List.of("EMPLOYEE");
+        return response
+            .username(verifiedToken.username())
+            .userId(principal != null ? principal.userId() : null)
+            .roles(roles)
+            .build();
+    }
+
+    /**
+     * The verified token, from the cache or the decoder, or null if it is not valid (now)
+     */
+    private VerifiedToken verify(String token) {
+        String key = DigestUtils.sha256Hex(token);
+        Instant now = Instant.now();
+        VerifiedToken known;
+        synchronized (tokens) {
+            known = tokens.get(key);
+            if (known != null && !known.expiresAt().isAfter(now)) {
+                tokens.remove(key);
+                known = null;
+            }
+        }
+        if (known != null) {
+            cached.increment();
+            return known;
+        }
+
+        Jwt jwt;
+        try {
+            jwt = jwtDecoder.decode(token);
+        } catch (JwtException e) {
+            log.debug("Introspected token is not valid: {}", e.getMessage());
+            invalid.increment();
+            return null;
+        }
+        verified.increment();
+        VerifiedToken verifiedToken = VerifiedToken.of(jwt);
+        if (jwt.getExpiresAt() != null && jwt.getExpiresAt().isAfter(now)) {
+            synchronized (tokens) {
+                tokens.put(key, verifiedToken);
+            }
+        }
+        return verifiedToken;
+    }
+
+    private static Long epochSeconds(Instant instant) {
+        return instant != null ? instant.getEpochSecond() : null;
+    }
+
+    public int size() {
+        synchronized (tokens) {
+            return tokens.size();
+        }
+    }
+}
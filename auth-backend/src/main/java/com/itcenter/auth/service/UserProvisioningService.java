@@ -1,19 +1,24 @@
 package com.itcenter.auth.service;
 
+import com.itcenter.auth.config.AuthStageEvent;
+import com.itcenter.auth.config.CognitoHttpClient;
+import com.itcenter.auth.config.CognitoProperties;
 import com.itcenter.auth.entity.AppUser;
 import com.itcenter.auth.entity.Role;
 import com.itcenter.auth.repository.AppUserRepository;
 import com.itcenter.auth.repository.RoleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 @RequiredArgsConstructor
@@ -23,133 +28,175 @@ public class UserProvisioningService {
     
     private final AppUserRepository userRepository;
     private final RoleRepository roleRepository;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final UserValidatorCache validatorCache;
+    private final CacheInvalidationBus invalidationBus;
+    private final CognitoProperties cognitoProperties;
+    private final MeterRegistry meterRegistry;
+    private final CognitoHttpClient cognitoHttpClient;
 
     @Transactional
     public AppUser findOrCreateFromJwt(Jwt jwt) {
-        final String sub   = jwt.getClaimAsString("sub");   // final -> safe to capture
-        String email = jwt.getClaimAsString("email"); // May be null
-        String name = jwt.getClaimAsString("name"); // May be null
+        Timer.Sample sample = Timer.start(meterRegistry);
+        AuthStageEvent event = AuthStageEvent.start(AuthStageEvent.PROVISIONING);
+        String outcome = "error";
+        AtomicBoolean created = new AtomicBoolean();
+        final String sub = jwt.getClaimAsString("sub");   // final -> safe to capture
+        try {
+            String email = jwt.getClaimAsString("email"); // May be null
+            String name = jwt.getClaimAsString("name"); // May be null
         
-        // Log all available claims for debugging
-        log.debug("Processing JWT with claims: {}", jwt.getClaims());
+            // Claim names only; values are PII
+            log.debug("Processing JWT for sub {} with claims {}", sub, jwt.getClaims().keySet());
         
-        // If email or name are missing, try to fetch from Cognito userInfo endpoint
-        if ((email == null || email.isBlank() || name == null || name.isBlank())) {
-            log.info("Email or name missing from JWT, fetching from userInfo endpoint");
-            Map<String, Object> userInfo = fetchUserInfoFromCognito(jwt.getTokenValue());
+            // If email or name are missing, try to fetch from Cognito userInfo endpoint
+            if ((email == null || email.isBlank() || name == null || name.isBlank())) {
+                log.info("Email or name missing from JWT, fetching from userInfo endpoint");
+                Map<String, Object> userInfo = fetchUserInfoFromCognito(sub, jwt.getTokenValue());
             
-            if (email == null || email.isBlank()) {
-                email = (String) userInfo.get("email");
-                if (email != null && !email.isBlank()) {
-                    log.info("Retrieved email from userInfo: {}", email);
+                if (email == null || email.isBlank()) {
+                    email = (String) userInfo.get("email");
+                    if (email != null && !email.isBlank()) {
+                        log.debug("Retrieved email from userInfo for sub {}", sub);
+                    }
                 }
-            }
             
-            if (name == null || name.isBlank()) {
-                name = (String) userInfo.get("name");
                 if (name == null || name.isBlank()) {
-                    // Try given_name and family_name
-                    String given = (String) userInfo.get("given_name");
-                    String family = (String) userInfo.get("family_name");
-                    if (given != null || family != null) {
-                        name = (given != null ? given : "") + (family != null ? " " + family : "");
-                        name = name.trim();
-                    } else {
-                        name = (String) userInfo.get("preferred_username");
+                    name = (String) userInfo.get("name");
+                    if (name == null || name.isBlank()) {
+                        // Try given_name and family_name
+                        String given = (String) userInfo.get("given_name");
+                        String family = (String) userInfo.get("family_name");
+                        if (given != null || family != null) {
+                            name = (given != null ? given : "") + (family != null ? " " + family : "");
+                            name = name.trim();
+                        } else {
+                            name = (String) userInfo.get("preferred_username");
+                        }
                     }
                 }
             }
-        }
         
-        // Fallback to username
-        if (email == null || email.isBlank()) {
-            email = jwt.getClaimAsString("username");
+            // Fallback to username
             if (email == null || email.isBlank()) {
-                email = jwt.getClaimAsString("cognito:username");
+                email = jwt.getClaimAsString("username");
+                if (email == null || email.isBlank()) {
+                    email = jwt.getClaimAsString("cognito:username");
+                }
             }
-        }
         
-        // Final fallback: use sub
-        if (email == null || email.isBlank()) {
-            email = sub + "@cognito.local";
-            log.warn("No email found, using fallback: {}", email);
-        }
+            // Final fallback: use sub
+            if (email == null || email.isBlank()) {
+                email = sub + "@cognito.local";
+                log.warn("No email found, using fallback: {}", email);
+            }
 
-        final String finalEmail = email; // make it effectively final for lambda
+            final String finalEmail = email; // make it effectively final for lambda
         
-        // Build display name
-        String displayName = name;
-        if (displayName == null || displayName.isBlank()) {
-            displayName = finalEmail; // fallback to email
-        }
+            // Build display name
+            String displayName = name;
+            if (displayName == null || displayName.isBlank()) {
+                displayName = finalEmail; // fallback to email
+            }
 
-        final String finalDisplayName = displayName;
+            final String finalDisplayName = displayName;
 
-        // Find existing user or create new one
-        AppUser user = userRepository.findByCognitoSub(sub).orElseGet(() -> {
-            log.info("Creating new user via JIT provisioning for sub: {}, email: {}", sub, finalEmail);
+            // Find existing user or create new one
+            AppUser user = userRepository.findByCognitoSub(sub).orElseGet(() -> {
+                log.info("Creating new user via JIT provisioning for sub: {}, email: {}", sub, finalEmail);
             
-            AppUser newUser = new AppUser();
-            newUser.setCognitoSub(sub);
-            newUser.setEmail(finalEmail);
-            newUser.setDisplayName(finalDisplayName);
-            newUser.setIsActive(true);
-            newUser.setLocale("en");
+                AppUser newUser = new AppUser();
+                newUser.setCognitoSub(sub);
+                newUser.setEmail(finalEmail);
+                newUser.setDisplayName(finalDisplayName);
+                newUser.setIsActive(true);
+                newUser.setLocale("en");
             
-            AppUser savedUser = userRepository.save(newUser);
+                AppUser savedUser = userRepository.save(newUser);
+                created.set(true);
+                meterRegistry.counter("auth.provisioning.created").increment();
 
-            // Optional: Assign default role
-            roleRepository.findByName("EMPLOYEE").ifPresent(role -> {
-                savedUser.getRoles().add(role);
-                userRepository.save(savedUser);
-            });
+                // Optional: Assign default role
+                roleRepository.findByName("EMPLOYEE").ifPresent(role -> {
+                    savedUser.getRoles().add(role);
+                    userRepository.save(savedUser);
+                });
+                // Sequence ids defer the insert to flush; write the row now, since the mark-login
+                // audit insert that follows is native SQL referencing it
+                userRepository.flush();
             
-            log.info("Created user with ID: {} for email: {}", savedUser.getId(), finalEmail);
-            return savedUser;
-        });
+                log.info("Created user with ID: {} for email: {}", savedUser.getId(), finalEmail);
+                return savedUser;
+            });
+            outcome = created.get() ? "created" : "existing";
         
-        // ✅ Only fill from Cognito on first creation - preserve manual edits
-        boolean needsUpdate = false;
+            // Deactivated users must not get a last_login bump (or any other write)
+            if (Boolean.FALSE.equals(user.getIsActive())) {
+                outcome = "deactivated";
+                throw new RuntimeException("User account is deactivated");
+            }
         
-        // Update email only if it's missing (first time)
-        if (user.getEmail() == null || user.getEmail().isBlank()) {
-            user.setEmail(finalEmail);
-            needsUpdate = true;
-            log.debug("Setting email for first time: {}", finalEmail);
-        }
+            // ✅ Only fill from Cognito on first creation - preserve manual edits
+            boolean needsUpdate = false;
         
-        // Update display name only if it's missing or blank (first time)
-        // Do NOT overwrite existing display name - it may have been customized by user
-        if (user.getDisplayName() == null || user.getDisplayName().isBlank()) {
-            user.setDisplayName(finalDisplayName);
-            needsUpdate = true;
-            log.debug("Setting display name for first time: {}", finalDisplayName);
-        }
+            // Update email only if it's missing (first time)
+            if (user.getEmail() == null || user.getEmail().isBlank()) {
+                user.setEmail(finalEmail);
+                needsUpdate = true;
+                log.debug("Setting email for first time: {}", finalEmail);
+            }
         
-        // Always update last login timestamp
-        user.setLastLogin(LocalDateTime.now());
-        needsUpdate = true;
+            // Update display name only if it's missing or blank (first time)
+            // Do NOT overwrite existing display name - it may have been customized by user
+            if (user.getDisplayName() == null || user.getDisplayName().isBlank()) {
+                user.setDisplayName(finalDisplayName);
+                needsUpdate = true;
+                log.debug("Setting display name for first time: {}", finalDisplayName);
+            }
         
-        if (needsUpdate) {
-            log.debug("Updating user profile for sub: {}, setting last_login", sub);
-            return userRepository.save(user);
-        }
+            if (needsUpdate) {
+                log.debug("Updating user profile for sub: {}", sub);
+                // updated_at moves on flush, so any cached validator for this user is now stale
+                validatorCache.evict(user.getId());
+                return userRepository.save(user);
+            }
         
-        if (Boolean.FALSE.equals(user.getIsActive())) {
-            throw new RuntimeException("User account is deactivated");
+            // last_login is bumped once per login by recordLogin, not on every request
+            return user;
+        } finally {
+            sample.stop(timer("auth.provisioning", "JIT user lookup/creation", outcome));
+            event.finish(sub, outcome);
         }
-        return user;
     }
     
-    private Map<String, Object> fetchUserInfoFromCognito(String accessToken) {
+    /**
+     * Bump last_login for a login recorded through mark-login.
+     *
+     * This moves updated_at and with it the user's ETag, so the validator is evicted here
+     * and on the other nodes. Plain /me reads leave the row alone and can keep answering 304.
+     */
+    @Transactional
+    public void recordLogin(AppUser user) {
+        log.debug("Updating last_login for user ID: {}", user.getId());
+        user.setLastLogin(LocalDateTime.now());
+        userRepository.save(user);
+        invalidationBus.publish(CacheInvalidationBus.UserChange.LOGGED_IN, user.getId(), user.getCognitoSub());
+        validatorCache.evictUser(user.getId(), user.getCognitoSub());
+    }
+    
+    private Map<String, Object> fetchUserInfoFromCognito(String sub, String accessToken) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        AuthStageEvent event = AuthStageEvent.start(AuthStageEvent.USERINFO_FETCH);
+        String outcome = "error";
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.setBearerAuth(accessToken);
             HttpEntity<?> entity = new HttpEntity<>(headers);
             
-            ResponseEntity<Map> response = restTemplate.exchange(
-                USERINFO_ENDPOINT,
+            String userInfoUri = cognitoProperties.getUserInfoUri() != null
+                ? cognitoProperties.getUserInfoUri()
+                : USERINFO_ENDPOINT;
+            ResponseEntity<Map> response = cognitoHttpClient.restTemplate().exchange(
+                userInfoUri,
                 HttpMethod.GET,
                 entity,
                 Map.class
@@ -157,15 +204,28 @@ public class UserProvisioningService {
             
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 log.info("Successfully fetched userInfo from Cognito");
+                outcome = "success";
                 return response.getBody();
             } else {
                 log.warn("UserInfo endpoint returned non-2xx status: {}", response.getStatusCode());
+                outcome = "rejected";
                 return java.util.Collections.emptyMap();
             }
         } catch (Exception e) {
             log.error("Failed to fetch userInfo from Cognito: {}", e.getMessage());
             return java.util.Collections.emptyMap();
+        } finally {
+            sample.stop(timer("auth.cognito.userinfo", "Calls to the Cognito userInfo endpoint", outcome));
+            event.finish(sub, outcome);
         }
     }
+    
+    private Timer timer(String name, String description, String outcome) {
+        return Timer.builder(name)
+            .description(description)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
 }
 
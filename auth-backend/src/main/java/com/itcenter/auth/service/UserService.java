@@ -1,10 +1,13 @@
 package com.itcenter.auth.service;
 
+import com.itcenter.auth.config.ReadReplicaProperties;
 import com.itcenter.auth.dto.*;
 import com.itcenter.auth.entity.AppUser;
 import com.itcenter.auth.entity.Role;
+import com.itcenter.auth.exception.PreconditionFailedException;
 import com.itcenter.auth.repository.AppUserRepository;
 import com.itcenter.auth.repository.RoleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -16,6 +19,7 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -29,6 +33,17 @@ public class UserService {
     private final AuditService auditService;
     private final UserProvisioningService provisioningService;
     private final com.itcenter.auth.repository.UserRoleRepository userRoleRepository;
+    private final UserValidatorCache validatorCache;
+    private final SecondLevelUserCache secondLevelUserCache;
+    private final CacheInvalidationBus invalidationBus;
+    private final ReadReplicaProperties readReplicaProperties;
+    private final MeterRegistry meterRegistry;
+    
+    /**
+     * A user as read, with the validator (ETag) of that state
+     */
+    public record UserDetail(UserSummaryResponse user, String etag) {
+    }
     
     public UserProfileResponse getCurrentUserProfile() {
         org.springframework.security.core.Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -42,11 +57,22 @@ public class UserService {
         // Note: Login audit is now handled by /api/v1/sessions/mark-login endpoint
         // to ensure idempotency (once per JWT token)
         
+        // findOrCreateFromJwt has committed by now, so updated_at is final
+        validatorCache.record(user);
+        
         return mapToProfileResponse(user);
     }
     
     @Transactional
     public UserProfileResponse updateCurrentUserProfile(UpdateProfileRequest request) {
+        return updateCurrentUserProfile(request, null);
+    }
+    
+    /**
+     * Update the caller's profile, optionally guarded by an If-Match validator
+     */
+    @Transactional
+    public UserProfileResponse updateCurrentUserProfile(UpdateProfileRequest request, String ifMatch) {
         log.info("UpdateProfileRequest received - displayName: '{}', locale: '{}'", 
             request.getDisplayName(), request.getLocale());
         
@@ -61,6 +87,8 @@ public class UserService {
         log.info("Updating profile for user ID: {}, current displayName: '{}', current locale: '{}'", 
             user.getId(), user.getDisplayName(), user.getLocale());
         
+        checkIfMatch(ifMatch, UserValidatorCache.etagOf(user), user.getId());
+        
         boolean changed = false;
         
         if (request.getDisplayName() != null && !request.getDisplayName().trim().isEmpty()) {
@@ -91,9 +119,13 @@ public class UserService {
             user = userRepository.saveAndFlush(user);
             log.info("User saved successfully. ID: {}, displayName: '{}', locale: '{}'", 
                 user.getId(), user.getDisplayName(), user.getLocale());
+            invalidationBus.publish(CacheInvalidationBus.UserChange.PROFILE_UPDATED, user.getId(), user.getCognitoSub());
         } else {
             log.info("No changes detected, skipping save operation");
+            // Provisioning may have filled in the profile; flush so updated_at is final
+            userRepository.flush();
         }
+        validatorCache.record(user);
         
         // Log profile update (with error handling)
         try {
@@ -109,6 +141,7 @@ public class UserService {
         return mapToProfileResponse(user);
     }
     
+    @Transactional(readOnly = true)
     public Page<UserSummaryResponse> searchUsers(String query, Pageable pageable) {
         Page<AppUser> users = query != null && !query.isEmpty() 
             ? userRepository.searchUsers(query, pageable)
@@ -117,18 +150,40 @@ public class UserService {
         return users.map(this::mapToSummaryResponse);
     }
     
+    @Transactional(readOnly = true)
     public UserSummaryResponse getUserById(Long id) {
+        return getUserDetail(id).user();
+    }
+    
+    /**
+     * Load a user with its validator. With read replicas this read may come from one that
+     * lags the primary, so the validator is sent but not cached: a stale entry would keep
+     * answering 304 for a newer state. Writes record the primary's validator instead.
+     */
+    @Transactional(readOnly = true)
+    public UserDetail getUserDetail(Long id) {
         AppUser user = userRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("User not found"));
         if (Boolean.FALSE.equals(user.getIsActive())) {
             throw new RuntimeException("User not found");
         }
         
-        return mapToSummaryResponse(user);
+        String etag = readReplicaProperties.isEnabled()
+            ? UserValidatorCache.etagOf(user)
+            : validatorCache.record(user);
+        return new UserDetail(mapToSummaryResponse(user), etag);
     }
     
     @Transactional
     public UserSummaryResponse updateUserRoles(Long userId, UpdateRolesRequest request) {
+        return updateUserRoles(userId, request, null);
+    }
+    
+    /**
+     * Replace a user's roles, optionally guarded by an If-Match validator
+     */
+    @Transactional
+    public UserSummaryResponse updateUserRoles(Long userId, UpdateRolesRequest request, String ifMatch) {
         log.info("Updating roles for user ID: {}, requested roles: {}", userId, request.getRoles());
         
         // Load managed entity - don't create new instances
@@ -140,11 +195,14 @@ public class UserService {
         
         AppUser currentUser = getCurrentUser();
         
-        // Normalize and validate role names
+        checkIfMatch(ifMatch, UserValidatorCache.etagOf(targetUser), userId);
+        
+        // Normalize and validate role names (duplicates collapse to a single assignment)
         List<String> newRoleNames = request.getRoles().stream()
             .filter(role -> role != null && !role.isBlank())
             .map(String::trim)
             .map(String::toUpperCase)
+            .distinct()
             .collect(Collectors.toList());
         
         // Validate all roles exist and load as managed entities
@@ -166,22 +224,47 @@ public class UserService {
             .filter(role -> !newRoleNames.contains(role))
             .collect(Collectors.toList());
         
-        // Update user roles using the @ManyToMany relationship (JPA handles the join table)
-        targetUser.setRoles(targetRoles);
-        targetUser = userRepository.save(targetUser);
+        // Write only the delta to user_roles. Replacing the @ManyToMany bag would make Hibernate
+        // delete every row for the user and re-insert them, losing assigned_at/assigned_by.
+        // The managed roles collection is left untouched so it is never flushed as a bag rewrite.
+        Long assignedBy = currentUser != null ? currentUser.getId() : null;
+        List<Long> roleIdsToAdd = targetRoles.stream()
+            .filter(role -> rolesToAdd.contains(role.getName()))
+            .map(Role::getId)
+            .collect(Collectors.toList());
+        if (!roleIdsToAdd.isEmpty()) {
+            userRoleRepository.insertAllIfAbsent(targetUser.getId(), roleIdsToAdd, assignedBy);
+        }
         
-        // Log audit events for role changes (with transaction isolation)
+        List<Long> roleIdsToRemove = targetUser.getRoles().stream()
+            .filter(role -> rolesToRemove.contains(role.getName()))
+            .map(Role::getId)
+            .collect(Collectors.toList());
+        if (!roleIdsToRemove.isEmpty()) {
+            userRoleRepository.deleteByUserIdAndRoleIdIn(targetUser.getId(), roleIdsToRemove);
+        }
+        
+        if (!rolesToAdd.isEmpty() || !rolesToRemove.isEmpty()) {
+            secondLevelUserCache.evictRolesAfterCommit(targetUser.getId());
+            invalidationBus.publish(CacheInvalidationBus.UserChange.ROLES_CHANGED,
+                targetUser.getId(), targetUser.getCognitoSub());
+        }
+        meterRegistry.counter("auth.roles.changes", "change", "assigned").increment(rolesToAdd.size());
+        meterRegistry.counter("auth.roles.changes", "change", "removed").increment(rolesToRemove.size());
+        
+        // Log audit events for role changes (with transaction isolation, written as one batch)
         try {
-            // Log role additions
+            List<AuditService.Event> events = new ArrayList<>();
             for (String roleName : rolesToAdd) {
-                auditService.logEvent(currentUser, "ROLE_ASSIGNED", null, null,
-                    String.format("Assigned %s to %s", roleName, targetUser.getEmail()));
+                events.add(new AuditService.Event("ROLE_ASSIGNED",
+                    String.format("Assigned %s to %s", roleName, targetUser.getEmail())));
             }
-            
-            // Log role removals
             for (String roleName : rolesToRemove) {
-                auditService.logEvent(currentUser, "ROLE_REMOVED", null, null,
-                    String.format("Removed %s from %s", roleName, targetUser.getEmail()));
+                events.add(new AuditService.Event("ROLE_REMOVED",
+                    String.format("Removed %s from %s", roleName, targetUser.getEmail())));
+            }
+            if (!events.isEmpty()) {
+                auditService.logEvents(currentUser, events);
             }
             
             log.info("Updated roles for user {}: added={}, removed={}", 
@@ -191,7 +274,18 @@ public class UserService {
             // Don't fail the update if audit logging fails
         }
         
-        return mapToSummaryResponse(targetUser);
+        // Flush pending provisioning changes (self-edit) so updated_at is final before recording
+        userRepository.flush();
+        validatorCache.record(targetUser, targetRoles);
+        
+        return mapToSummaryResponse(targetUser, newRoleNames);
+    }
+    
+    private void checkIfMatch(String ifMatch, String currentEtag, Long userId) {
+        if (!UserValidatorCache.ifMatchSatisfied(ifMatch, currentEtag)) {
+            log.info("If-Match {} does not match current version {} for user ID: {}", ifMatch, currentEtag, userId);
+            throw new PreconditionFailedException("User has been modified since it was last read");
+        }
     }
     
     private AppUser getCurrentUser() {
@@ -227,7 +321,11 @@ public class UserService {
             .build();
     }
     
-    private UserSummaryResponse mapToSummaryResponse(AppUser user) {
+    UserSummaryResponse mapToSummaryResponse(AppUser user) {
+        return mapToSummaryResponse(user, user.getRoles().stream().map(Role::getName).collect(Collectors.toList()));
+    }
+    
+    private UserSummaryResponse mapToSummaryResponse(AppUser user, List<String> roleNames) {
         return UserSummaryResponse.builder()
             .id(user.getId())
             .email(user.getEmail())
@@ -236,7 +334,7 @@ public class UserService {
             .isActive(user.getIsActive())
             .createdAt(user.getCreatedAt())
             .lastLogin(user.getLastLogin())
-            .roles(user.getRoles().stream().map(Role::getName).collect(Collectors.toList()))
+            .roles(roleNames)
             .build();
     }
 }
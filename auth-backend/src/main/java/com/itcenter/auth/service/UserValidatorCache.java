@@ -0,0 +1,123 @@
+package com.itcenter.auth.service;
+
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.entity.Role;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory cache of the current HTTP validator (strong ETag) for each user.
+ *
+ * The ETag is derived from app_users.updated_at plus the role-set version (the sorted
+ * role ids), so it changes whenever the profile or the role assignments change, and on
+ * each login, when mark-login bumps last_login.
+ * Controllers consult this cache to answer If-None-Match with 304 before touching
+ * the database. Entries are recorded when a user is read from the primary or written,
+ * and evicted whenever a write happens that we cannot see the final state of.
+ */
+@Component
+@Slf4j
+public class UserValidatorCache implements LocalUserCache {
+
+    private final ConcurrentMap<Long, String> etagByUserId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> userIdBySub = new ConcurrentHashMap<>();
+
+    /**
+     * Build the strong ETag for a user from its persisted state
+     */
+    public static String etagOf(AppUser user) {
+        return etagOf(user.getId(), user.getUpdatedAt(), user.getRoles());
+    }
+
+    /**
+     * Build the strong ETag for a user with an explicit role set
+     */
+    public static String etagOf(Long userId, LocalDateTime updatedAt, Collection<Role> roles) {
+        long version = updatedAt != null
+            ? updatedAt.truncatedTo(ChronoUnit.MILLIS).toInstant(ZoneOffset.UTC).toEpochMilli()
+            : 0L;
+        String roleVersion = roles == null ? "" : roles.stream()
+            .map(Role::getId)
+            .filter(id -> id != null)
+            .sorted()
+            .distinct()
+            .map(String::valueOf)
+            .collect(Collectors.joining("."));
+        return "\"" + userId + "-" + Long.toHexString(version) + "-" + roleVersion + "\"";
+    }
+
+    /**
+     * Check an If-Match header value against the current ETag.
+     * A missing header always matches; weak validators never do (strong comparison).
+     */
+    public static boolean ifMatchSatisfied(String ifMatch, String currentEtag) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return true;
+        }
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(currentEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String record(AppUser user) {
+        return record(user, user.getRoles());
+    }
+
+    public String record(AppUser user, Collection<Role> roles) {
+        String etag = etagOf(user.getId(), user.getUpdatedAt(), roles);
+        etagByUserId.put(user.getId(), etag);
+        if (user.getCognitoSub() != null) {
+            userIdBySub.put(user.getCognitoSub(), user.getId());
+        }
+        return etag;
+    }
+
+    public String getByUserId(Long userId) {
+        return userId != null ? etagByUserId.get(userId) : null;
+    }
+
+    public String getBySub(String sub) {
+        Long userId = sub != null ? userIdBySub.get(sub) : null;
+        return getByUserId(userId);
+    }
+
+    public void evict(Long userId) {
+        if (userId != null && etagByUserId.remove(userId) != null) {
+            log.debug("Evicted validator for user ID: {}", userId);
+        }
+    }
+
+    public void clear() {
+        etagByUserId.clear();
+        userIdBySub.clear();
+    }
+    
+    @Override
+    public void evictUser(Long userId, String cognitoSub) {
+        evict(userId);
+        if (cognitoSub != null) {
+            userIdBySub.remove(cognitoSub);
+        }
+    }
+    
+    @Override
+    public void evictAll() {
+        clear();
+    }
+
+    public int size() {
+        return etagByUserId.size();
+    }
+}
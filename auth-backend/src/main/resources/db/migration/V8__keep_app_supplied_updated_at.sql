@@ -0,0 +1,15 @@
+-- V8: Let the application own updated_at when it sets it
+
+-- The V1 trigger always overwrote updated_at with CURRENT_TIMESTAMP, so the value
+-- Hibernate holds after a write (@UpdateTimestamp) never matched the stored one.
+-- ETags are derived from updated_at, so both sides must agree. Only fall back to
+-- CURRENT_TIMESTAMP when the UPDATE did not touch the column (e.g. manual SQL).
+CREATE OR REPLACE FUNCTION update_updated_at_column()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.updated_at IS NULL OR NEW.updated_at IS NOT DISTINCT FROM OLD.updated_at THEN
+        NEW.updated_at = CURRENT_TIMESTAMP;
+    END IF;
+    RETURN NEW;
+END;
+$$ language 'plpgsql';
@@ -0,0 +1,17 @@
+-- V9: Hand out ids in blocks so Hibernate can batch inserts
+
+-- IDENTITY ids are only known after each INSERT, which makes Hibernate send every insert
+-- on its own. The entities now draw ids from the BIGSERIAL sequences with the pooled
+-- optimizer: one nextval reserves the 50 ids up to the value it returns. The column
+-- defaults stay, so plain SQL inserts keep working; the value they take is the top of its
+-- own block, which no other caller is handed.
+ALTER SEQUENCE roles_id_seq INCREMENT BY 50;
+ALTER SEQUENCE app_users_id_seq INCREMENT BY 50;
+ALTER SEQUENCE user_roles_id_seq INCREMENT BY 50;
+ALTER SEQUENCE login_audit_id_seq INCREMENT BY 50;
+
+-- Mark each sequence as used, so the first block starts above every existing row
+SELECT setval('roles_id_seq', GREATEST((SELECT last_value FROM roles_id_seq), (SELECT COALESCE(MAX(id), 1) FROM roles)));
+SELECT setval('app_users_id_seq', GREATEST((SELECT last_value FROM app_users_id_seq), (SELECT COALESCE(MAX(id), 1) FROM app_users)));
+SELECT setval('user_roles_id_seq', GREATEST((SELECT last_value FROM user_roles_id_seq), (SELECT COALESCE(MAX(id), 1) FROM user_roles)));
+SELECT setval('login_audit_id_seq', GREATEST((SELECT last_value FROM login_audit_id_seq), (SELECT COALESCE(MAX(id), 1) FROM login_audit)));
@@ -0,0 +1,43 @@
+package com.itcenter.auth;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Records every SQL statement Hibernate prepares, for tests that assert on
+ * statement counts. Enable with the property
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector=com.itcenter.auth.RecordingStatementInspector}
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    /**
+     * Recorded statements, lower-cased and with SQL comments stripped
+     */
+    public static List<String> statements() {
+        return STATEMENTS.stream()
+                .map(sql -> sql.replaceAll("/\\*.*?\\*/", "").trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toList());
+    }
+
+    public static List<String> selects() {
+        return statements().stream()
+                .filter(sql -> sql.startsWith("select"))
+                .collect(Collectors.toList());
+    }
+}
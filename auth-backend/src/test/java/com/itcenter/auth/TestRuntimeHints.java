@@ -0,0 +1,17 @@
+package com.itcenter.auth;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Hints for classes that tests hand to Hibernate by name, so the integration tests
+ * also run as a native image (mvn -PnativeTest test). Registered in META-INF/spring/aot.factories.
+ */
+public class TestRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.reflection().registerType(RecordingStatementInspector.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    }
+}
@@ -0,0 +1,164 @@
+package com.itcenter.auth.it;
+
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.entity.Role;
+import com.itcenter.auth.repository.AppUserRepository;
+import com.itcenter.auth.repository.RoleRepository;
+import com.itcenter.auth.repository.UserRoleRepository;
+import com.itcenter.auth.service.AdminUserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the service-to-service role check endpoint
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthzCheckIT {
+
+    private static final String SCOPE = "SCOPE_itcenter-auth/authz.check";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AppUserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+
+    @Autowired
+    private AdminUserService adminUserService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private AppUser admin;
+    private AppUser employee;
+    private AppUser deactivated;
+
+    @BeforeEach
+    void setUp() {
+        Role adminRole = findOrCreateRole("ADMIN");
+        Role employeeRole = findOrCreateRole("EMPLOYEE");
+
+        admin = createUser("authz-admin");
+        employee = createUser("authz-employee");
+        deactivated = createUser("authz-deactivated");
+        transactionTemplate.executeWithoutResult(status -> {
+            userRoleRepository.insertIfAbsent(admin.getId(), adminRole.getId(), null);
+            userRoleRepository.insertIfAbsent(admin.getId(), employeeRole.getId(), null);
+            userRoleRepository.insertIfAbsent(employee.getId(), employeeRole.getId(), null);
+            userRoleRepository.insertIfAbsent(deactivated.getId(), adminRole.getId(), null);
+        });
+        adminUserService.setUserActive(deactivated.getId(), false);
+    }
+
+    @Test
+    void check_AnswersEachPairInOrder() throws Exception {
+        String body = """
+                {"checks":[
+                  {"sub":"%s","role":"ADMIN"},
+                  {"userId":%d,"role":"admin"},
+                  {"userId":%d,"role":"EMPLOYEE"},
+                  {"sub":"%s","role":"ADMIN"},
+                  {"sub":"unknown-sub","role":"EMPLOYEE"},
+                  {"userId":%d,"role":"ADMIN"}
+                ]}""".formatted(admin.getCognitoSub(), employee.getId(), employee.getId(),
+                employee.getCognitoSub(), deactivated.getId());
+
+        // Twice: the first call loads the users, the second is answered from memory
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/v1/authz/check").with(asService())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=5, private"))
+                    .andExpect(content().json("{\"results\":[true,false,true,false,false,false]}", true));
+        }
+    }
+
+    @Test
+    void check_BinaryEncoding_PacksOneBitPerCheck() throws Exception {
+        StringBuilder checks = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            // Checks 0, 3, 6 and 9 ask for a role the admin holds
+            String role = i % 3 == 0 ? "ADMIN" : "AUDITOR";
+            checks.append(i == 0 ? "" : ",").append("{\"userId\":%d,\"role\":\"%s\"}".formatted(admin.getId(), role));
+        }
+
+        byte[] packed = mockMvc.perform(post("/api/v1/authz/check").with(asService())
+                        .accept(MediaType.APPLICATION_OCTET_STREAM)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"checks\":[" + checks + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(packed).containsExactly(0b0100_1001, 0b0000_0010);
+    }
+
+    @Test
+    void check_WithoutScope_Returns403() throws Exception {
+        mockMvc.perform(post("/api/v1/authz/check")
+                        .with(SecurityMockMvcRequestPostProcessors.jwt()
+                                .authorities(new SimpleGrantedAuthority("ROLE_ADMIN")))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"checks\":[{\"userId\":1,\"role\":\"ADMIN\"}]}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void check_CheckWithBothSubjects_Returns400() throws Exception {
+        mockMvc.perform(post("/api/v1/authz/check").with(asService())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"checks\":[{\"sub\":\"a\",\"userId\":1,\"role\":\"ADMIN\"}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("VALIDATION_ERROR"));
+    }
+
+    private SecurityMockMvcRequestPostProcessors.JwtRequestPostProcessor asService() {
+        return SecurityMockMvcRequestPostProcessors.jwt()
+                .jwt(j -> j.claim("sub", "calling-service").claim("client_id", "calling-service"))
+                .authorities(new SimpleGrantedAuthority(SCOPE));
+    }
+
+    private Role findOrCreateRole(String name) {
+        return roleRepository.findByName(name).orElseGet(() -> {
+            Role role = new Role();
+            role.setName(name);
+            role.setDescription(name + " role");
+            return roleRepository.save(role);
+        });
+    }
+
+    private AppUser createUser(String displayName) {
+        AppUser user = new AppUser();
+        user.setCognitoSub(displayName + "-" + UUID.randomUUID());
+        user.setEmail(displayName + "+" + UUID.randomUUID() + "@example.com");
+        user.setDisplayName(displayName);
+        user.setLocale("en");
+        user.setIsActive(true);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,60 @@
+package com.itcenter.auth.it;
+
+import com.itcenter.auth.config.CognitoHttpClient;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stops and restarts the context the way Spring does around a CRaC checkpoint, and checks
+ * that pooled connections and the Cognito client are released and then usable again.
+ * Runs on its own in-memory database and without the second-level cache: closing the dirtied
+ * context drops its schema and closes the JVM-wide JCache manager, both of which the contexts
+ * other tests keep cached still use.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:checkpoint_restore;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class CheckpointRestoreIT {
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CognitoHttpClient cognitoHttpClient;
+
+    @Test
+    void stopAndStart_ReleasesAndReopensConnections() throws Exception {
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        assertThat(jdbcTemplate.queryForObject("SELECT 1", Integer.class)).isEqualTo(1);
+        assertThat(pool.getHikariPoolMXBean().getTotalConnections()).isPositive();
+
+        context.stop();
+
+        assertThat(pool.getHikariPoolMXBean().getTotalConnections()).isZero();
+        assertThat(cognitoHttpClient.isRunning()).isFalse();
+
+        context.start();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT 1", Integer.class)).isEqualTo(1);
+        assertThat(cognitoHttpClient.isRunning()).isTrue();
+    }
+}
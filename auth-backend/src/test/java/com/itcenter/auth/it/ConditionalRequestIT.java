@@ -0,0 +1,228 @@
+package com.itcenter.auth.it;
+
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.entity.Role;
+import com.itcenter.auth.repository.AppUserRepository;
+import com.itcenter.auth.repository.RoleRepository;
+import com.itcenter.auth.repository.UserRoleRepository;
+import com.itcenter.auth.service.UserProvisioningService;
+import com.itcenter.auth.service.UserService;
+import com.itcenter.auth.service.UserValidatorCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for ETag / If-None-Match / If-Match handling on
+ * /api/v1/me and /api/v1/admin/users/{id}
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisabledInAotMode // @SpyBean cannot be processed ahead of time
+class ConditionalRequestIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AppUserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserValidatorCache validatorCache;
+
+    @Autowired
+    private UserProvisioningService provisioningService;
+
+    @SpyBean
+    private UserService userService;
+
+    private AppUser adminUser;
+    private AppUser targetUser;
+
+    @BeforeEach
+    void setUp() {
+        Role adminRole = findOrCreateRole("ADMIN");
+        Role employeeRole = findOrCreateRole("EMPLOYEE");
+
+        adminUser = createUser("etag-admin");
+        targetUser = createUser("etag-target");
+        transactionTemplate.executeWithoutResult(status -> {
+            userRoleRepository.insertIfAbsent(adminUser.getId(), adminRole.getId(), null);
+            userRoleRepository.insertIfAbsent(targetUser.getId(), employeeRole.getId(), null);
+        });
+    }
+
+    @Test
+    void me_ReturnsNotModified_WithoutLoadingProfile() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/me").with(asUser(adminUser)))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        reset(userService);
+
+        mockMvc.perform(get("/api/v1/me").with(asUser(adminUser))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(userService, never()).getCurrentUserProfile();
+    }
+
+    @Test
+    void me_ColdValidatorCache_StillReturnsNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/me").with(asUser(adminUser)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        LocalDateTime lastLogin = userRepository.findById(adminUser.getId()).orElseThrow().getLastLogin();
+
+        // /me does not write, so the full path answers 304 from the fresh validator
+        validatorCache.clear();
+        mockMvc.perform(get("/api/v1/me").with(asUser(adminUser))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        assertThat(userRepository.findById(adminUser.getId()).orElseThrow().getLastLogin()).isEqualTo(lastLogin);
+    }
+
+    @Test
+    void me_MarkLogin_ChangesETagAndLastLogin() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/me").with(asUser(adminUser)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // What mark-login does once its audit row is in (the insert itself is PostgreSQL-only SQL)
+        provisioningService.recordLogin(userRepository.findById(adminUser.getId()).orElseThrow());
+
+        // The login is part of the representation, so the old validator no longer matches
+        String newEtag = mockMvc.perform(get("/api/v1/me").with(asUser(adminUser))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lastLogin").isNotEmpty())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(newEtag).isNotEqualTo(etag);
+    }
+
+    @Test
+    void patchMe_StaleIfMatch_Returns412() throws Exception {
+        mockMvc.perform(patch("/api/v1/me").with(asUser(adminUser))
+                        .header(HttpHeaders.IF_MATCH, "\"stale\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"displayName\":\"Should Not Apply\"}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.error").value("PRECONDITION_FAILED"));
+
+        assertThat(userRepository.findById(adminUser.getId()).orElseThrow().getDisplayName())
+                .isEqualTo("etag-admin");
+    }
+
+    @Test
+    void patchMe_CurrentIfMatch_UpdatesAndChangesETag() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/me").with(asUser(adminUser)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String newEtag = mockMvc.perform(patch("/api/v1/me").with(asUser(adminUser))
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"displayName\":\"Renamed\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.displayName").value("Renamed"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(newEtag).isNotNull().isNotEqualTo(etag);
+
+        mockMvc.perform(get("/api/v1/me").with(asUser(adminUser))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void adminUserDetail_ConditionalGetAndRolePatch() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/admin/users/{id}", targetUser.getId()).with(asUser(adminUser)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        reset(userService);
+        mockMvc.perform(get("/api/v1/admin/users/{id}", targetUser.getId()).with(asUser(adminUser))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        verify(userService, never()).getUserDetail(anyLong());
+
+        mockMvc.perform(patch("/api/v1/admin/users/{id}/roles", targetUser.getId()).with(asUser(adminUser))
+                        .header(HttpHeaders.IF_MATCH, "\"stale\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"roles\":[\"ADMIN\"]}"))
+                .andExpect(status().isPreconditionFailed());
+
+        String newEtag = mockMvc.perform(patch("/api/v1/admin/users/{id}/roles", targetUser.getId()).with(asUser(adminUser))
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"roles\":[\"ADMIN\",\"EMPLOYEE\"]}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(newEtag).isNotNull().isNotEqualTo(etag);
+
+        mockMvc.perform(get("/api/v1/admin/users/{id}", targetUser.getId()).with(asUser(adminUser))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    private SecurityMockMvcRequestPostProcessors.JwtRequestPostProcessor asUser(AppUser user) {
+        return SecurityMockMvcRequestPostProcessors.jwt()
+                .jwt(j -> j.claim("sub", user.getCognitoSub())
+                        .claim("email", user.getEmail())
+                        .claim("name", user.getDisplayName()))
+                .authorities(new SimpleGrantedAuthority("ROLE_ADMIN"));
+    }
+
+    private Role findOrCreateRole(String name) {
+        return roleRepository.findByName(name).orElseGet(() -> {
+            Role role = new Role();
+            role.setName(name);
+            role.setDescription(name + " role");
+            return roleRepository.save(role);
+        });
+    }
+
+    private AppUser createUser(String displayName) {
+        AppUser user = new AppUser();
+        user.setCognitoSub(displayName + "-" + UUID.randomUUID());
+        user.setEmail(displayName + "+" + UUID.randomUUID() + "@example.com");
+        user.setDisplayName(displayName);
+        user.setLocale("en");
+        user.setIsActive(true);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,75 @@
+package com.itcenter.auth.it;
+
+import jdk.jfr.EventType;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Admin-only on-demand flight recordings
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class FlightRecordingIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void flightRecording_Admin_StreamsJfrFile(@TempDir Path dir) throws Exception {
+        MvcResult started = mockMvc.perform(post("/api/v1/admin/diagnostics/flight-recording")
+                        .param("seconds", "1")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(header().string("Content-Disposition", org.hamcrest.Matchers.endsWith(".jfr\"")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Every JFR chunk starts with the magic bytes "FLR\0"
+        assertThat(new String(Arrays.copyOf(body, 3), StandardCharsets.US_ASCII)).isEqualTo("FLR");
+
+        // Nothing that carries environment variables, system properties or command lines
+        Path file = Files.write(dir.resolve("auth.jfr"), body);
+        List<String> eventTypes = RecordingFile.readAllEvents(file).stream()
+                .map(RecordedEvent::getEventType)
+                .map(EventType::getName)
+                .distinct()
+                .toList();
+        assertThat(eventTypes).isNotEmpty()
+                .doesNotContain("jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty",
+                        "jdk.JVMInformation", "jdk.SystemProcess");
+    }
+
+    @Test
+    void flightRecording_Employee_IsForbidden() throws Exception {
+        mockMvc.perform(post("/api/v1/admin/diagnostics/flight-recording")
+                        .param("seconds", "1")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_EMPLOYEE"))))
+                .andExpect(status().isForbidden());
+    }
+}
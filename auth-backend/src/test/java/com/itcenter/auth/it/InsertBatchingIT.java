@@ -0,0 +1,113 @@
+package com.itcenter.auth.it;
+
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.entity.LoginAudit;
+import com.itcenter.auth.repository.AppUserRepository;
+import com.itcenter.auth.repository.LoginAuditRepository;
+import com.itcenter.auth.service.AuditService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the JDBC round trips of entity inserts: sequence ids with the pooled optimizer
+ * let Hibernate send them in batches, where IDENTITY needed one statement per row.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class InsertBatchingIT {
+
+    private static final int ROWS = 200;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AppUserRepository userRepository;
+
+    @Autowired
+    private LoginAuditRepository auditRepository;
+
+    @Autowired
+    private AuditService auditService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void auditInserts_BatchedRoundTrips() {
+        long unbatched = roundTrips(1);
+        long batched = roundTrips(null);
+
+        // One insert per batch plus one sequence call per block of ids (two for the first block)
+        assertThat(batched)
+                .as("round trips for %d inserts: %d unbatched, %d batched", ROWS, unbatched, batched)
+                .isLessThanOrEqualTo(2L * (ROWS / BATCH_SIZE) + 1);
+        assertThat(unbatched - batched).isGreaterThanOrEqualTo(ROWS - 2L * (ROWS / BATCH_SIZE));
+    }
+
+    @Test
+    void logEvents_WritesOneBatch() {
+        AppUser user = new AppUser();
+        user.setCognitoSub("batch-" + UUID.randomUUID());
+        user.setEmail("batch+" + UUID.randomUUID() + "@example.com");
+        user.setDisplayName("batch");
+        AppUser saved = userRepository.saveAndFlush(user);
+        long before = auditRepository.count();
+
+        statistics.clear();
+        auditService.logEvents(saved, List.of(
+                new AuditService.Event("ROLE_ASSIGNED", "Assigned ADMIN"),
+                new AuditService.Event("ROLE_ASSIGNED", "Assigned MANAGER"),
+                new AuditService.Event("ROLE_REMOVED", "Removed EMPLOYEE")));
+
+        // One insert batch; the pooled optimizer takes two sequence calls for a fresh sequence's first block
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        assertThat(auditRepository.count()).isEqualTo(before + 3);
+    }
+
+    /**
+     * Persists ROWS audit entries in one transaction and returns the statements prepared,
+     * with the session's JDBC batch size overridden when given
+     */
+    private long roundTrips(Integer batchSize) {
+        statistics.clear();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (batchSize != null) {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            }
+            IntStream.range(0, ROWS).forEach(i -> entityManager.persist(LoginAudit.builder()
+                    .eventType("BATCH_TEST")
+                    .userAgent("batch-" + i)
+                    .build()));
+            entityManager.flush();
+        });
+        return statistics.getPrepareStatementCount();
+    }
+}
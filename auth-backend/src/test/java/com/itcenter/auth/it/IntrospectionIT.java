@@ -0,0 +1,134 @@
+package com.itcenter.auth.it;
+
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.entity.Role;
+import com.itcenter.auth.repository.AppUserRepository;
+import com.itcenter.auth.repository.RoleRepository;
+import com.itcenter.auth.repository.UserRoleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the RFC 7662 introspection endpoint.
+ * The mocked decoder makes this a context of its own; it gets its own database and no
+ * second-level cache, so the rows and cache entries it leaves cannot be mistaken for those
+ * of contexts started later (which recreate the shared schema and reuse the same ids).
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:introspection;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IntrospectionIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AppUserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private JwtDecoder jwtDecoder;
+
+    private AppUser user;
+
+    @BeforeEach
+    void setUp() {
+        Role adminRole = roleRepository.findByName("ADMIN").orElseGet(() -> {
+            Role role = new Role();
+            role.setName("ADMIN");
+            role.setDescription("ADMIN role");
+            return roleRepository.save(role);
+        });
+        user = new AppUser();
+        user.setCognitoSub("introspect-" + UUID.randomUUID());
+        user.setEmail("introspect+" + UUID.randomUUID() + "@example.com");
+        user.setDisplayName("introspect");
+        user = userRepository.save(user);
+        transactionTemplate.executeWithoutResult(status ->
+            userRoleRepository.insertIfAbsent(user.getId(), adminRole.getId(), null));
+    }
+
+    @Test
+    void introspect_ValidToken_ReturnsActiveWithRoles() throws Exception {
+        Instant exp = Instant.now().plusSeconds(600);
+        when(jwtDecoder.decode("user-token")).thenReturn(Jwt.withTokenValue("user-token")
+            .header("alg", "RS256")
+            .subject(user.getCognitoSub())
+            .claim("username", "introspect")
+            .claim("client_id", "web-client")
+            .expiresAt(exp)
+            .build());
+
+        mockMvc.perform(post("/api/v1/introspect").with(asService())
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .param("token", "user-token")
+                .param("token_type_hint", "access_token"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+            .andExpect(jsonPath("$.active").value(true))
+            .andExpect(jsonPath("$.sub").value(user.getCognitoSub()))
+            .andExpect(jsonPath("$.user_id").value(user.getId()))
+            .andExpect(jsonPath("$.roles[0]").value("ADMIN"))
+            .andExpect(jsonPath("$.exp").value(exp.getEpochSecond()));
+    }
+
+    @Test
+    void introspect_InvalidToken_ReturnsOnlyInactive() throws Exception {
+        when(jwtDecoder.decode(anyString())).thenThrow(new BadJwtException("bad signature"));
+
+        mockMvc.perform(post("/api/v1/introspect").with(asService())
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .param("token", "forged"))
+            .andExpect(status().isOk())
+            .andExpect(content().json("{\"active\":false}", true));
+    }
+
+    @Test
+    void introspect_WithoutScope_Returns403() throws Exception {
+        mockMvc.perform(post("/api/v1/introspect")
+                .with(SecurityMockMvcRequestPostProcessors.jwt()
+                    .authorities(new SimpleGrantedAuthority("ROLE_ADMIN")))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .param("token", "user-token"))
+            .andExpect(status().isForbidden());
+    }
+
+    private SecurityMockMvcRequestPostProcessors.JwtRequestPostProcessor asService() {
+        return SecurityMockMvcRequestPostProcessors.jwt()
+            .jwt(j -> j.claim("sub", "gateway").claim("client_id", "gateway"))
+            .authorities(new SimpleGrantedAuthority("SCOPE_itcenter-auth/introspect"));
+    }
+}
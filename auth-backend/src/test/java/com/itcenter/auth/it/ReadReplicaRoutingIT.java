@@ -0,0 +1,154 @@
+package com.itcenter.auth.it;
+
+import com.itcenter.auth.dto.UserSummaryResponse;
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.repository.AppUserRepository;
+import com.itcenter.auth.service.AdminUserService;
+import com.itcenter.auth.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Read-replica routing against two independent Postgres containers. The "replica" is
+ * not actually replicating, so rows seeded on only one side show which pool served a read.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@DisabledInAotMode // The containers would have to start during the build
+class ReadReplicaRoutingIT {
+
+    @Container
+    static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Container
+    static PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primary::getJdbcUrl);
+        registry.add("spring.datasource.username", primary::getUsername);
+        registry.add("spring.datasource.password", primary::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("app.schema.migrate-on-startup", () -> "true");
+        registry.add("app.read-replica.enabled", () -> "true");
+        registry.add("app.read-replica.urls", replica::getJdbcUrl);
+        registry.add("app.read-replica.username", replica::getUsername);
+        registry.add("app.read-replica.password", replica::getPassword);
+        registry.add("app.read-replica.sticky-window", () -> "30s");
+    }
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure()
+                .dataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AdminUserService adminUserService;
+
+    @Autowired
+    private AppUserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactions_AreServedByReplica() {
+        String marker = "replica-only-" + UUID.randomUUID();
+        replicaJdbc().update("INSERT INTO app_users (cognito_sub, email, display_name, is_active) VALUES (?, ?, ?, true)",
+                marker, marker + "@example.com", "replica");
+        AppUser primaryOnly = createUser("primary-only");
+
+        authenticateAs("reader-" + UUID.randomUUID());
+
+        List<UserSummaryResponse> found = userService.searchUsers(marker, PageRequest.of(0, 10)).getContent();
+        assertThat(found).extracting(UserSummaryResponse::getEmail).containsExactly(marker + "@example.com");
+        assertThatThrownBy(() -> userService.getUserById(primaryOnly.getId()))
+                .hasMessage("User not found");
+        assertThat(meterRegistry.counter("auth.datasource.routes", "target", "replica").count()).isPositive();
+    }
+
+    @Test
+    void readsAfterOwnWrite_StickToPrimary() {
+        String marker = "sticky-" + UUID.randomUUID();
+        authenticateAs("writer-" + UUID.randomUUID());
+
+        AppUser written = transactionTemplate.execute(status -> createUser(marker));
+        // A status change is a user change and pins the caller; a plain write does not
+        adminUserService.setUserActive(written.getId(), false);
+
+        List<UserSummaryResponse> found = userService.searchUsers(marker, PageRequest.of(0, 10)).getContent();
+        assertThat(found).extracting(UserSummaryResponse::getId).containsExactly(written.getId());
+        assertThat(userService.getUserById(written.getId()).getEmail()).isEqualTo(written.getEmail());
+        assertThat(meterRegistry.counter("auth.datasource.routes", "target", "sticky").count()).isPositive();
+    }
+
+    private static JdbcTemplate replicaJdbc() {
+        return new JdbcTemplate(new DriverManagerDataSource(
+                replica.getJdbcUrl(), replica.getUsername(), replica.getPassword()));
+    }
+
+    private static void authenticateAs(String sub) {
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .claim("sub", sub)
+                .build();
+        SecurityContextHolder.setContext(new SecurityContextImpl(
+                new JwtAuthenticationToken(jwt, List.of(new SimpleGrantedAuthority("ROLE_ADMIN")))));
+    }
+
+    private AppUser createUser(String prefix) {
+        AppUser user = new AppUser();
+        user.setCognitoSub(prefix + "-" + UUID.randomUUID());
+        user.setEmail(prefix + "+" + UUID.randomUUID() + "@example.com");
+        user.setDisplayName(prefix);
+        user.setLocale("en");
+        user.setIsActive(true);
+        return userRepository.save(user);
+    }
+}
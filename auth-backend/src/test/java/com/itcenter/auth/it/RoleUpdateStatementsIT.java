@@ -0,0 +1,177 @@
+package com.itcenter.auth.it;
+
+import com.itcenter.auth.RecordingStatementInspector;
+import com.itcenter.auth.dto.UpdateRolesRequest;
+import com.itcenter.auth.dto.UserSummaryResponse;
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.entity.Role;
+import com.itcenter.auth.entity.UserRole;
+import com.itcenter.auth.repository.AppUserRepository;
+import com.itcenter.auth.repository.RoleRepository;
+import com.itcenter.auth.repository.UserRoleRepository;
+import com.itcenter.auth.service.UserService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the SQL issued by UserService.updateUserRoles to make sure only the
+ * role delta is written to user_roles (no delete-all / re-insert of the bag).
+ */
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.itcenter.auth.RecordingStatementInspector")
+@ActiveProfiles("test")
+@Transactional
+class RoleUpdateStatementsIT {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AppUserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private AppUser targetUser;
+    private Role adminRole;
+    private Role employeeRole;
+    private Role managerRole;
+
+    @BeforeEach
+    void setUp() {
+        adminRole = findOrCreateRole("ADMIN");
+        employeeRole = findOrCreateRole("EMPLOYEE");
+        managerRole = findOrCreateRole("MANAGER");
+
+        AppUser admin = createUser("stmt-admin");
+        userRoleRepository.insertIfAbsent(admin.getId(), adminRole.getId(), null);
+
+        targetUser = createUser("stmt-target");
+        userRoleRepository.insertIfAbsent(targetUser.getId(), adminRole.getId(), null);
+        userRoleRepository.insertIfAbsent(targetUser.getId(), employeeRole.getId(), null);
+
+        entityManager.flush();
+        entityManager.clear();
+
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .claim("sub", admin.getCognitoSub())
+                .claim("email", admin.getEmail())
+                .claim("name", admin.getDisplayName())
+                .build();
+        SecurityContextHolder.setContext(new SecurityContextImpl(
+                new JwtAuthenticationToken(jwt, List.of(new SimpleGrantedAuthority("ROLE_ADMIN")))));
+
+        RecordingStatementInspector.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void updateUserRoles_WritesOnlyDelta() {
+        Map<String, Instant> assignedBefore = assignedAtByRole(targetUser.getId());
+        RecordingStatementInspector.clear();
+
+        UpdateRolesRequest request = new UpdateRolesRequest();
+        request.setRoles(List.of("ADMIN", "MANAGER"));
+
+        UserSummaryResponse response = userService.updateUserRoles(targetUser.getId(), request);
+        entityManager.flush();
+
+        List<String> userRoleWrites = userRoleWrites();
+        assertThat(userRoleWrites).hasSize(2);
+        assertThat(userRoleWrites).filteredOn(sql -> sql.startsWith("insert")).hasSize(1);
+        assertThat(userRoleWrites).filteredOn(sql -> sql.startsWith("delete"))
+                .hasSize(1)
+                .allMatch(sql -> sql.contains("role_id"));
+        assertThat(response.getRoles()).containsExactlyInAnyOrder("ADMIN", "MANAGER");
+
+        entityManager.clear();
+        Map<String, Instant> assignedAfter = assignedAtByRole(targetUser.getId());
+        assertThat(assignedAfter.keySet()).containsExactlyInAnyOrder("ADMIN", "MANAGER");
+        assertThat(assignedAfter.get("ADMIN")).isEqualTo(assignedBefore.get("ADMIN"));
+    }
+
+    @Test
+    void updateUserRoles_NoChange_WritesNothing() {
+        UpdateRolesRequest request = new UpdateRolesRequest();
+        request.setRoles(List.of("EMPLOYEE", "ADMIN"));
+
+        userService.updateUserRoles(targetUser.getId(), request);
+        entityManager.flush();
+
+        assertThat(userRoleWrites()).isEmpty();
+    }
+
+    private List<String> userRoleWrites() {
+        return RecordingStatementInspector.statements().stream()
+                .filter(sql -> sql.contains("user_roles"))
+                .filter(sql -> sql.startsWith("insert") || sql.startsWith("delete") || sql.startsWith("update"))
+                .collect(Collectors.toList());
+    }
+
+    private Map<String, Instant> assignedAtByRole(Long userId) {
+        return userRoleRepository.findByUserIdWithDetails(userId).stream()
+                .collect(Collectors.toMap(ur -> ur.getRole().getName(), UserRole::getAssignedAt, (a, b) -> a));
+    }
+
+    /**
+     * Roles are reference data (read-only in the second-level cache), so create
+     * them in their own committed transaction like the migrations would
+     */
+    private Role findOrCreateRole(String name) {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return requiresNew.execute(status -> roleRepository.findByName(name).orElseGet(() -> {
+            Role role = new Role();
+            role.setName(name);
+            role.setDescription(name + " role");
+            return roleRepository.save(role);
+        }));
+    }
+
+    private AppUser createUser(String prefix) {
+        AppUser user = new AppUser();
+        user.setCognitoSub(prefix + "-" + UUID.randomUUID());
+        user.setEmail(prefix + "+" + UUID.randomUUID() + "@example.com");
+        user.setDisplayName(prefix);
+        user.setLocale("en");
+        user.setIsActive(true);
+        return userRepository.saveAndFlush(user);
+    }
+}
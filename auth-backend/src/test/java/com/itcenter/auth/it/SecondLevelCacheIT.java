@@ -0,0 +1,156 @@
+package com.itcenter.auth.it;
+
+import com.itcenter.auth.RecordingStatementInspector;
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.entity.Role;
+import com.itcenter.auth.repository.AppUserRepository;
+import com.itcenter.auth.repository.RoleRepository;
+import com.itcenter.auth.repository.UserRoleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Verifies that repeat /api/v1/me calls are served from the Hibernate second-level
+ * cache (natural-id lookup on cognito_sub, user entity, roles collection, roles)
+ * without issuing any SELECT.
+ */
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.itcenter.auth.RecordingStatementInspector")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SecondLevelCacheIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AppUserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private AppUser user;
+
+    @BeforeEach
+    void setUp() {
+        // The JCache regions are JVM-wide; entries left by contexts on an earlier schema would
+        // answer for the restarted ids of this one
+        entityManagerFactory.getCache().evictAll();
+        Role employeeRole = findOrCreateRole("EMPLOYEE");
+        user = createUser("l2-user");
+        transactionTemplate.executeWithoutResult(status ->
+                userRoleRepository.insertIfAbsent(user.getId(), employeeRole.getId(), null));
+    }
+
+    @Test
+    void repeatMe_IssuesNoSelects() throws Exception {
+        // First call warms the natural-id, entity, collection and role regions
+        mockMvc.perform(get("/api/v1/me").with(asUser(user)))
+                .andExpect(status().isOk());
+
+        RecordingStatementInspector.clear();
+
+        mockMvc.perform(get("/api/v1/me").with(asUser(user)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.roles[0]").value("EMPLOYEE"));
+        mockMvc.perform(get("/api/v1/me").with(asUser(user)))
+                .andExpect(status().isOk());
+
+        assertThat(RecordingStatementInspector.selects()).isEmpty();
+        // last_login moves at mark-login, so /me does not write either
+        assertThat(RecordingStatementInspector.statements()).noneMatch(sql -> sql.startsWith("update app_users"));
+
+        assertThat(meterRegistry.get("hibernate.l2.requests")
+                .tags("region", "auth.user", "result", "hit")
+                .functionCounter().count()).isGreaterThan(0);
+        assertThat(meterRegistry.get("hibernate.l2.hit.ratio")
+                .tag("region", "auth.user")
+                .gauge().value()).isGreaterThan(0);
+    }
+
+    @Test
+    void profileUpdate_IsVisibleOnNextMe() throws Exception {
+        mockMvc.perform(get("/api/v1/me").with(asUser(user)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(patch("/api/v1/me").with(asUser(user))
+                        .contentType("application/json")
+                        .content("{\"displayName\":\"Cached Rename\"}"))
+                .andExpect(status().isOk());
+
+        RecordingStatementInspector.clear();
+
+        mockMvc.perform(get("/api/v1/me").with(asUser(user)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.displayName").value("Cached Rename"));
+
+        assertThat(RecordingStatementInspector.selects()).isEmpty();
+    }
+
+    @Test
+    void findByCognitoSub_OutsideTransaction_LoadsUser() {
+        // The JWT converter calls this from the security filter, with no transaction or open session
+        assertThat(userRepository.findByCognitoSub(user.getCognitoSub()))
+                .get()
+                .extracting(AppUser::getId)
+                .isEqualTo(user.getId());
+        assertThat(userRepository.findByCognitoSub(user.getCognitoSub())).isPresent();
+    }
+
+    private SecurityMockMvcRequestPostProcessors.JwtRequestPostProcessor asUser(AppUser appUser) {
+        return SecurityMockMvcRequestPostProcessors.jwt()
+                .jwt(j -> j.claim("sub", appUser.getCognitoSub())
+                        .claim("email", appUser.getEmail())
+                        .claim("name", appUser.getDisplayName()))
+                .authorities(new SimpleGrantedAuthority("ROLE_EMPLOYEE"));
+    }
+
+    private Role findOrCreateRole(String name) {
+        return roleRepository.findByName(name).orElseGet(() -> {
+            Role role = new Role();
+            role.setName(name);
+            role.setDescription(name + " role");
+            return roleRepository.save(role);
+        });
+    }
+
+    private AppUser createUser(String displayName) {
+        AppUser appUser = new AppUser();
+        appUser.setCognitoSub(displayName + "-" + UUID.randomUUID());
+        appUser.setEmail(displayName + "+" + UUID.randomUUID() + "@example.com");
+        appUser.setDisplayName(displayName);
+        appUser.setLocale("en");
+        appUser.setIsActive(true);
+        return userRepository.save(appUser);
+    }
+}
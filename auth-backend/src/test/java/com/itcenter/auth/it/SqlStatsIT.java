@@ -0,0 +1,48 @@
+package com.itcenter.auth.it;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statements issued by Hibernate during a request are counted and reported
+ */
+@SpringBootTest(properties = "app.sql-stats.server-timing=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SqlStatsIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void adminUsers_ReportsStatementsInServerTimingAndMetrics() throws Exception {
+        String serverTiming = mockMvc.perform(get("/api/v1/admin/users")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"))))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Server-Timing"))
+                .andReturn().getResponse().getHeader("Server-Timing");
+
+        assertThat(serverTiming).matches("db;dur=\\d+\\.\\d;desc=\"[1-9]\\d* statements\"");
+        DistributionSummary statements = meterRegistry.find("auth.http.sql.statements")
+                .tags("method", "GET", "uri", "/api/v1/admin/users")
+                .summary();
+        assertThat(statements).isNotNull();
+        assertThat(statements.totalAmount()).isPositive();
+    }
+}
@@ -0,0 +1,130 @@
+package com.itcenter.auth.perf;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records every statement executed on one thread, with its bound parameters, so a test
+ * can count them and replay the SELECTs under EXPLAIN. Works below Hibernate, so native
+ * queries and JdbcTemplate are included.
+ */
+class CapturingDataSource extends DelegatingDataSource {
+
+    /** A parameter bound with setNull, replayed the same way */
+    record NullParameter(int sqlType) {
+    }
+
+    record CapturedStatement(String sql, List<Object> parameters) {
+
+        boolean isSelect() {
+            String stripped = sql.replaceAll("/\\*.*?\\*/", "").trim().toLowerCase();
+            return stripped.startsWith("select") || stripped.startsWith("with");
+        }
+    }
+
+    private final List<CapturedStatement> captured = new CopyOnWriteArrayList<>();
+    private volatile Thread capturing;
+
+    CapturingDataSource(DataSource target) {
+        super(target);
+    }
+
+    void start() {
+        captured.clear();
+        capturing = Thread.currentThread();
+    }
+
+    List<CapturedStatement> stop() {
+        capturing = null;
+        return List.copyOf(captured);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, connection, (method, args) -> {
+            Object result = method.invoke(connection, args);
+            if (result instanceof PreparedStatement ps && method.getName().equals("prepareStatement")) {
+                return preparedStatement(ps, (String) args[0]);
+            }
+            if (result instanceof Statement st && method.getName().equals("createStatement")) {
+                return statement(st);
+            }
+            return result;
+        });
+    }
+
+    private PreparedStatement preparedStatement(PreparedStatement target, String sql) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        return proxy(PreparedStatement.class, target, (method, args) -> {
+            String name = method.getName();
+            if (name.equals("setNull")) {
+                parameters.put((Integer) args[0], new NullParameter((Integer) args[1]));
+            } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.startsWith("execute")) {
+                record(sql, new ArrayList<>(parameters.values()));
+            }
+            return method.invoke(target, args);
+        });
+    }
+
+    private Statement statement(Statement target) {
+        return proxy(Statement.class, target, (method, args) -> {
+            if (method.getName().startsWith("execute") && args != null && args.length > 0 && args[0] instanceof String sql) {
+                record(sql, List.of());
+            }
+            return method.invoke(target, args);
+        });
+    }
+
+    private void record(String sql, List<Object> parameters) {
+        if (capturing == Thread.currentThread()) {
+            captured.add(new CapturedStatement(sql, parameters));
+        }
+    }
+
+    private interface Handler {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            if (method.getName().equals("unwrap") || method.getName().equals("isWrapperFor")) {
+                return method.invoke(target, args);
+            }
+            try {
+                return handler.invoke(method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(CapturingDataSource.class.getClassLoader(), new Class<?>[]{type},
+            invocationHandler);
+    }
+}
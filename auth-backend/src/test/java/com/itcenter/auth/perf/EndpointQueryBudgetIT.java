@@ -0,0 +1,74 @@
+package com.itcenter.auth.perf;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Statement, rows-scanned and latency budgets for the hot endpoints at production-like volume.
+ *
+ * Rows-scanned budgets include the count query behind each page; those scale with the table
+ * size, so they are set from the seeded volumes rather than as fixed numbers.
+ */
+class EndpointQueryBudgetIT extends QueryBudgetSupport {
+
+    private static final String EMPLOYEE_SUB = "perf-sub-4242";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void me() throws Exception {
+        // Warm caches answer the lookup by sub; provisioning only writes last_login
+        assertWithinBudget("GET /me",
+                () -> get("/api/v1/me").header("Authorization", bearer(EMPLOYEE_SUB)),
+                2, 10, Duration.ofMillis(50));
+    }
+
+    @Test
+    void markLogin() throws Exception {
+        // A fresh token id every time, so the audit insert is never deduplicated in memory
+        assertWithinBudget("POST /sessions/mark-login",
+                () -> post("/api/v1/sessions/mark-login").header("Authorization", bearer(EMPLOYEE_SUB)),
+                3, 10, Duration.ofMillis(50));
+    }
+
+    @Test
+    void listUsers() throws Exception {
+        // No index on created_at: the page sorts every active user and the count reads them all again
+        assertWithinBudget("GET /admin/users",
+                () -> get("/api/v1/admin/users").header("Authorization", bearer(ADMIN_SUB)),
+                2, 2L * USERS + USERS / 10, Duration.ofMillis(250));
+    }
+
+    @Test
+    void searchUsers() throws Exception {
+        // LIKE '%q%' cannot use an index; a single match fits the first page, so there is no count
+        assertWithinBudget("GET /admin/users?query",
+                () -> get("/api/v1/admin/users").param("query", "perf-user-4242@")
+                        .header("Authorization", bearer(ADMIN_SUB)),
+                2, USERS + USERS / 10, Duration.ofMillis(250));
+    }
+
+    @Test
+    void getUserById() throws Exception {
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM app_users WHERE cognito_sub = ?", Long.class, EMPLOYEE_SUB);
+
+        assertWithinBudget("GET /admin/users/{id}",
+                () -> get("/api/v1/admin/users/{id}", id).header("Authorization", bearer(ADMIN_SUB)),
+                1, 10, Duration.ofMillis(50));
+    }
+
+    @Test
+    void auditLog() throws Exception {
+        // The page walks the created_at index; the unfiltered count still visits every row
+        assertWithinBudget("GET /admin/audit-log",
+                () -> get("/api/v1/admin/audit-log").header("Authorization", bearer(ADMIN_SUB)),
+                2, AUDIT_ROWS + AUDIT_ROWS / 10L, Duration.ofMillis(1_500));
+    }
+}
@@ -0,0 +1,264 @@
+package com.itcenter.auth.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Base for query-budget tests: one Postgres container seeded with production-like volumes
+ * ({@code perf.users} users, {@code perf.audit-rows} audit rows), and helpers that check an
+ * endpoint against a statement count, a rows-scanned ceiling taken from
+ * EXPLAIN (ANALYZE, BUFFERS) and a p95 latency ceiling.
+ *
+ * Requests go through the real bearer-token path; the decoder is replaced by one that
+ * accepts {@code perf.<sub>.<nonce>} tokens for the seeded users, so authority lookup
+ * and provisioning issue the same SQL as in production.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryBudgetSupport.PerfSecurityConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+@DisabledInAotMode // The container would have to start during the build
+abstract class QueryBudgetSupport {
+
+    static final int USERS = Integer.getInteger("perf.users", 50_000);
+    static final int AUDIT_ROWS = Integer.getInteger("perf.audit-rows", 2_000_000);
+    static final int SAMPLES = Integer.getInteger("perf.samples", 30);
+    static final String ADMIN_SUB = "perf-sub-1";
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("app.rate-limit.enabled", () -> "false");
+    }
+
+    @BeforeAll
+    static void seed() {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        jdbc.update("""
+                INSERT INTO app_users (cognito_sub, email, display_name, locale, is_active, created_at, updated_at, last_login)
+                SELECT 'perf-sub-' || n, 'perf-user-' || n || '@example.com', 'Perf User ' || n, 'en',
+                       n % 20 <> 0,
+                       now() - n * interval '1 minute', now() - n * interval '1 minute', now() - n * interval '1 hour'
+                FROM generate_series(1, ?) AS n
+                """, USERS);
+        jdbc.update("""
+                INSERT INTO user_roles (user_id, role_id, assigned_at)
+                SELECT u.id, r.id, now() FROM app_users u, roles r
+                WHERE u.cognito_sub LIKE 'perf-sub-%' AND r.name = 'EMPLOYEE'
+                """);
+        jdbc.update("""
+                INSERT INTO user_roles (user_id, role_id, assigned_at)
+                SELECT u.id, r.id, now() FROM app_users u, roles r
+                WHERE u.cognito_sub = ? AND r.name = 'ADMIN'
+                """, ADMIN_SUB);
+        jdbc.update("""
+                INSERT INTO login_audit (user_id, event_type, ip_address, user_agent, created_at)
+                SELECT first.id + n % ?, CASE WHEN n % 10 = 0 THEN 'LOGOUT' ELSE 'LOGIN_SUCCESS' END,
+                       '10.0.' || (n % 250) || '.' || (n % 200), 'perf-agent', now() - n * interval '1 second'
+                FROM (SELECT min(id) AS id FROM app_users WHERE cognito_sub LIKE 'perf-sub-%') first,
+                     generate_series(1, ?) AS n
+                """, USERS, AUDIT_ROWS);
+        jdbc.execute("ANALYZE");
+    }
+
+    /**
+     * Accepts {@code perf.<sub>.<nonce>} tokens and fills in the claims Cognito would send,
+     * so provisioning never calls the userInfo endpoint
+     */
+    @TestConfiguration
+    static class PerfSecurityConfig {
+
+        @Bean
+        JwtDecoder jwtDecoder() {
+            return token -> {
+                String[] parts = token.split("\\.", 3);
+                String sub = parts[1];
+                String n = sub.substring(sub.lastIndexOf('-') + 1);
+                return Jwt.withTokenValue(token)
+                        .header("alg", "none")
+                        .claim("sub", sub)
+                        .claim("email", "perf-user-" + n + "@example.com")
+                        .claim("name", "Perf User " + n)
+                        .jti(parts.length > 2 ? parts[2] : null)
+                        .issuedAt(Instant.now())
+                        .expiresAt(Instant.now().plusSeconds(3600))
+                        .build();
+            };
+        }
+
+        @Bean
+        static BeanPostProcessor capturingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && beanName.equals("dataSource")
+                            ? new CapturingDataSource(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    static String bearer(String sub) {
+        return "Bearer perf." + sub + "." + UUID.randomUUID();
+    }
+
+    /**
+     * Run the request a few times to warm caches and the JIT, then check it against the budget
+     *
+     * @param maxStatements  statements executed on the test thread for one request
+     * @param maxRowsScanned rows read by all scan nodes of all its SELECTs, summed
+     * @param p95Ceiling     95th percentile over {@code perf.samples} sequential requests
+     */
+    protected void assertWithinBudget(String name, RequestBuilderFactory request,
+                                      int maxStatements, long maxRowsScanned, Duration p95Ceiling) throws Exception {
+        for (int i = 0; i < 5; i++) {
+            perform(request);
+        }
+
+        CapturingDataSource capturing = (CapturingDataSource) dataSource;
+        capturing.start();
+        List<CapturingDataSource.CapturedStatement> statements;
+        try {
+            perform(request);
+        } finally {
+            statements = capturing.stop();
+        }
+
+        long rowsScanned = 0;
+        List<String> plans = new ArrayList<>();
+        for (CapturingDataSource.CapturedStatement statement : statements) {
+            if (!statement.isSelect()) {
+                continue;
+            }
+            JsonNode plan = explain(statement);
+            long scanned = rowsScanned(plan.path(0).path("Plan"));
+            rowsScanned += scanned;
+            plans.add(scanned + " rows: " + statement.sql());
+        }
+
+        long[] nanos = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            perform(request);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        Duration p95 = Duration.ofNanos(nanos[(int) Math.ceil(SAMPLES * 0.95) - 1]);
+
+        assertThat(statements)
+                .as("%s statements", name)
+                .hasSizeLessThanOrEqualTo(maxStatements);
+        assertThat(rowsScanned)
+                .as("%s rows scanned by%n%s", name, String.join("\n", plans))
+                .isLessThanOrEqualTo(maxRowsScanned);
+        assertThat(p95)
+                .as("%s p95 latency", name)
+                .isLessThanOrEqualTo(p95Ceiling);
+    }
+
+    private void perform(RequestBuilderFactory request) throws Exception {
+        MvcResult result = mockMvc.perform(request.build()).andReturn();
+        assertThat(result.getResponse().getStatus()).isLessThan(300);
+    }
+
+    private JsonNode explain(CapturingDataSource.CapturedStatement statement) throws Exception {
+        String json = jdbcTemplate.query("EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + statement.sql(), ps -> {
+            List<Object> parameters = statement.parameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                if (parameters.get(i) instanceof CapturingDataSource.NullParameter nullParameter) {
+                    ps.setNull(i + 1, nullParameter.sqlType());
+                } else {
+                    ps.setObject(i + 1, parameters.get(i));
+                }
+            }
+        }, rs -> rs.next() ? rs.getString(1) : "[]");
+        return objectMapper.readTree(json);
+    }
+
+    /**
+     * Rows produced plus rows filtered out, over all loops, for every scan node of the plan
+     */
+    static long rowsScanned(JsonNode node) {
+        long total = 0;
+        if (node.path("Node Type").asText().endsWith("Scan")) {
+            long perLoop = node.path("Actual Rows").asLong()
+                    + node.path("Rows Removed by Filter").asLong()
+                    + node.path("Rows Removed by Index Recheck").asLong();
+            total += perLoop * Math.max(1, node.path("Actual Loops").asLong());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            total += rowsScanned(child);
+        }
+        return total;
+    }
+
+    /**
+     * Requests are rebuilt for every execution so each one carries a fresh token id
+     */
+    @FunctionalInterface
+    interface RequestBuilderFactory {
+        RequestBuilder build();
+    }
+}
@@ -5,13 +5,19 @@ import com.itcenter.auth.entity.LoginAudit;
 import com.itcenter.auth.repository.AppUserRepository;
 import com.itcenter.auth.repository.LoginAuditRepository;
 import com.itcenter.auth.service.AuditService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -27,6 +33,9 @@ class AuditServiceTest {
     @Mock
     private AppUserRepository userRepository;
 
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private AuditService auditService;
 
@@ -84,6 +93,23 @@ class AuditServiceTest {
         verify(auditRepository, times(1)).save(any(LoginAudit.class));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void logEvents_SavesAllInOneCall() {
+        // When
+        auditService.logEvents(testUser, List.of(
+            new AuditService.Event("ROLE_ASSIGNED", "Assigned ADMIN"),
+            new AuditService.Event("ROLE_REMOVED", "Removed EMPLOYEE")));
+
+        // Then
+        ArgumentCaptor<List<LoginAudit>> saved = ArgumentCaptor.forClass(List.class);
+        verify(auditRepository, times(1)).saveAll(saved.capture());
+        verify(auditRepository, never()).save(any(LoginAudit.class));
+        assertThat(saved.getValue()).extracting(LoginAudit::getEventType)
+            .containsExactly("ROLE_ASSIGNED", "ROLE_REMOVED");
+        assertThat(saved.getValue()).allMatch(audit -> audit.getUser() == testUser);
+    }
+
     @Test
     void getClientIp_ExtractsCorrectIp() {
         // Given - This would require mocking HttpServletRequest
@@ -0,0 +1,78 @@
+package com.itcenter.auth.unit;
+
+import com.itcenter.auth.config.AuthStageEvent;
+import com.itcenter.auth.service.AuthStageMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the AuthStage JFR event and the stream that turns it into metrics
+ */
+class AuthStageEventTest {
+
+    @Test
+    void finish_InRecording_CommitsHashedSubAndOutcome() throws Exception {
+        Path file = Files.createTempFile("auth-stage", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(AuthStageEvent.NAME);
+            recording.start();
+            AuthStageEvent.start(AuthStageEvent.PROVISIONING).finish("sub-123", "existing");
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals(AuthStageEvent.NAME))
+                .toList();
+            assertThat(events).hasSize(1);
+            RecordedEvent event = events.get(0);
+            assertThat(event.getString("stage")).isEqualTo("provisioning");
+            assertThat(event.getString("outcome")).isEqualTo("existing");
+            assertThat(event.getString("subHash")).hasSize(16).isNotEqualTo("sub-123").matches("[0-9a-f]+");
+            assertThat(event.getString("route")).isNull();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void finish_WithoutRecording_DoesNothing() {
+        AuthStageEvent event = AuthStageEvent.start(AuthStageEvent.JWT_DECODE);
+        event.finish("sub-123", "valid");
+
+        assertThat(event.subHash).isNull();
+        assertThat(event.outcome).isNull();
+    }
+
+    @Test
+    void stream_RecordsStageDurations() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AuthStageMetrics metrics = new AuthStageMetrics(meterRegistry);
+        metrics.start();
+        try {
+            Timer timer = null;
+            // The stream delivers events about once a second
+            for (int i = 0; i < 100 && timer == null; i++) {
+                AuthStageEvent.start(AuthStageEvent.AUDIT_WRITE).finish("sub-1", "success");
+                Thread.sleep(100);
+                timer = meterRegistry.find("auth.stage.duration")
+                    .tags("stage", "audit_write", "outcome", "success")
+                    .timer();
+            }
+            assertThat(timer).isNotNull();
+            assertThat(timer.count()).isPositive();
+        } finally {
+            metrics.stop();
+        }
+        assertThat(metrics.isRunning()).isFalse();
+    }
+}
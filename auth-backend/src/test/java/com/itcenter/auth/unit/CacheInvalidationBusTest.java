@@ -0,0 +1,135 @@
+package com.itcenter.auth.unit;
+
+import com.itcenter.auth.config.CacheInvalidationProperties;
+import com.itcenter.auth.service.CacheInvalidationBus;
+import com.itcenter.auth.service.LocalUserCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CacheInvalidationBus payload handling
+ */
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationBusTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private LocalUserCache cache;
+
+    private CacheInvalidationProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private CacheInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CacheInvalidationProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        bus = new CacheInvalidationBus(jdbcTemplate, properties, List.of(cache), meterRegistry);
+    }
+
+    @Test
+    void publish_SendsPgNotifyWithCompactPayload() {
+        bus.publish(CacheInvalidationBus.UserChange.ROLES_CHANGED, 42L, "sub-42");
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), ArgumentMatchers.<ResultSetExtractor<Object>>any(),
+            eq("auth_cache_invalidation"), payload.capture());
+        assertThat(payload.getValue())
+            .startsWith("2|" + bus.getNodeId() + "|ROLES_CHANGED|42|")
+            .endsWith("||sub-42");
+        assertThat(meterRegistry.counter("auth.cache.invalidation.published").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void publish_Disabled_DoesNothing() {
+        properties.setEnabled(false);
+
+        bus.publish(CacheInvalidationBus.UserChange.USER_DELETED, 42L, "sub-42");
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void onNotification_FromOtherNode_EvictsUserAndRecordsLag() {
+        long publishedAt = System.currentTimeMillis() - 25;
+
+        bus.onNotification("2|othernode|PROFILE_UPDATED|7|" + publishedAt + "|admin-sub|sub-7");
+
+        verify(cache).evictUser(7L, "sub-7");
+        verify(cache).onChangeBy("admin-sub");
+        assertThat(meterRegistry.timer("auth.cache.invalidation.lag").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("auth.cache.invalidation.received", "change", "PROFILE_UPDATED").count())
+            .isEqualTo(1.0);
+    }
+
+    @Test
+    void publish_NamesTheCaller_AndTellsLocalCaches() {
+        SecurityContextHolder.setContext(new SecurityContextImpl(
+            new TestingAuthenticationToken("admin-sub", null, "ROLE_ADMIN")));
+        try {
+            bus.publish(CacheInvalidationBus.UserChange.STATUS_CHANGED, 42L, "sub-42");
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), ArgumentMatchers.<ResultSetExtractor<Object>>any(),
+            eq("auth_cache_invalidation"), payload.capture());
+        assertThat(payload.getValue()).endsWith("|admin-sub|sub-42");
+        verify(cache).onLocalChange(42L, "sub-42");
+        verify(cache).onChangeBy("admin-sub");
+    }
+
+    @Test
+    void onNotification_WithoutActor_StillEvicts() {
+        bus.onNotification("1|othernode|PROFILE_UPDATED|7|" + System.currentTimeMillis() + "|sub-7");
+
+        verify(cache).evictUser(7L, "sub-7");
+        verify(cache, never()).onChangeBy(anyString());
+    }
+
+    @Test
+    void onNotification_FromSameNode_IsIgnored() {
+        bus.onNotification("2|" + bus.getNodeId() + "|ROLES_CHANGED|7|" + System.currentTimeMillis() + "|admin-sub|sub-7");
+
+        verifyNoInteractions(cache);
+    }
+
+    @Test
+    void onNotification_Malformed_IsIgnored() {
+        bus.onNotification("garbage");
+        bus.onNotification("2|othernode|ROLES_CHANGED|notanumber|0|admin-sub|sub");
+        bus.onNotification("2|othernode|ROLES_CHANGED|7|0|sub");
+
+        verifyNoInteractions(cache);
+        assertThat(meterRegistry.counter("auth.cache.invalidation.malformed").count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void flushAll_EvictsEveryCache() {
+        bus.flushAll("reconnect");
+
+        verify(cache).evictAll();
+        assertThat(meterRegistry.counter("auth.cache.invalidation.flushes", "reason", "reconnect").count())
+            .isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,77 @@
+package com.itcenter.auth.unit;
+
+import com.itcenter.auth.config.CognitoHttpClient;
+import com.itcenter.auth.config.CognitoProperties;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for CognitoHttpClient
+ */
+class CognitoHttpClientTest {
+
+    private HttpServer server;
+    private String url;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/jwks", exchange -> {
+            byte[] body = "{\"keys\":[]}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (var out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/jwks";
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void stop_ClosesClientAndDropsJwks_StartReopens() {
+        CognitoHttpClient client = new CognitoHttpClient(new CognitoProperties());
+        assertThat(client.restTemplate().getForObject(url, String.class)).isEqualTo("{\"keys\":[]}");
+        client.jwksCache().put(url, "{\"keys\":[]}");
+
+        client.stop();
+
+        assertThat(client.isRunning()).isFalse();
+        assertThat(client.jwksCache().get(url)).isNull();
+        assertThatThrownBy(() -> client.restTemplate().getForObject(url, String.class))
+            .isInstanceOf(IllegalStateException.class);
+
+        client.start();
+
+        assertThat(client.isRunning()).isTrue();
+        assertThat(client.restTemplate().getForObject(url, String.class)).isEqualTo("{\"keys\":[]}");
+    }
+
+    @Test
+    void jwksCache_ExpiresEntriesAfterTtl() throws InterruptedException {
+        CognitoProperties properties = new CognitoProperties();
+        properties.setJwksCacheTtl(Duration.ofMillis(20));
+        CognitoHttpClient client = new CognitoHttpClient(properties);
+
+        client.jwksCache().put(url, "{\"keys\":[]}");
+        assertThat(client.jwksCache().get(url, String.class)).isEqualTo("{\"keys\":[]}");
+
+        Thread.sleep(50);
+
+        assertThat(client.jwksCache().get(url)).isNull();
+    }
+}
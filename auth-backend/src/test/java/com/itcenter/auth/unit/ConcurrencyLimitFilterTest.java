@@ -0,0 +1,212 @@
+package com.itcenter.auth.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itcenter.auth.config.ConcurrencyLimitFilter;
+import com.itcenter.auth.config.ConcurrencyLimitProperties;
+import com.itcenter.auth.service.AimdConcurrencyLimit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the AIMD concurrency limit and ConcurrencyLimitFilter
+ */
+class ConcurrencyLimitFilterTest {
+
+    private static final long THRESHOLD = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyLimitFilter filter;
+    private ExecutorService executor;
+    private CountDownLatch started;
+    private final CountDownLatch finish = new CountDownLatch(1);
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        // Pinned at 10, so requests completing during a test do not move it
+        properties.setInitialLimit(10);
+        properties.setMinLimit(10);
+        properties.setMaxLimit(10);
+        properties.setCriticalPaths(List.of("/api/v1/me", "/api/v1/sessions/mark-login"));
+        properties.setSheddablePaths(List.of("/api/v1/admin/**"));
+        properties.setExemptPaths(List.of("/healthz"));
+
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new ConcurrencyLimitFilter(properties, new ObjectMapper(), meterRegistry);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        finish.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void limit_GrowsWhileRequestsAreFast() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit(10, 1, 200, THRESHOLD, 0.9);
+
+        for (int round = 0; round < 20; round++) {
+            saturate(limit, FAST);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(200);
+    }
+
+    @Test
+    void limit_SettlesWhereQueueingMeetsThreshold() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit(200, 5, 200, THRESHOLD, 0.9);
+
+        // Slow database: 100ms per request behind a 20-connection pool
+        for (int round = 0; round < 200; round++) {
+            saturate(limit, TimeUnit.MILLISECONDS.toNanos(100));
+        }
+
+        // 50 in flight queue for 250ms
+        assertThat(limit.getLimit()).isBetween(40, 60);
+    }
+
+    @Test
+    void limit_CutOncePerRoundTrip() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit(100, 1, 200, THRESHOLD, 0.5);
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire(1.0);
+        }
+
+        // All admitted together, all slow: only the first cuts the limit
+        for (int i = 0; i < 50; i++) {
+            limit.release(0, THRESHOLD * 2);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(50);
+    }
+
+    @Test
+    void limit_HoldsWhileMostlyIdle() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit(10, 1, 100, THRESHOLD, 0.9);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(limit.tryAcquire(1.0)).isTrue();
+            limit.release(now, now += THRESHOLD * 2);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void filter_ShedsAdminBeforeMe() throws Exception {
+        // Six normal requests in flight: the sheddable share (0.6 of 10) is used up
+        holdInFlight(6, "/api/v1/users");
+
+        MockHttpServletResponse admin = perform("/api/v1/admin/audit-log");
+        MockHttpServletResponse me = perform("/api/v1/me");
+
+        assertThat(admin.getStatus()).isEqualTo(503);
+        assertThat(admin.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(admin.getContentAsString()).contains("\"error\":\"OVERLOADED\"");
+        assertThat(me.getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("auth.concurrency.requests")
+            .tag("priority", "sheddable").tag("result", "rejected").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("auth.concurrency.inflight").gauge().value()).isEqualTo(6.0);
+    }
+
+    @Test
+    void filter_RejectsCriticalOnlyAtFullLimit() throws Exception {
+        holdInFlight(9, "/api/v1/users");
+
+        assertThat(perform("/api/v1/users").getStatus()).isEqualTo(503);
+        assertThat(perform("/api/v1/sessions/mark-login").getStatus()).isEqualTo(200);
+
+        holdInFlight(1, "/api/v1/me");
+        assertThat(perform("/api/v1/sessions/mark-login").getStatus()).isEqualTo(503);
+        assertThat(perform("/healthz").getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("auth.concurrency.limit").gauge().value()).isEqualTo(10.0);
+    }
+
+    @Test
+    void filter_SlowSheddableRequestLeavesLimitAlone() throws Exception {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(2);
+        properties.setMinLimit(1);
+        properties.setLatencyThreshold(Duration.ofMillis(1));
+        properties.setSheddablePaths(List.of("/api/v1/admin/**"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimitFilter slowFilter = new ConcurrencyLimitFilter(properties, new ObjectMapper(), registry);
+        FilterChain slow = (request, response) -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        slowFilter.doFilter(new MockHttpServletRequest("GET", "/api/v1/admin/audit-log"),
+            new MockHttpServletResponse(), slow);
+        assertThat(registry.get("auth.concurrency.limit").gauge().value()).isEqualTo(2.0);
+
+        slowFilter.doFilter(new MockHttpServletRequest("GET", "/api/v1/users"), new MockHttpServletResponse(), slow);
+        assertThat(registry.get("auth.concurrency.limit").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.get("auth.concurrency.inflight").gauge().value()).isZero();
+    }
+
+    /**
+     * Start requests that stay inside the filter until the test ends
+     */
+    private void holdInFlight(int count, String path) throws Exception {
+        started = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            executor.submit(() -> {
+                FilterChain blocking = (request, response) -> {
+                    started.countDown();
+                    try {
+                        finish.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                };
+                filter.doFilter(new MockHttpServletRequest("GET", path), new MockHttpServletResponse(), blocking);
+                return null;
+            });
+        }
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private MockHttpServletResponse perform(String path) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", path), response, new MockFilterChain());
+        return response;
+    }
+
+    /**
+     * Admit as many requests as the limit allows and complete them together. Past 20 in flight
+     * they queue for a connection, so their latency grows in proportion.
+     */
+    private void saturate(AimdConcurrencyLimit limit, long latencyPerRequest) {
+        int admitted = 0;
+        while (limit.tryAcquire(1.0)) {
+            admitted++;
+        }
+        long latency = latencyPerRequest * Math.max(20, admitted) / 20;
+        for (int i = 0; i < admitted; i++) {
+            limit.release(now, now + latency);
+        }
+        now += latency;
+    }
+}
@@ -0,0 +1,123 @@
+package com.itcenter.auth.unit;
+
+import com.itcenter.auth.config.JwtAuthConverter;
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.repository.AppUserRepository;
+import com.itcenter.auth.service.AdminUserService;
+import com.itcenter.auth.service.CacheInvalidationBus;
+import com.itcenter.auth.service.DeactivatedUserRegistry;
+import com.itcenter.auth.service.PrincipalAuthorityCache;
+import com.itcenter.auth.service.UserValidatorCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the deactivated-user deny set and its use in JwtAuthConverter
+ */
+@ExtendWith(MockitoExtension.class)
+class DeactivatedUserRegistryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AppUserRepository userRepository;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private DeactivatedUserRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new DeactivatedUserRegistry(jdbcTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void converter_RejectsDeactivatedUserWithoutDatabaseAccess() {
+        registry.statusChanged(7L, "sub-7", false);
+        JwtAuthConverter converter = new JwtAuthConverter(userRepository,
+                new PrincipalAuthorityCache(new SimpleMeterRegistry()), registry, new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> converter.convert(jwt("sub-7")))
+                .isInstanceOf(DisabledException.class);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void reload_ReplacesDenySetWithDatabaseState() throws Exception {
+        registry.statusChanged(1L, "stale-sub", false);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn(2L);
+            when(rs.getString(2)).thenReturn("sub-2");
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        registry.reload();
+
+        assertThat(registry.isDenied("sub-2")).isTrue();
+        assertThat(registry.isDenied("stale-sub")).isFalse();
+        assertThat(registry.size()).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void evictUser_RereadsStatusChangedOnAnotherNode() {
+        registry.statusChanged(3L, "sub-3", false);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(3L)))
+                .thenReturn(List.of(Map.entry("sub-3", true)));
+
+        registry.evictUser(3L, "sub-3");
+
+        assertThat(registry.isDenied("sub-3")).isFalse();
+    }
+
+    @Test
+    void setUserActive_DeactivatesAndPublishes() {
+        AppUser user = new AppUser();
+        user.setId(9L);
+        user.setCognitoSub("sub-9");
+        user.setIsActive(true);
+        when(userRepository.findById(9L)).thenReturn(Optional.of(user));
+        AdminUserService adminUserService = new AdminUserService(userRepository, new UserValidatorCache(),
+                invalidationBus, registry);
+
+        adminUserService.setUserActive(9L, false);
+
+        assertThat(user.getIsActive()).isFalse();
+        verify(userRepository).save(user);
+        verify(invalidationBus).publish(CacheInvalidationBus.UserChange.STATUS_CHANGED, 9L, "sub-9");
+        assertThat(registry.isDenied("sub-9")).isTrue();
+        assertThat(registry.isDenied(9L)).isTrue();
+
+        adminUserService.deleteUser(9L);
+
+        assertThat(registry.isDenied("sub-9")).isFalse();
+    }
+
+    private static Jwt jwt(String sub) {
+        return Jwt.withTokenValue("token").header("alg", "none").claim("sub", sub).build();
+    }
+}
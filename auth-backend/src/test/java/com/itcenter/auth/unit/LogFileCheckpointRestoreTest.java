@@ -0,0 +1,102 @@
+package com.itcenter.auth.unit;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.TimeBasedRollingPolicy;
+import com.itcenter.auth.config.LogFileCheckpointRestore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for LogFileCheckpointRestore
+ */
+class LogFileCheckpointRestoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final LoggerContext context = new LoggerContext();
+    private RollingFileAppender<ILoggingEvent> file;
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%msg%n");
+        encoder.start();
+
+        file = new RollingFileAppender<>();
+        file.setContext(context);
+        file.setFile(dir.resolve("auth-api.log").toString());
+        file.setEncoder(encoder);
+        TimeBasedRollingPolicy<ILoggingEvent> policy = new TimeBasedRollingPolicy<>();
+        policy.setContext(context);
+        policy.setParent(file);
+        policy.setFileNamePattern(dir.resolve("auth-api.%d{yyyy-MM-dd}.log").toString());
+        policy.start();
+        file.setRollingPolicy(policy);
+        file.start();
+
+        // Behind an async appender, as in the prod logging setup
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setNeverBlock(false);
+        async.addAppender(file);
+        async.start();
+
+        logger = context.getLogger("com.itcenter.auth.test");
+        logger.addAppender(async);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.stop();
+    }
+
+    @Test
+    void stop_ClosesFilesBehindAsyncAppender_StartAppendsAgain() throws IOException {
+        LogFileCheckpointRestore lifecycle = new LogFileCheckpointRestore(context);
+        logger.info("before checkpoint");
+
+        lifecycle.stop();
+
+        assertThat(file.isStarted()).isFalse();
+        assertThat(file.getRollingPolicy().isStarted()).isFalse();
+
+        lifecycle.start();
+        logger.info("after restore");
+        context.stop();
+
+        assertThat(file.isStarted()).isFalse();
+        assertThat(Files.readAllLines(dir.resolve("auth-api.log")))
+            .containsExactly("before checkpoint", "after restore");
+    }
+
+    @Test
+    void stop_AfterContextClosed_LeavesFilesOpen() {
+        LogFileCheckpointRestore lifecycle = new LogFileCheckpointRestore(context);
+
+        lifecycle.onApplicationEvent(new ContextClosedEvent(new GenericApplicationContext()));
+        lifecycle.stop();
+
+        assertThat(file.isStarted()).isTrue();
+        assertThat(lifecycle.isRunning()).isFalse();
+    }
+}
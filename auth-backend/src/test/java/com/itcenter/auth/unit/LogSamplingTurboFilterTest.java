@@ -0,0 +1,84 @@
+package com.itcenter.auth.unit;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import com.itcenter.auth.config.LogSamplingTurboFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for per-logger log rate sampling
+ */
+class LogSamplingTurboFilterTest {
+
+    private static final String SAMPLED = "com.itcenter.auth.service.SessionService";
+
+    private LoggerContext context;
+    private LogSamplingTurboFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        context = new LoggerContext();
+        filter = new LogSamplingTurboFilter();
+        filter.setContext(context);
+        filter.addLogger(SAMPLED);
+        filter.addLogger("com.itcenter.auth.config");
+        filter.setMaxPerSecond(2);
+        filter.start();
+    }
+
+    @Test
+    void tryLog_CapsEventsPerSecondAndResetsEachSecond() {
+        assertThat(filter.tryLog(SAMPLED, 1_000)).isTrue();
+        assertThat(filter.tryLog(SAMPLED, 1_500)).isTrue();
+        assertThat(filter.tryLog(SAMPLED, 1_999)).isFalse();
+
+        assertThat(filter.tryLog(SAMPLED, 2_000)).isTrue();
+        assertThat(filter.getDropped()).isEqualTo(1);
+    }
+
+    @Test
+    void tryLog_CountsEachLoggerSeparately_IncludingChildrenOfPrefixes() {
+        filter.tryLog(SAMPLED, 1_000);
+        filter.tryLog(SAMPLED, 1_000);
+
+        assertThat(filter.tryLog("com.itcenter.auth.config.RateLimitFilter", 1_000)).isTrue();
+        assertThat(filter.tryLog(SAMPLED, 1_000)).isFalse();
+    }
+
+    @Test
+    void tryLog_UnlistedLogger_IsNeverSampled() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(filter.tryLog("com.itcenter.auth.service.UserService", 1_000)).isTrue();
+            assertThat(filter.tryLog("com.itcenter.auth.configuration", 1_000)).isTrue();
+        }
+        assertThat(filter.getDropped()).isZero();
+    }
+
+    @Test
+    void decide_ErrorsAndEnabledChecks_AlwaysPass() {
+        Logger logger = context.getLogger(SAMPLED);
+        logger.setLevel(Level.INFO);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(filter.decide(null, logger, Level.ERROR, "failed", null, null)).isEqualTo(FilterReply.NEUTRAL);
+            assertThat(filter.decide(null, logger, Level.INFO, null, null, null)).isEqualTo(FilterReply.NEUTRAL);
+            // Disabled levels are rejected by Logback anyway and must not use up the budget
+            assertThat(filter.decide(null, logger, Level.DEBUG, "debug", null, null)).isEqualTo(FilterReply.NEUTRAL);
+        }
+        assertThat(filter.getDropped()).isZero();
+
+        // Budget of 2 per second; a tight loop may straddle one second boundary at most
+        int denied = 0;
+        for (int i = 0; i < 100; i++) {
+            if (filter.decide(null, logger, Level.INFO, "login", null, null) == FilterReply.DENY) {
+                denied++;
+            }
+        }
+        assertThat(denied).isGreaterThanOrEqualTo(96);
+    }
+}
@@ -0,0 +1,54 @@
+package com.itcenter.auth.unit;
+
+import com.itcenter.auth.config.NativeHintsConfig;
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.entity.LoginAudit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the native-image runtime hints
+ */
+class NativeHintsConfigTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @BeforeEach
+    void setUp() {
+        new NativeHintsConfig.AuthRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void registersEntitiesForFieldAccess() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(AppUser.class)
+            .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS))
+            .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(LoginAudit.class)
+            .withMemberCategories(MemberCategory.DECLARED_FIELDS))
+            .accepts(hints);
+    }
+
+    @Test
+    void registersMigrationsAndConfigurationResources() {
+        assertThat(RuntimeHintsPredicates.resource().forResource("db/migration/V1__init_schema.sql")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("ehcache.xml")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("logback-prod.xml")).accepts(hints);
+    }
+
+    @Test
+    void registersLogbackComponentsAndNimbusTypeToken() {
+        assertThat(RuntimeHintsPredicates.reflection()
+            .onType(TypeReference.of("net.logstash.logback.encoder.LogstashEncoder"))
+            .withMemberCategory(MemberCategory.INVOKE_PUBLIC_METHODS))
+            .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection()
+            .onType(TypeReference.of("com.nimbusds.jose.util.JSONObjectUtils$1")))
+            .accepts(hints);
+    }
+}
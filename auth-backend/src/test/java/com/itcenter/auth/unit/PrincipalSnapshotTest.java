@@ -0,0 +1,260 @@
+package com.itcenter.auth.unit;
+
+import com.itcenter.auth.config.PrincipalCacheProperties;
+import com.itcenter.auth.config.PrincipalSnapshotProperties;
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.entity.Role;
+import com.itcenter.auth.repository.RoleRepository;
+import com.itcenter.auth.service.CacheInvalidationBus;
+import com.itcenter.auth.service.PrincipalAuthorityCache;
+import com.itcenter.auth.service.PrincipalCacheReconciler;
+import com.itcenter.auth.service.PrincipalSnapshot;
+import com.itcenter.auth.service.PrincipalSnapshotManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the memory-mapped principal snapshot, its use by
+ * PrincipalAuthorityCache and the background repair
+ */
+@ExtendWith(MockitoExtension.class)
+class PrincipalSnapshotTest {
+
+    private static final List<PrincipalSnapshot.RoleRef> REGISTRY = List.of(
+            new PrincipalSnapshot.RoleRef(1L, "ADMIN"),
+            new PrincipalSnapshot.RoleRef(2L, "EMPLOYEE"),
+            new PrincipalSnapshot.RoleRef(3L, "MANAGER"));
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private Path file;
+    private PrincipalAuthorityCache cache;
+
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("principals.bin");
+        cache = new PrincipalAuthorityCache(new SimpleMeterRegistry());
+    }
+
+    @Test
+    void writeAndOpen_FindsEntriesBySubHash() throws IOException {
+        List<PrincipalSnapshot.Entry> entries = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            entries.add(new PrincipalSnapshot.Entry(PrincipalSnapshot.hashSub("sub-" + id), id, id % 2 == 0 ? 0b011 : 0b010));
+        }
+        PrincipalSnapshot.write(file, 1234L, REGISTRY, entries);
+
+        PrincipalSnapshot snapshot = PrincipalSnapshot.open(file);
+
+        assertThat(snapshot.size()).isEqualTo(500);
+        assertThat(snapshot.getCreatedAt()).isEqualTo(1234L);
+        assertThat(snapshot.getRoles()).isEqualTo(REGISTRY);
+        PrincipalSnapshot.Entry entry = snapshot.find(PrincipalSnapshot.hashSub("sub-42"));
+        assertThat(entry.userId()).isEqualTo(42L);
+        assertThat(snapshot.rolesOf(entry.roleBits()))
+                .extracting(PrincipalSnapshot.RoleRef::name)
+                .containsExactly("ADMIN", "EMPLOYEE");
+        assertThat(snapshot.find(PrincipalSnapshot.hashSub("unknown"))).isNull();
+    }
+
+    @Test
+    void open_TruncatedFile_IsRejected() throws IOException {
+        PrincipalSnapshot.write(file, 1L, REGISTRY,
+                List.of(new PrincipalSnapshot.Entry(PrincipalSnapshot.hashSub("a"), 1L, 1L)));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length - 4));
+
+        assertThatThrownBy(() -> PrincipalSnapshot.open(file)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void write_CreatesOwnerOnlyDirectory() throws IOException {
+        assumeTrue(tempDir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path nested = tempDir.resolve("state").resolve("principals.bin");
+
+        PrincipalSnapshot.write(nested, 1L, REGISTRY, List.of());
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(nested.getParent())))
+                .isEqualTo("rwx------");
+        assertThat(PrincipalSnapshot.open(nested).size()).isZero();
+    }
+
+    @Test
+    void open_DirectoryWritableByOthers_IsRejected() throws IOException {
+        assumeTrue(tempDir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        PrincipalSnapshot.write(file, 1L, REGISTRY,
+                List.of(new PrincipalSnapshot.Entry(PrincipalSnapshot.hashSub("a"), 1L, 1L)));
+        Files.setPosixFilePermissions(tempDir, PosixFilePermissions.fromString("rwxrwxrwx"));
+
+        assertThatThrownBy(() -> PrincipalSnapshot.open(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("writable by other accounts");
+        assertThatThrownBy(() -> PrincipalSnapshot.write(file, 2L, REGISTRY, List.of()))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void cache_ServesSnapshotUntilUserDiverges() throws IOException {
+        PrincipalSnapshot.write(file, System.currentTimeMillis(), REGISTRY,
+                List.of(new PrincipalSnapshot.Entry(PrincipalSnapshot.hashSub("sub-7"), 7L, 0b101)));
+        cache.installSnapshot(PrincipalSnapshot.open(file));
+
+        PrincipalAuthorityCache.CachedPrincipal principal = cache.get("sub-7");
+        assertThat(principal.userId()).isEqualTo(7L);
+        assertThat(principal.roleNames()).containsExactly("ADMIN", "MANAGER");
+
+        cache.evictUser(7L, "sub-7");
+
+        assertThat(cache.get("sub-7")).isNull();
+    }
+
+    @Test
+    void repair_MarksDeletedAndChangedUsersDiverged() throws Exception {
+        PrincipalSnapshot.write(file, System.currentTimeMillis(), REGISTRY, List.of(
+                new PrincipalSnapshot.Entry(PrincipalSnapshot.hashSub("same"), 1L, 0b010),
+                new PrincipalSnapshot.Entry(PrincipalSnapshot.hashSub("changed"), 2L, 0b010),
+                new PrincipalSnapshot.Entry(PrincipalSnapshot.hashSub("deleted"), 3L, 0b001)));
+        // Database: user 1 unchanged, user 2 promoted to ADMIN, user 3 gone
+        stubCurrentRoles(new long[][] {{1L, 2L}, {2L, 2L}, {2L, 1L}});
+
+        PrincipalSnapshotManager manager = manager();
+        manager.start();
+        try {
+            verify(jdbcTemplate, timeout(2000)).query(anyString(), any(RowCallbackHandler.class));
+            awaitDiverged(2L);
+
+            assertThat(cache.get("same")).isNotNull();
+            assertThat(cache.get("changed")).isNull();
+            assertThat(cache.get("deleted")).isNull();
+        } finally {
+            manager.stop();
+        }
+    }
+
+    @Test
+    void evictUser_NotInSnapshot_IsNotTrackedAsDiverged() throws IOException {
+        PrincipalSnapshot.write(file, System.currentTimeMillis(), REGISTRY,
+                List.of(new PrincipalSnapshot.Entry(PrincipalSnapshot.hashSub("sub-7"), 7L, 0b101)));
+        cache.installSnapshot(PrincipalSnapshot.open(file));
+        cache.put(user(8L, "sub-8", role(2L, "EMPLOYEE")));
+
+        cache.evictUser(8L, "sub-8");
+        cache.evictUser(7L, "sub-7");
+
+        assertThat(cache.get("sub-8")).isNull();
+        assertThat(cache.isDiverged(8L)).isFalse();
+        assertThat(cache.isDiverged(7L)).isTrue();
+    }
+
+    @Test
+    void reconcile_EvictsPrincipalsWhoseRolesChanged() {
+        cache.put(user(1L, "kept", role(2L, "EMPLOYEE")));
+        cache.put(user(2L, "revoked", role(1L, "ADMIN"), role(2L, "EMPLOYEE")));
+        cache.put(user(3L, "deleted", role(2L, "EMPLOYEE")));
+        // Database: ADMIN removed from user 2 with SQL, user 3 gone, no notification sent
+        stubCurrentRoles(new long[][] {{1L, 2L}, {2L, 2L}});
+        doAnswer(invocation -> {
+            cache.evictUser(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(invalidationBus).evictLocally(anyLong(), anyString());
+
+        new PrincipalCacheReconciler(new PrincipalCacheProperties(), cache, invalidationBus, jdbcTemplate,
+                new SimpleMeterRegistry()).reconcile();
+
+        verify(invalidationBus).evictLocally(2L, "revoked");
+        verify(invalidationBus).evictLocally(3L, "deleted");
+        verifyNoMoreInteractions(invalidationBus);
+        assertThat(cache.entries()).containsOnlyKeys("kept");
+    }
+
+    @Test
+    void stop_WritesInMemoryPrincipals() throws IOException {
+        when(roleRepository.findAll()).thenReturn(List.of(role(1L, "ADMIN"), role(2L, "EMPLOYEE")));
+        cache.put(user(9L, "sub-9", role(2L, "EMPLOYEE")));
+
+        PrincipalSnapshotManager manager = manager();
+        manager.start();
+        manager.stop();
+
+        PrincipalSnapshot snapshot = PrincipalSnapshot.open(file);
+        PrincipalSnapshot.Entry entry = snapshot.find(PrincipalSnapshot.hashSub("sub-9"));
+        assertThat(entry.userId()).isEqualTo(9L);
+        assertThat(snapshot.rolesOf(entry.roleBits())).extracting(PrincipalSnapshot.RoleRef::name)
+                .containsExactly("EMPLOYEE");
+    }
+
+    private PrincipalSnapshotManager manager() {
+        PrincipalSnapshotProperties properties = new PrincipalSnapshotProperties();
+        properties.setPath(file);
+        properties.setRepairDelay(Duration.ZERO);
+        return new PrincipalSnapshotManager(properties, cache, roleRepository, jdbcTemplate, new SimpleMeterRegistry());
+    }
+
+    private void stubCurrentRoles(long[][] rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (long[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(row[0]);
+                when(rs.getLong(2)).thenReturn(row[1]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    private void awaitDiverged(Long userId) throws InterruptedException {
+        for (int i = 0; i < 100 && !cache.isDiverged(userId); i++) {
+            Thread.sleep(20);
+        }
+    }
+
+    private static AppUser user(Long id, String sub, Role... roles) {
+        AppUser user = new AppUser();
+        user.setId(id);
+        user.setCognitoSub(sub);
+        user.setRoles(new ArrayList<>(List.of(roles)));
+        return user;
+    }
+
+    private static Role role(Long id, String name) {
+        Role role = new Role();
+        role.setId(id);
+        role.setName(name);
+        return role;
+    }
+}
@@ -0,0 +1,145 @@
+package com.itcenter.auth.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itcenter.auth.config.RateLimitFilter;
+import com.itcenter.auth.config.RateLimitProperties;
+import com.itcenter.auth.service.StripedTokenBuckets;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the striped token buckets and RateLimitFilter
+ */
+class RateLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties.Route markLogin = new RateLimitProperties.Route();
+        markLogin.setName("mark-login");
+        markLogin.setPattern("/api/v1/sessions/mark-login");
+        markLogin.setMethod("POST");
+        markLogin.setCapacity(2);
+        markLogin.setRefillPerSecond(0.5);
+
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setSlots(1024);
+        properties.setRoutes(List.of(markLogin));
+
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RateLimitFilter(properties, new ObjectMapper(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void buckets_AllowBurstThenReportWait() {
+        StripedTokenBuckets buckets = new StripedTokenBuckets(16, 3, 1.0, 0);
+
+        assertThat(buckets.tryAcquire(42, 1000)).isZero();
+        assertThat(buckets.tryAcquire(42, 1000)).isZero();
+        assertThat(buckets.tryAcquire(42, 1000)).isZero();
+        assertThat(buckets.tryAcquire(42, 1000)).isEqualTo(1000);
+        // Half a token refilled after 500ms
+        assertThat(buckets.tryAcquire(42, 1500)).isEqualTo(500);
+        assertThat(buckets.tryAcquire(42, 2000)).isZero();
+    }
+
+    @Test
+    void buckets_MemoryIsFixedForAnyNumberOfKeys() {
+        StripedTokenBuckets buckets = new StripedTokenBuckets(1000, 5, 1.0, 0);
+
+        for (long key = 0; key < 100_000; key++) {
+            buckets.tryAcquire(key, 1000);
+        }
+
+        assertThat(buckets.size()).isEqualTo(1024);
+    }
+
+    @Test
+    void buckets_KeysGetTheirOwnSlotUntilAllProbesAreTaken() {
+        // Two slots: every key probes both
+        StripedTokenBuckets buckets = new StripedTokenBuckets(2, 1, 1.0, 0);
+
+        assertThat(buckets.tryAcquire(1, 1000)).isZero();
+        assertThat(buckets.tryAcquire(2, 1000)).isZero();
+        assertThat(buckets.collisions()).isZero();
+
+        // Both slots are held by keys still refilling: the third key shares one
+        assertThat(buckets.tryAcquire(3, 1000)).isPositive();
+        assertThat(buckets.collisions()).isEqualTo(1);
+
+        // Once an owner has refilled, its slot can be taken over
+        assertThat(buckets.tryAcquire(3, 2000)).isZero();
+        assertThat(buckets.collisions()).isEqualTo(1);
+    }
+
+    @Test
+    void filter_Returns429WithRetryAfter_WhenLimitExceeded() throws Exception {
+        authenticate("sub-1");
+
+        assertThat(markLogin("10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(markLogin("10.0.0.1").getStatus()).isEqualTo(200);
+        MockHttpServletResponse limited = markLogin("10.0.0.1");
+
+        assertThat(limited.getStatus()).isEqualTo(429);
+        assertThat(limited.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(limited.getContentAsString()).contains("RATE_LIMITED");
+        assertThat(meterRegistry.counter("auth.ratelimit.requests", "route", "mark-login", "result", "limited").count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void filter_KeysBySub_IgnoringForwardedFor() throws Exception {
+        authenticate("sub-1");
+        markLogin("10.0.0.1");
+        markLogin("10.0.0.1");
+
+        // A new X-Forwarded-For value does not buy a new bucket
+        assertThat(markLogin("10.0.0.2").getStatus()).isEqualTo(429);
+        authenticate("sub-2");
+        assertThat(markLogin("10.0.0.1").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void filter_IgnoresUnmatchedRoutes() throws Exception {
+        authenticate("sub-1");
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/me");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(200);
+        }
+    }
+
+    private MockHttpServletResponse markLogin(String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/sessions/mark-login");
+        request.addHeader("X-Forwarded-For", ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static void authenticate(String sub) {
+        Jwt jwt = Jwt.withTokenValue("token").header("alg", "none").claim("sub", sub).build();
+        SecurityContextHolder.setContext(new SecurityContextImpl(new JwtAuthenticationToken(jwt)));
+    }
+}
@@ -0,0 +1,119 @@
+package com.itcenter.auth.unit;
+
+import com.itcenter.auth.config.ReadYourWritesTracker;
+import com.itcenter.auth.config.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for read-replica routing and read-your-writes stickiness
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final HikariDataSource replicaA = mock(HikariDataSource.class);
+    private final HikariDataSource replicaB = mock(HikariDataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaAConnection = mock(Connection.class);
+    private final Connection replicaBConnection = mock(Connection.class);
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReadYourWritesTracker tracker;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replicaA.getConnection()).thenReturn(replicaAConnection);
+        when(replicaB.getConnection()).thenReturn(replicaBConnection);
+
+        meterRegistry = new SimpleMeterRegistry();
+        tracker = new ReadYourWritesTracker(60_000, 100);
+        routing = new ReplicaRoutingDataSource(primary, List.of(replicaA, replicaB), tracker, meterRegistry);
+        routing.afterPropertiesSet();
+        SecurityContextHolder.setContext(new SecurityContextImpl(
+                new TestingAuthenticationToken("sub-1", null, "ROLE_EMPLOYEE")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnly_RoundRobinsAcrossReplicas() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routing.getConnection()).isSameAs(replicaAConnection);
+        assertThat(routing.getConnection()).isSameAs(replicaBConnection);
+        assertThat(routing.getConnection()).isSameAs(replicaAConnection);
+        assertThat(meterRegistry.counter("auth.datasource.routes", "target", "replica").count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void noTransaction_UsesPrimaryWithoutPinning() throws Exception {
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(routing.getConnection()).isSameAs(replicaAConnection);
+    }
+
+    @Test
+    void writeWithoutUserChange_DoesNotPin() throws Exception {
+        // e.g. the mark-login audit insert
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(routing.getConnection()).isSameAs(replicaAConnection);
+    }
+
+    @Test
+    void readAfterOwnWrite_StaysOnPrimary() throws Exception {
+        // The bus reports who made the committed change; the caller is pinned, not the changed user
+        tracker.onChangeBy("sub-1");
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(meterRegistry.counter("auth.datasource.routes", "target", "sticky").count()).isEqualTo(1.0);
+
+        SecurityContextHolder.setContext(new SecurityContextImpl(
+                new TestingAuthenticationToken("sub-2", null, "ROLE_EMPLOYEE")));
+        assertThat(routing.getConnection()).isSameAs(replicaAConnection);
+    }
+
+    @Test
+    void tracker_ExpiresAfterWindowAndStaysBounded() throws Exception {
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(20, 2);
+        tracker.recordWrite("a");
+        tracker.recordWrite("b");
+        tracker.recordWrite("c");
+
+        assertThat(tracker.isSticky("a")).isTrue();
+        assertThat(tracker.isSticky("c")).isFalse();
+
+        Thread.sleep(30);
+        tracker.recordWrite("c");
+
+        assertThat(tracker.isSticky("a")).isFalse();
+        assertThat(tracker.isSticky("c")).isTrue();
+        assertThat(tracker.size()).isEqualTo(1);
+    }
+}
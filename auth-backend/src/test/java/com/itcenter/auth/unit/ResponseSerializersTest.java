@@ -0,0 +1,84 @@
+package com.itcenter.auth.unit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itcenter.auth.dto.AuditEntryResponse;
+import com.itcenter.auth.dto.PageResponse;
+import com.itcenter.auth.dto.UserSummaryResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the hand-written list response serializers
+ */
+class ResponseSerializersTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    /** Ignores @JsonSerialize, so the DTOs go through the generic bean serializer */
+    private final ObjectMapper reflective = Jackson2ObjectMapperBuilder.json()
+        .featuresToDisable(MapperFeature.USE_ANNOTATIONS)
+        .build();
+
+    @Test
+    void userSummary_MatchesBeanSerialization() throws Exception {
+        UserSummaryResponse full = UserSummaryResponse.builder()
+            .id(7L)
+            .email("user@example.com")
+            .displayName("User \"Seven\"")
+            .locale("en")
+            .isActive(true)
+            .createdAt(LocalDateTime.of(2024, 1, 1, 9, 0, 0, 123_456_000))
+            .lastLogin(LocalDateTime.of(2024, 6, 1, 9, 30))
+            .roles(List.of("ADMIN", "EMPLOYEE"))
+            .build();
+
+        assertThat(objectMapper.writeValueAsString(full)).isEqualTo(reflective.writeValueAsString(full));
+        assertThat(objectMapper.writeValueAsString(new UserSummaryResponse()))
+            .isEqualTo(reflective.writeValueAsString(new UserSummaryResponse()));
+    }
+
+    @Test
+    void auditEntry_MatchesBeanSerialization() throws Exception {
+        AuditEntryResponse full = AuditEntryResponse.builder()
+            .id(11L)
+            .userId(7L)
+            .userEmail("user@example.com")
+            .eventType("LOGIN_SUCCESS")
+            .ipAddress("203.0.113.10")
+            .userAgent("Mozilla/5.0")
+            .metadata("{\"k\":1}")
+            .createdAt(LocalDateTime.of(2024, 3, 1, 12, 0))
+            .build();
+
+        assertThat(objectMapper.writeValueAsString(full)).isEqualTo(reflective.writeValueAsString(full));
+        assertThat(objectMapper.writeValueAsString(new AuditEntryResponse()))
+            .isEqualTo(reflective.writeValueAsString(new AuditEntryResponse()));
+    }
+
+    @Test
+    void pageResponse_WritesCompactEnvelope() throws Exception {
+        UserSummaryResponse user = UserSummaryResponse.builder().id(1L).email("a@example.com").build();
+        PageImpl<UserSummaryResponse> page = new PageImpl<>(List.of(user), PageRequest.of(2, 20), 101);
+
+        String compact = objectMapper.writeValueAsString(PageResponse.of(page));
+        JsonNode json = objectMapper.readTree(compact);
+
+        assertThat(json.fieldNames()).toIterable()
+            .containsExactly("content", "page", "size", "totalElements", "totalPages");
+        assertThat(json.get("content").get(0).toString()).isEqualTo(objectMapper.writeValueAsString(user));
+        assertThat(json.get("page").asInt()).isEqualTo(2);
+        assertThat(json.get("size").asInt()).isEqualTo(20);
+        assertThat(json.get("totalElements").asLong()).isEqualTo(101);
+        assertThat(json.get("totalPages").asInt()).isEqualTo(6);
+        assertThat(compact.length()).isLessThan(objectMapper.writeValueAsString(page).length());
+    }
+}
@@ -0,0 +1,127 @@
+package com.itcenter.auth.unit;
+
+import com.itcenter.auth.config.SchemaMigrationStrategy;
+import com.itcenter.auth.config.SchemaProperties;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.flywaydb.core.api.MigrationState;
+import org.flywaydb.core.api.MigrationVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the serving-node schema version check
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SchemaMigrationStrategyTest {
+
+    @Mock
+    private Flyway flyway;
+
+    @Mock
+    private MigrationInfoService info;
+
+    private SchemaProperties properties;
+    private SchemaMigrationStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SchemaProperties();
+        strategy = new SchemaMigrationStrategy(properties);
+        when(flyway.info()).thenReturn(info);
+    }
+
+    @Test
+    void migrate_MigrateOnStartup_AppliesMigrations() {
+        properties.setMigrateOnStartup(true);
+
+        strategy.migrate(flyway);
+
+        verify(flyway).migrate();
+        verify(flyway, never()).info();
+    }
+
+    @Test
+    void migrate_SchemaUpToDate_StartsWithoutMigrating() {
+        MigrationInfo v1 = migration("1", MigrationState.SUCCESS);
+        MigrationInfo v2 = migration("2", MigrationState.SUCCESS);
+        history(v2, new MigrationInfo[]{v1, v2}, new MigrationInfo[0]);
+
+        assertThatCode(() -> strategy.migrate(flyway)).doesNotThrowAnyException();
+
+        verify(flyway, never()).migrate();
+    }
+
+    @Test
+    void migrate_PendingMigration_RefusesToStart() {
+        MigrationInfo v1 = migration("1", MigrationState.SUCCESS);
+        MigrationInfo v2 = migration("2", MigrationState.PENDING);
+        history(v1, new MigrationInfo[]{v1, v2}, new MigrationInfo[]{v2});
+
+        assertThatThrownBy(() -> strategy.migrate(flyway))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("at version 1 but this build expects 2")
+            .hasMessageContaining("V2 step 2");
+        verify(flyway, never()).migrate();
+    }
+
+    @Test
+    void migrate_FailedMigration_RefusesToStart() {
+        MigrationInfo v1 = migration("1", MigrationState.SUCCESS);
+        MigrationInfo v2 = migration("2", MigrationState.FAILED);
+        history(v2, new MigrationInfo[]{v1, v2}, new MigrationInfo[0]);
+
+        assertThatThrownBy(() -> strategy.migrate(flyway))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("need repair")
+            .hasMessageContaining("V2 step 2");
+    }
+
+    @Test
+    void migrate_IgnoredMigration_RefusesToStart() {
+        // V2 merged after V3 was applied: not pending, but never run either
+        MigrationInfo v1 = migration("1", MigrationState.SUCCESS);
+        MigrationInfo v2 = migration("2", MigrationState.IGNORED);
+        MigrationInfo v3 = migration("3", MigrationState.SUCCESS);
+        history(v3, new MigrationInfo[]{v1, v2, v3}, new MigrationInfo[0]);
+
+        assertThatThrownBy(() -> strategy.migrate(flyway))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("never applied")
+            .hasMessageContaining("V2 step 2");
+    }
+
+    @Test
+    void migrate_SchemaAheadOfBuild_Starts() {
+        MigrationInfo v1 = migration("1", MigrationState.SUCCESS);
+        MigrationInfo v2 = migration("2", MigrationState.FUTURE_SUCCESS);
+        history(v2, new MigrationInfo[]{v1, v2}, new MigrationInfo[0]);
+
+        assertThatCode(() -> strategy.migrate(flyway)).doesNotThrowAnyException();
+    }
+
+    private void history(MigrationInfo current, MigrationInfo[] all, MigrationInfo[] pending) {
+        when(info.current()).thenReturn(current);
+        when(info.all()).thenReturn(all);
+        when(info.pending()).thenReturn(pending);
+    }
+
+    private static MigrationInfo migration(String version, MigrationState state) {
+        MigrationInfo migration = mock(MigrationInfo.class);
+        when(migration.getVersion()).thenReturn(MigrationVersion.fromVersion(version));
+        when(migration.getDescription()).thenReturn("step " + version);
+        when(migration.getState()).thenReturn(state);
+        return migration;
+    }
+}
@@ -0,0 +1,131 @@
+package com.itcenter.auth.unit;
+
+import com.itcenter.auth.config.JtiFilterProperties;
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.repository.LoginAuditRepository;
+import com.itcenter.auth.service.RecentJtiFilter;
+import com.itcenter.auth.service.SessionService;
+import com.itcenter.auth.service.UserProvisioningService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SessionService.markLogin idempotency
+ */
+@ExtendWith(MockitoExtension.class)
+class SessionServiceTest {
+
+    @Mock
+    private LoginAuditRepository auditRepository;
+
+    @Mock
+    private UserProvisioningService provisioningService;
+
+    private RecentJtiFilter jtiFilter;
+    private SimpleMeterRegistry meterRegistry;
+    private SessionService sessionService;
+    private AppUser user;
+
+    @BeforeEach
+    void setUp() {
+        jtiFilter = new RecentJtiFilter(new JtiFilterProperties(), new SimpleMeterRegistry());
+        meterRegistry = new SimpleMeterRegistry();
+        sessionService = new SessionService(auditRepository, provisioningService, jtiFilter, meterRegistry);
+
+        user = new AppUser();
+        user.setId(5L);
+        user.setEmail("user@test.com");
+    }
+
+    @Test
+    void markLogin_InsertsWithSingleStatement() {
+        when(provisioningService.findOrCreateFromJwt(any())).thenReturn(user);
+        when(auditRepository.insertIfJtiAbsent(5L, "LOGIN_SUCCESS", null, null, "jti-1")).thenReturn(1);
+
+        sessionService.markLogin(jwt("jti-1"));
+
+        verify(auditRepository).insertIfJtiAbsent(5L, "LOGIN_SUCCESS", null, null, "jti-1");
+        verify(auditRepository, never()).existsByTokenJti(anyString());
+        verify(auditRepository, never()).save(any());
+        verify(provisioningService).recordLogin(user);
+        assertThat(jtiFilter.mightContain("jti-1")).isTrue();
+    }
+
+    @Test
+    void markLogin_RepeatedToken_SkipsDatabase() {
+        when(provisioningService.findOrCreateFromJwt(any())).thenReturn(user);
+        when(auditRepository.insertIfJtiAbsent(anyLong(), anyString(), any(), any(), anyString())).thenReturn(1);
+
+        sessionService.markLogin(jwt("jti-2"));
+        sessionService.markLogin(jwt("jti-2"));
+        sessionService.markLogin(jwt("jti-2"));
+
+        verify(provisioningService, times(1)).findOrCreateFromJwt(any());
+        verify(auditRepository, times(1)).insertIfJtiAbsent(anyLong(), anyString(), any(), any(), anyString());
+        assertThat(meterRegistry.counter("auth.session.mark_login.deduplicated", "source", "filter").count())
+                .isEqualTo(2.0);
+        assertThat(meterRegistry.timer("auth.session.mark_login", "outcome", "recorded").count()).isEqualTo(1);
+        assertThat(meterRegistry.timer("auth.session.mark_login", "outcome", "duplicate").count()).isEqualTo(2);
+    }
+
+    @Test
+    void markLogin_ConflictOnOtherNode_IsNotAnError() {
+        when(provisioningService.findOrCreateFromJwt(any())).thenReturn(user);
+        when(auditRepository.insertIfJtiAbsent(anyLong(), anyString(), any(), any(), anyString())).thenReturn(0);
+
+        sessionService.markLogin(jwt("jti-3"));
+
+        assertThat(jtiFilter.mightContain("jti-3")).isTrue();
+        verify(provisioningService, never()).recordLogin(any());
+        assertThat(meterRegistry.counter("auth.session.mark_login.deduplicated", "source", "database").count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void markLogin_WithoutJti_UsesTokenHash() {
+        when(provisioningService.findOrCreateFromJwt(any())).thenReturn(user);
+        when(auditRepository.insertIfJtiAbsent(anyLong(), anyString(), any(), any(), anyString())).thenReturn(1);
+
+        sessionService.markLogin(jwt(null));
+
+        verify(auditRepository).insertIfJtiAbsent(eq(5L), eq("LOGIN_SUCCESS"), any(), any(),
+                eq(org.apache.commons.codec.digest.DigestUtils.sha256Hex("token-value")));
+    }
+
+    @Test
+    void jtiFilter_HasNoFalsePositivesAtModestLoad() {
+        for (int i = 0; i < 10_000; i++) {
+            jtiFilter.put("seen-" + i);
+        }
+        long falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (jtiFilter.mightContain("unseen-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isZero();
+    }
+
+    private static Jwt jwt(String jti) {
+        Jwt.Builder builder = Jwt.withTokenValue("token-value")
+                .header("alg", "RS256")
+                .claim("sub", "sub-5")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(3600));
+        if (jti != null) {
+            builder.jti(jti);
+        }
+        return builder.build();
+    }
+}
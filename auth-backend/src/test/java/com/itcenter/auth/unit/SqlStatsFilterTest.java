@@ -0,0 +1,143 @@
+package com.itcenter.auth.unit;
+
+import com.itcenter.auth.config.RequestSqlStats;
+import com.itcenter.auth.config.SqlStatsFilter;
+import com.itcenter.auth.config.SqlStatsProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for per-request SQL accounting
+ */
+class SqlStatsFilterTest {
+
+    private SqlStatsProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private SqlStatsFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SqlStatsProperties();
+        properties.setStatementBudget(3);
+        properties.setRepeatThreshold(2);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new SqlStatsFilter(properties, meterRegistry);
+    }
+
+    @Test
+    void filter_RecordsStatementsPerRoute() throws Exception {
+        run(request(), new MockHttpServletResponse(), statements(
+            "select u.id from app_users u where u.cognito_sub=?",
+            "select r.id from roles r where r.id in (?,?)"));
+
+        assertThat(meterRegistry.summary("auth.http.sql.statements", "method", "GET", "uri", "/api/v1/admin/users")
+            .totalAmount()).isEqualTo(2.0);
+        assertThat(meterRegistry.timer("auth.http.sql.time", "method", "GET", "uri", "/api/v1/admin/users").count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.counter("auth.http.sql.warnings", "reason", "budget").count()).isZero();
+        assertThat(meterRegistry.counter("auth.http.sql.warnings", "reason", "repeated").count()).isZero();
+        assertThat(RequestSqlStats.current()).isNull();
+    }
+
+    @Test
+    void filter_OverBudget_CountsWarning() throws Exception {
+        run(request(), new MockHttpServletResponse(), statements(
+            "select 1 from app_users", "select 1 from roles", "select 1 from user_roles", "select 1 from login_audit"));
+
+        assertThat(meterRegistry.counter("auth.http.sql.warnings", "reason", "budget").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void filter_RepeatedShape_CountsWarning() throws Exception {
+        run(request(), new MockHttpServletResponse(), statements(
+            "/* load AppUser */ select u.id from app_users u where u.id=?",
+            "select u.id\n  from app_users u\n  where u.id=?",
+            "select u.id from app_users u where u.id=?"));
+
+        assertThat(meterRegistry.counter("auth.http.sql.warnings", "reason", "repeated").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void filter_InListsOfDifferentLength_AreOneShape() throws Exception {
+        run(request(), new MockHttpServletResponse(), statements(
+            "select r.id from roles r where r.id in (?)",
+            "select r.id from roles r where r.id in (?, ?)"));
+
+        assertThat(meterRegistry.counter("auth.http.sql.warnings", "reason", "repeated").count()).isZero();
+
+        run(request(), new MockHttpServletResponse(), statements(
+            "select r.id from roles r where r.id in (?)",
+            "select r.id from roles r where r.id in (?, ?)",
+            "select r.id from roles r where r.id in (?,?,?)"));
+
+        assertThat(meterRegistry.counter("auth.http.sql.warnings", "reason", "repeated").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void filter_ServerTimingEnabled_AddsHeader() throws Exception {
+        properties.setServerTiming(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        run(request(), response, statements("select 1 from app_users", "select 1 from roles"));
+
+        assertThat(response.getHeader("Server-Timing")).matches("db;dur=\\d+\\.\\d;desc=\"2 statements\"");
+    }
+
+    @Test
+    void filter_ServerTimingEnabled_AddsHeaderBeforeCommit() throws Exception {
+        properties.setServerTiming(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        run(request(), response, (req, res) -> {
+            RequestSqlStats.current().recordStatement("select 1 from app_users");
+            res.getWriter().write("{}");
+            res.flushBuffer();
+            RequestSqlStats.current().recordStatement("select 1 from roles");
+        });
+
+        assertThat(response.getHeaders("Server-Timing")).containsExactly("db;dur=0.0;desc=\"1 statements\"");
+    }
+
+    @Test
+    void filter_ServerTimingDisabled_AddsNoHeader() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        run(request(), response, statements("select 1 from app_users"));
+
+        assertThat(response.getHeader("Server-Timing")).isNull();
+    }
+
+    @Test
+    void filter_Disabled_DoesNotTrack() throws Exception {
+        properties.setEnabled(false);
+
+        run(request(), new MockHttpServletResponse(), (req, res) -> assertThat(RequestSqlStats.current()).isNull());
+
+        assertThat(meterRegistry.find("auth.http.sql.statements").summary()).isNull();
+    }
+
+    private void run(MockHttpServletRequest request, MockHttpServletResponse response, FilterChain chain)
+            throws Exception {
+        filter.doFilter(request, response, chain);
+    }
+
+    private static FilterChain statements(String... sql) {
+        return (request, response) -> {
+            for (String statement : sql) {
+                RequestSqlStats.current().recordStatement(statement);
+            }
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/admin/users");
+        };
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/api/v1/admin/users");
+    }
+}
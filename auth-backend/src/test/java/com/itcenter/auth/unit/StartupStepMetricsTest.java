@@ -0,0 +1,54 @@
+package com.itcenter.auth.unit;
+
+import com.itcenter.auth.config.StartupStepMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.metrics.ApplicationStartup;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for StartupStepMetrics
+ */
+class StartupStepMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StartupStepMetrics metrics = new StartupStepMetrics(meterRegistry);
+
+    @Test
+    void onReady_RecordsOneTimerPerStepName() {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(16);
+        startup.start("spring.beans.instantiate").tag("beanName", "a").end();
+        startup.start("spring.beans.instantiate").tag("beanName", "b").end();
+        startup.start("spring.context.refresh").end();
+
+        metrics.onApplicationEvent(readyEvent(startup));
+
+        Timer instantiate = meterRegistry.find("auth.startup.step").tag("step", "spring.beans.instantiate").timer();
+        assertThat(instantiate).isNotNull();
+        assertThat(instantiate.count()).isEqualTo(2);
+        assertThat(meterRegistry.find("auth.startup.step").tag("step", "spring.context.refresh").timer().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.find("auth.startup.step").timers()).hasSize(2);
+    }
+
+    @Test
+    void onReady_WithoutBufferingStartup_RecordsNothing() {
+        metrics.onApplicationEvent(readyEvent(ApplicationStartup.DEFAULT));
+
+        assertThat(meterRegistry.find("auth.startup.step").timers()).isEmpty();
+    }
+
+    private static ApplicationReadyEvent readyEvent(ApplicationStartup startup) {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.setApplicationStartup(startup);
+        return new ApplicationReadyEvent(new SpringApplication(), new String[0], context, Duration.ZERO);
+    }
+}
@@ -0,0 +1,182 @@
+package com.itcenter.auth.unit;
+
+import com.itcenter.auth.config.IntrospectionProperties;
+import com.itcenter.auth.dto.IntrospectionResponse;
+import com.itcenter.auth.entity.AppUser;
+import com.itcenter.auth.entity.Role;
+import com.itcenter.auth.repository.AppUserRepository;
+import com.itcenter.auth.service.DeactivatedUserRegistry;
+import com.itcenter.auth.service.PrincipalAuthorityCache;
+import com.itcenter.auth.service.TokenIntrospectionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TokenIntrospectionService
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TokenIntrospectionServiceTest {
+
+    private static final String SUB = "user-sub";
+
+    @Mock
+    private JwtDecoder jwtDecoder;
+
+    @Mock
+    private DeactivatedUserRegistry deactivatedUsers;
+
+    @Mock
+    private AppUserRepository userRepository;
+
+    private PrincipalAuthorityCache authorityCache;
+    private IntrospectionProperties properties;
+    private TokenIntrospectionService service;
+
+    @BeforeEach
+    void setUp() {
+        authorityCache = new PrincipalAuthorityCache(new SimpleMeterRegistry());
+        properties = new IntrospectionProperties();
+        service = new TokenIntrospectionService(jwtDecoder, authorityCache, deactivatedUsers, userRepository,
+            properties, new SimpleMeterRegistry());
+        when(userRepository.findByCognitoSub(SUB)).thenReturn(Optional.of(user("ADMIN")));
+    }
+
+    @Test
+    void introspect_UserToken_ReturnsUserAndRoles() {
+        when(jwtDecoder.decode("t1")).thenReturn(userToken("t1", Instant.now().plusSeconds(600)));
+
+        IntrospectionResponse response = service.introspect("t1");
+
+        assertThat(response.isActive()).isTrue();
+        assertThat(response.getSub()).isEqualTo(SUB);
+        assertThat(response.getUsername()).isEqualTo("jane");
+        assertThat(response.getUserId()).isEqualTo(42L);
+        assertThat(response.getRoles()).containsExactly("ADMIN");
+        assertThat(response.getTokenType()).isEqualTo("Bearer");
+    }
+
+    @Test
+    void introspect_SameToken_VerifiedOnce() {
+        when(jwtDecoder.decode("t1")).thenReturn(userToken("t1", Instant.now().plusSeconds(600)));
+
+        service.introspect("t1");
+        service.introspect("t1");
+
+        verify(jwtDecoder, times(1)).decode("t1");
+        verify(userRepository, times(1)).findByCognitoSub(SUB);
+        assertThat(service.size()).isEqualTo(1);
+    }
+
+    @Test
+    void introspect_RoleChangeAfterCaching_ReturnsNewRoles() {
+        when(jwtDecoder.decode("t1")).thenReturn(userToken("t1", Instant.now().plusSeconds(600)));
+        service.introspect("t1");
+
+        authorityCache.evictUser(42L, SUB);
+        when(userRepository.findByCognitoSub(SUB)).thenReturn(Optional.of(user("EMPLOYEE")));
+
+        assertThat(service.introspect("t1").getRoles()).containsExactly("EMPLOYEE");
+        verify(jwtDecoder, times(1)).decode("t1");
+    }
+
+    @Test
+    void introspect_DeactivatedUser_ReturnsInactive() {
+        when(jwtDecoder.decode("t1")).thenReturn(userToken("t1", Instant.now().plusSeconds(600)));
+        when(deactivatedUsers.isDenied(42L)).thenReturn(true);
+
+        IntrospectionResponse response = service.introspect("t1");
+
+        assertThat(response.isActive()).isFalse();
+        assertThat(response.getSub()).isNull();
+    }
+
+    @Test
+    void introspect_InvalidToken_ReturnsInactiveAndNothingCached() {
+        when(jwtDecoder.decode(anyString())).thenThrow(new BadJwtException("bad signature"));
+
+        assertThat(service.introspect("forged").isActive()).isFalse();
+        assertThat(service.introspect("forged").isActive()).isFalse();
+
+        verify(jwtDecoder, times(2)).decode("forged");
+        assertThat(service.size()).isZero();
+    }
+
+    @Test
+    void introspect_ClientToken_NoUserLookup() {
+        Jwt jwt = Jwt.withTokenValue("c1")
+            .header("alg", "RS256")
+            .subject("client-app")
+            .claim("client_id", "client-app")
+            .claim("scope", "itcenter-auth/introspect")
+            .expiresAt(Instant.now().plusSeconds(600))
+            .build();
+        when(jwtDecoder.decode("c1")).thenReturn(jwt);
+
+        IntrospectionResponse response = service.introspect("c1");
+
+        assertThat(response.isActive()).isTrue();
+        assertThat(response.getClientId()).isEqualTo("client-app");
+        assertThat(response.getScope()).isEqualTo("itcenter-auth/introspect");
+        assertThat(response.getRoles()).isNull();
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void introspect_CacheFull_DropsLeastRecentlyUsed() {
+        properties.setMaxCachedTokens(2);
+        service = new TokenIntrospectionService(jwtDecoder, authorityCache, deactivatedUsers, userRepository,
+            properties, new SimpleMeterRegistry());
+        for (String token : List.of("t1", "t2", "t3")) {
+            when(jwtDecoder.decode(token)).thenReturn(userToken(token, Instant.now().plusSeconds(600)));
+        }
+
+        service.introspect("t1");
+        service.introspect("t2");
+        service.introspect("t1");
+        assertThat(service.introspect("t3").isActive()).isTrue();
+        service.introspect("t1");
+        service.introspect("t2");
+
+        assertThat(service.size()).isEqualTo(2);
+        verify(jwtDecoder, times(1)).decode("t1");
+        verify(jwtDecoder, times(2)).decode("t2");
+    }
+
+    private static Jwt userToken(String value, Instant expiresAt) {
+        return Jwt.withTokenValue(value)
+            .header("alg", "RS256")
+            .subject(SUB)
+            .claim("username", "jane")
+            .claim("client_id", "web-client")
+            .issuedAt(expiresAt.minusSeconds(3600))
+            .expiresAt(expiresAt)
+            .build();
+    }
+
+    private static AppUser user(String roleName) {
+        AppUser user = new AppUser();
+        user.setId(42L);
+        user.setCognitoSub(SUB);
+        user.setRoles(new ArrayList<>(List.of(Role.builder().id(1L).name(roleName).build())));
+        return user;
+    }
+}
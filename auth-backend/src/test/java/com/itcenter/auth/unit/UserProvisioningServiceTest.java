@@ -1,10 +1,15 @@
 package com.itcenter.auth.unit;
 
+import com.itcenter.auth.config.CognitoHttpClient;
+import com.itcenter.auth.config.CognitoProperties;
 import com.itcenter.auth.entity.AppUser;
 import com.itcenter.auth.entity.Role;
 import com.itcenter.auth.repository.AppUserRepository;
 import com.itcenter.auth.repository.RoleRepository;
+import com.itcenter.auth.service.CacheInvalidationBus;
 import com.itcenter.auth.service.UserProvisioningService;
+import com.itcenter.auth.service.UserValidatorCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -33,13 +38,18 @@ class UserProvisioningServiceTest {
     @Mock
     private RoleRepository roleRepository;
 
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
     private UserProvisioningService userProvisioningService;
 
     private Role employeeRole;
 
     @BeforeEach
     void setUp() {
-        userProvisioningService = new UserProvisioningService(userRepository, roleRepository);
+        CognitoProperties cognitoProperties = new CognitoProperties();
+        userProvisioningService = new UserProvisioningService(userRepository, roleRepository, new UserValidatorCache(),
+                invalidationBus, cognitoProperties, new SimpleMeterRegistry(), new CognitoHttpClient(cognitoProperties));
         
         employeeRole = new Role();
         employeeRole.setId(1L);
@@ -80,7 +90,7 @@ class UserProvisioningServiceTest {
         // Then
         assertThat(result).isNotNull();
         assertThat(result.getEmail()).isEqualTo(email);
-        verify(userRepository, times(3)).save(any(AppUser.class)); // Save user, save role, save last_login
+        verify(userRepository, times(2)).save(any(AppUser.class)); // Save user, save role
     }
 
     @Test
@@ -104,7 +114,6 @@ class UserProvisioningServiceTest {
         existingUser.setDisplayName("Existing User");
 
         when(userRepository.findByCognitoSub(sub)).thenReturn(Optional.of(existingUser));
-        when(userRepository.save(any(AppUser.class))).thenReturn(existingUser);
 
         // When
         AppUser result = userProvisioningService.findOrCreateFromJwt(jwt);
@@ -112,7 +121,7 @@ class UserProvisioningServiceTest {
         // Then
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(1L);
-        verify(userRepository, times(1)).save(any(AppUser.class)); // Only updates last login
+        verify(userRepository, never()).save(any(AppUser.class)); // last_login moves at mark-login, not here
     }
 
     @Test
@@ -144,5 +153,17 @@ class UserProvisioningServiceTest {
         assertThat(result).isNotNull();
         verify(userRepository, atLeastOnce()).save(any(AppUser.class));
     }
-}
 
+    @Test
+    void recordLogin_BumpsLastLoginAndInvalidatesValidator() {
+        AppUser user = new AppUser();
+        user.setId(7L);
+        user.setCognitoSub("login-sub");
+
+        userProvisioningService.recordLogin(user);
+
+        assertThat(user.getLastLogin()).isNotNull();
+        verify(userRepository).save(user);
+        verify(invalidationBus).publish(CacheInvalidationBus.UserChange.LOGGED_IN, 7L, "login-sub");
+    }
+}
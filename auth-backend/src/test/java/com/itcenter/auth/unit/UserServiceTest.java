@@ -1,5 +1,6 @@
 package com.itcenter.auth.unit;
 
+import com.itcenter.auth.config.ReadReplicaProperties;
 import com.itcenter.auth.dto.UpdateProfileRequest;
 import com.itcenter.auth.entity.AppUser;
 import com.itcenter.auth.entity.Role;
@@ -7,13 +8,18 @@ import com.itcenter.auth.repository.AppUserRepository;
 import com.itcenter.auth.repository.RoleRepository;
 import com.itcenter.auth.repository.UserRoleRepository;
 import com.itcenter.auth.service.AuditService;
+import com.itcenter.auth.service.CacheInvalidationBus;
+import com.itcenter.auth.service.SecondLevelUserCache;
 import com.itcenter.auth.service.UserProvisioningService;
 import com.itcenter.auth.service.UserService;
+import com.itcenter.auth.service.UserValidatorCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -48,6 +54,21 @@ class UserServiceTest {
     @Mock
     private UserRoleRepository userRoleRepository;
 
+    @Mock
+    private UserValidatorCache validatorCache;
+
+    @Mock
+    private SecondLevelUserCache secondLevelUserCache;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @Spy
+    private ReadReplicaProperties readReplicaProperties = new ReadReplicaProperties();
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private UserService userService;
 
@@ -119,6 +140,17 @@ class UserServiceTest {
         assertThat(result.getEmail()).isEqualTo("test@example.com");
     }
 
+    @Test
+    void getUserDetail_WithReplicas_SendsValidatorWithoutCachingIt() {
+        readReplicaProperties.setEnabled(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        UserService.UserDetail detail = userService.getUserDetail(1L);
+
+        assertThat(detail.etag()).isEqualTo(UserValidatorCache.etagOf(testUser));
+        verify(validatorCache, never()).record(any(AppUser.class));
+    }
+
     @Test
     void getUserById_ThrowsException_WhenNotExists() {
         // Given
@@ -8,13 +8,17 @@ import com.itcenter.auth.repository.AppUserRepository;
 import com.itcenter.auth.repository.RoleRepository;
 import com.itcenter.auth.repository.UserRoleRepository;
 import com.itcenter.auth.service.AuditService;
+import com.itcenter.auth.service.CacheInvalidationBus;
 import com.itcenter.auth.service.UserProvisioningService;
 import com.itcenter.auth.service.UserService;
+import com.itcenter.auth.service.UserValidatorCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
@@ -52,6 +56,12 @@ class UserServiceUpdateProfileTest {
     @Mock
     private UserRoleRepository userRoleRepository;
 
+    @Mock
+    private UserValidatorCache validatorCache;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
     @Mock
     private SecurityContext securityContext;
 
@@ -61,6 +71,9 @@ class UserServiceUpdateProfileTest {
     @Mock
     private Jwt jwt;
 
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private UserService userService;
 
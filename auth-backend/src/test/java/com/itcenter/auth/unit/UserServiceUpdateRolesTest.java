@@ -8,13 +8,18 @@ import com.itcenter.auth.repository.AppUserRepository;
 import com.itcenter.auth.repository.RoleRepository;
 import com.itcenter.auth.repository.UserRoleRepository;
 import com.itcenter.auth.service.AuditService;
+import com.itcenter.auth.service.CacheInvalidationBus;
+import com.itcenter.auth.service.SecondLevelUserCache;
 import com.itcenter.auth.service.UserProvisioningService;
 import com.itcenter.auth.service.UserService;
+import com.itcenter.auth.service.UserValidatorCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
@@ -52,6 +57,15 @@ class UserServiceUpdateRolesTest {
     @Mock
     private UserRoleRepository userRoleRepository;
 
+    @Mock
+    private UserValidatorCache validatorCache;
+
+    @Mock
+    private SecondLevelUserCache secondLevelUserCache;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
     @Mock
     private SecurityContext securityContext;
 
@@ -61,6 +75,9 @@ class UserServiceUpdateRolesTest {
     @Mock
     private Jwt jwt;
 
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private UserService userService;
 
@@ -122,8 +139,11 @@ class UserServiceUpdateRolesTest {
 
         // Then
         assertThat(response.getRoles()).containsExactlyInAnyOrder("ADMIN", "EMPLOYEE");
-        verify(auditService, times(1)).logEvent(eq(currentUser), eq("ROLE_ASSIGNED"), 
-            any(), any(), contains("EMPLOYEE"));
+        verify(userRoleRepository).insertAllIfAbsent(1L, List.of(2L), 2L);
+        verify(secondLevelUserCache).evictRolesAfterCommit(1L);
+        verify(userRoleRepository, never()).deleteByUserIdAndRoleIdIn(anyLong(), anyCollection());
+        verify(auditService, times(1)).logEvents(eq(currentUser), argThat(events -> events.size() == 1
+            && events.get(0).eventType().equals("ROLE_ASSIGNED") && events.get(0).metadata().contains("EMPLOYEE")));
     }
 
     @Test
@@ -142,8 +162,10 @@ class UserServiceUpdateRolesTest {
 
         // Then
         assertThat(response.getRoles()).containsExactly("EMPLOYEE");
-        verify(auditService, times(1)).logEvent(eq(currentUser), eq("ROLE_REMOVED"), 
-            any(), any(), contains("ADMIN"));
+        verify(userRoleRepository).deleteByUserIdAndRoleIdIn(1L, List.of(1L));
+        verify(userRoleRepository, never()).insertAllIfAbsent(anyLong(), anyCollection(), any());
+        verify(auditService, times(1)).logEvents(eq(currentUser), argThat(events -> events.size() == 1
+            && events.get(0).eventType().equals("ROLE_REMOVED") && events.get(0).metadata().contains("ADMIN")));
     }
 
     @Test
@@ -181,7 +203,7 @@ class UserServiceUpdateRolesTest {
             .hasMessageContaining("Role not found: INVALID_ROLE");
         
         verify(userRepository, never()).save(any(AppUser.class));
-        verify(auditService, never()).logEvent(any(AppUser.class), anyString(), any(), any(), anyString());
+        verify(auditService, never()).logEvents(any(), anyList());
     }
 
     @Test
@@ -198,7 +220,7 @@ class UserServiceUpdateRolesTest {
             .hasMessageContaining("User not found");
         
         verify(userRepository, never()).save(any(AppUser.class));
-        verify(auditService, never()).logEvent(any(AppUser.class), anyString(), any(), any(), anyString());
+        verify(auditService, never()).logEvents(any(), anyList());
     }
 
     @Test
@@ -214,9 +236,9 @@ class UserServiceUpdateRolesTest {
         // When
         UserSummaryResponse response = userService.updateUserRoles(1L, request);
 
-        // Then - should handle gracefully (Set deduplicates)
+        // Then - should handle gracefully (duplicates collapse to one insert)
         assertThat(response.getRoles()).containsExactly("EMPLOYEE");
-        verify(userRepository, times(1)).save(any(AppUser.class));
+        verify(userRoleRepository, times(1)).insertAllIfAbsent(1L, List.of(2L), 2L);
     }
 
     @Test
@@ -272,7 +294,7 @@ class UserServiceUpdateRolesTest {
     }
 
     @Test
-    void updateUserRoles_NoChanges_StillLogsAudit() {
+    void updateUserRoles_NoChanges_WritesNothing() {
         // Given
         testUser.setRoles(new ArrayList<>(List.of(adminRole)));
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
@@ -285,8 +307,12 @@ class UserServiceUpdateRolesTest {
         // When
         UserSummaryResponse response = userService.updateUserRoles(1L, request);
 
-        // Then - saves anyway (JPA processes the many-to-many update)
-        verify(userRepository, times(1)).save(any(AppUser.class));
+        // Then - no writes to user_roles and the aggregate is not re-saved
+        assertThat(response.getRoles()).containsExactly("ADMIN");
+        verify(userRoleRepository, never()).insertAllIfAbsent(anyLong(), anyCollection(), any());
+        verify(userRoleRepository, never()).deleteByUserIdAndRoleIdIn(anyLong(), anyCollection());
+        verify(userRepository, never()).save(any(AppUser.class));
+        verify(auditService, never()).logEvents(any(), anyList());
     }
 }
 